@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "4.0.2"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.stellaris"
@@ -34,3 +35,11 @@ dependencies {
 tasks.test {
     useJUnitPlatform()
 }
+
+jmh {
+    // ./gradlew jmh -PjmhIncludes=RequirementEvaluation
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
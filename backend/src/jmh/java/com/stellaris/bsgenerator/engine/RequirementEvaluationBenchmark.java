@@ -0,0 +1,170 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.config.SettingsService;
+import com.stellaris.bsgenerator.extractor.*;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import com.stellaris.bsgenerator.parser.LocalizationService;
+import com.stellaris.bsgenerator.parser.cache.GameDataManager;
+import com.stellaris.bsgenerator.parser.cache.ParsedDataCache;
+import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.parser.loader.GameFileService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One filtering pass over a candidate set: the reference interpreter against the compiled bitset
+ * masks and the generated bytecode (state encoding included). With {@code -p gamePath=...} the
+ * candidates are the game's civics and origins; otherwise they are synthetic blocks shaped like
+ * them: mostly ethics and authority {@code NOT}/{@code NOR}/{@code OR}, some civics and a few
+ * cross-category ORs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequirementEvaluationBenchmark {
+
+    private static final int SYNTHETIC_CANDIDATES = 200;
+
+    /** A Stellaris installation to take the candidates from, or empty for synthetic ones. */
+    @Param("")
+    public String gamePath;
+
+    private final RequirementEvaluator evaluator = new RequirementEvaluator();
+    private final List<RequirementBlock> potentials = new ArrayList<>();
+    private final List<RequirementBlock> possibles = new ArrayList<>();
+    private IdRegistry registry;
+    private CompiledRequirement[] compiled;
+    private RequirementPredicates bytecode;
+    private EmpireState state;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (gamePath.isEmpty()) {
+            var random = new Random(1);
+            for (int i = 0; i < SYNTHETIC_CANDIDATES; i++) {
+                potentials.add(block(random, 1));
+                possibles.add(block(random, 3));
+            }
+            state = EmpireState.empty()
+                    .withEthics(Set.of("ethic_3", "ethic_7", "ethic_11"))
+                    .withAuthority("auth_2")
+                    .withCivics(Set.of("civic_5"));
+        } else {
+            var gameData = loadGameData(gamePath);
+            gameData.getCivics().forEach(c -> {
+                potentials.add(c.potential());
+                possibles.add(c.possible());
+            });
+            gameData.getOrigins().forEach(o -> {
+                potentials.add(o.potential());
+                possibles.add(o.possible());
+            });
+            state = EmpireState.empty()
+                    .withEthics(Set.of("ethic_fanatic_egalitarian", "ethic_xenophile"))
+                    .withAuthority("auth_democratic")
+                    .withCivics(Set.of("civic_beacon_of_liberty"));
+        }
+        registry = new IdRegistry();
+        for (int i = 0; i < potentials.size(); i++) {
+            CompiledRequirement.register(registry, potentials.get(i));
+            CompiledRequirement.register(registry, possibles.get(i));
+        }
+        compiled = new CompiledRequirement[potentials.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = CompiledRequirement.compile(registry, potentials.get(i), possibles.get(i));
+        }
+        bytecode = PredicateCompiler.compile(compiled);
+    }
+
+    @Benchmark
+    public int interpreter() {
+        int compatible = 0;
+        for (int i = 0; i < potentials.size(); i++) {
+            if (evaluator.evaluateBoth(potentials.get(i), possibles.get(i), state)) compatible++;
+        }
+        return compatible;
+    }
+
+    @Benchmark
+    public int compiled() {
+        var encoded = EncodedState.encode(state, registry);
+        int compatible = 0;
+        for (CompiledRequirement requirement : compiled) {
+            if (requirement.test(encoded)) compatible++;
+        }
+        return compatible;
+    }
+
+    @Benchmark
+    public int bytecode() {
+        var encoded = EncodedState.encode(state, registry);
+        int compatible = 0;
+        for (int i = 0; i < compiled.length; i++) {
+            if (bytecode.test(i, encoded)) compatible++;
+        }
+        return compatible;
+    }
+
+    private static GameDataManager loadGameData(String gamePath) throws IOException {
+        var props = new ParserProperties(gamePath, Files.createTempDirectory("bsgenerator-jmh").toString());
+        var settingsService = new SettingsService(props);
+        var gameDataManager = new GameDataManager(settingsService, new GameFileService(props, settingsService),
+                new ParsedDataCache(props),
+                new EthicExtractor(), new AuthorityExtractor(),
+                new CivicExtractor(), new OriginExtractor(),
+                new SpeciesArchetypeExtractor(), new SpeciesTraitExtractor(),
+                new PlanetClassExtractor(), new GraphicalCultureExtractor(),
+                new StartingRulerTraitExtractor(), new SpeciesClassExtractor(),
+                new LocalizationService(props, settingsService));
+        gameDataManager.loadGameData(false);
+        return gameDataManager;
+    }
+
+    private static RequirementBlock block(Random random, int categories) {
+        var requirements = new EnumMap<RequirementCategory, List<Requirement>>(RequirementCategory.class);
+        for (int i = 0; i < categories; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> requirements.put(RequirementCategory.ETHICS, List.of(
+                        new Requirement.Nor(values(random, "ethic", 16, 3))));
+                case 1 -> requirements.put(RequirementCategory.AUTHORITY, List.of(
+                        new Requirement.Not("auth_" + random.nextInt(6))));
+                case 2 -> requirements.put(RequirementCategory.CIVICS, List.of(
+                        new Requirement.Nor(values(random, "civic", 200, 4))));
+                default -> requirements.put(RequirementCategory.ETHICS, List.of(
+                        new Requirement.Or(values(random, "ethic", 16, 2))));
+            }
+        }
+        List<Map<RequirementCategory, List<Requirement>>> ors = random.nextInt(5) == 0
+                ? List.of(Map.of(
+                        RequirementCategory.AUTHORITY, List.of(new Requirement.Value("auth_" + random.nextInt(6))),
+                        RequirementCategory.CIVICS, List.of(new Requirement.Value("civic_" + random.nextInt(200)))))
+                : List.of();
+        return new RequirementBlock(requirements, ors);
+    }
+
+    private static List<String> values(Random random, String prefix, int range, int count) {
+        var values = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            values.add(prefix + "_" + random.nextInt(range));
+        }
+        return values;
+    }
+}
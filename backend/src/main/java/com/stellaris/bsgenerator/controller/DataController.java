@@ -1,14 +1,18 @@
 package com.stellaris.bsgenerator.controller;
 
+import com.stellaris.bsgenerator.engine.CompatibilityFilterService;
+import com.stellaris.bsgenerator.engine.ReferenceIndex;
 import com.stellaris.bsgenerator.parser.cache.GameDataManager;
 import com.stellaris.bsgenerator.parser.cache.GameVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/data")
@@ -16,6 +20,7 @@ import java.io.IOException;
 public class DataController {
 
     private final GameDataManager gameDataManager;
+    private final CompatibilityFilterService filterService;
 
     public record VersionResponse(String version, String rawVersion, String buildHash) {
         static VersionResponse from(GameVersion gv) {
@@ -32,15 +37,34 @@ public class DataController {
         return VersionResponse.from(gv);
     }
 
+    /** Estimated heap retained per category, see {@link GameDataManager#getFootprint}. */
+    @GetMapping("/footprint")
+    public List<GameDataManager.Footprint> footprint() {
+        return gameDataManager.getFootprint();
+    }
+
+    /** Hit/miss counts of the memoized compatible pools, see {@link CompatibilityFilterService#getPoolStats}. */
+    @GetMapping("/pool-stats")
+    public CompatibilityFilterService.PoolStats poolStats() {
+        return filterService.getPoolStats();
+    }
+
+    /** Entities whose requirements or allow/forbid lists mention {@code id}, see {@link CompatibilityFilterService#getReferences}. */
+    @GetMapping("/references/{id}")
+    public List<ReferenceIndex.Reference> references(@PathVariable String id) {
+        return filterService.getReferences(id);
+    }
+
     public record ReloadResponse(String status, String dataStatus) {}
 
+    /**
+     * Starts a reload in the background and answers 202; the current data keeps being served
+     * until it completes. Its outcome shows in {@code /api/health}, {@code reloadError} included.
+     */
     @PostMapping("/reload")
-    public ReloadResponse reload() {
-        try {
-            gameDataManager.forceReload();
-            return new ReloadResponse("reloaded", gameDataManager.getDataStatus().name().toLowerCase());
-        } catch (IOException e) {
-            return new ReloadResponse("error", gameDataManager.getDataStatus().name().toLowerCase());
-        }
+    public ResponseEntity<ReloadResponse> reload() {
+        gameDataManager.requestReload(true);
+        return ResponseEntity.accepted()
+                .body(new ReloadResponse("reloading", gameDataManager.getDataStatus().name().toLowerCase()));
     }
 }
@@ -21,9 +21,12 @@ public class EmpireController {
 
     @PostMapping("/generate")
     public EmpireResponse generate() {
-        var empire = generatorService.generate();
-        session = new GenerationSession(empire);
-        return EmpireResponse.from(empire, session, localizationService);
+        // Names are looked up in the same game data the empire was generated from
+        return generatorService.withSnapshot(() -> {
+            var empire = generatorService.generate();
+            session = new GenerationSession(empire);
+            return EmpireResponse.from(empire, session, localizationService);
+        });
     }
 
     @PostMapping("/reroll")
@@ -37,8 +40,8 @@ public class EmpireController {
             if (request.traitId() == null || request.traitId().isBlank()) {
                 throw new IllegalArgumentException("traitId is required for trait_single reroll");
             }
-            var updated = rerollService.rerollSingleTrait(session, request.traitId());
-            return EmpireResponse.from(updated, session, localizationService);
+            return generatorService.withSnapshot(() -> EmpireResponse.from(
+                    rerollService.rerollSingleTrait(session, request.traitId()), session, localizationService));
         }
 
         RerollCategory category = switch (request.category().toLowerCase()) {
@@ -55,7 +58,7 @@ public class EmpireController {
             default -> throw new IllegalArgumentException("Unknown reroll category: " + request.category());
         };
 
-        var updated = rerollService.reroll(session, category);
-        return EmpireResponse.from(updated, session, localizationService);
+        return generatorService.withSnapshot(() -> EmpireResponse.from(
+                rerollService.reroll(session, category), session, localizationService));
     }
 }
@@ -1,11 +1,14 @@
 package com.stellaris.bsgenerator.controller;
 
 import com.stellaris.bsgenerator.parser.cache.GameDataManager;
+import com.stellaris.bsgenerator.parser.loader.LoadProgress;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
@@ -13,7 +16,15 @@ public class HealthController {
 
     private final GameDataManager gameDataManager;
 
-    public record HealthResponse(String status, String version, String dataStatus, String dataError) {}
+    /**
+     * @param reloading       whether a reload is underway; the current data is served until it completes
+     * @param reloadError     why the latest reload failed, even if the earlier data is still served
+     * @param readyCategories game data categories that can be used already, e.g. by generation
+     * @param phases          progress of the latest load
+     */
+    public record HealthResponse(String status, String version, String dataStatus, String dataError,
+                                 boolean reloading, String reloadError, List<String> readyCategories,
+                                 List<LoadProgress.Phase> phases) {}
 
     @GetMapping("/health")
     public HealthResponse health() {
@@ -22,7 +33,11 @@ public class HealthController {
                 "ok",
                 "0.1.0",
                 ds.name().toLowerCase(),
-                gameDataManager.getDataError()
+                gameDataManager.getDataError(),
+                gameDataManager.isReloading(),
+                gameDataManager.getReloadError(),
+                gameDataManager.getReadyCategories().stream().map(c -> c.name().toLowerCase()).toList(),
+                gameDataManager.getLoadProgress().phases()
         );
     }
 }
@@ -2,8 +2,10 @@ package com.stellaris.bsgenerator.controller;
 
 import com.stellaris.bsgenerator.config.SettingsService;
 import com.stellaris.bsgenerator.parser.cache.GameDataManager;
+import com.stellaris.bsgenerator.parser.cache.GameFileWatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
@@ -16,6 +18,7 @@ public class SettingsController {
 
     private final SettingsService settingsService;
     private final GameDataManager gameDataManager;
+    private final GameFileWatcher gameFileWatcher;
 
     public record SettingsResponse(String gamePath, boolean valid, String validationMessage) {}
 
@@ -28,23 +31,31 @@ public class SettingsController {
         return new SettingsResponse(settings.gamePath(), validation.valid(), validation.message());
     }
 
+    /**
+     * Saves valid settings and answers 202 while the game data reloads in the background; whether
+     * that reload succeeds shows in {@code /api/health}.
+     */
     @PutMapping
-    public SettingsResponse saveSettings(@RequestBody SaveSettingsRequest request) throws IOException {
+    public ResponseEntity<SettingsResponse> saveSettings(@RequestBody SaveSettingsRequest request) {
         var validation = settingsService.validate(request.gamePath());
         if (!validation.valid()) {
-            return new SettingsResponse(request.gamePath(), false, validation.message());
+            return ResponseEntity.ok(new SettingsResponse(request.gamePath(), false, validation.message()));
         }
 
-        settingsService.save(new SettingsService.Settings(request.gamePath()));
-        log.info("Settings saved, triggering data reload for path: {}", request.gamePath());
-
         try {
-            gameDataManager.forceReload();
+            settingsService.save(new SettingsService.Settings(request.gamePath()));
         } catch (IOException e) {
-            log.error("Data reload failed after settings save: {}", e.getMessage());
-            return new SettingsResponse(request.gamePath(), true, "Settings saved but data reload failed: " + e.getMessage());
+            log.error("Failed to save settings: {}", e.getMessage());
+            return ResponseEntity.ok(new SettingsResponse(request.gamePath(), false,
+                    "Failed to save settings: " + e.getMessage()));
         }
+        log.info("Settings saved, triggering data reload for path: {}", request.gamePath());
+
+        // Loads in the background, cancelling a load of the previous path; progress shows in /api/health
+        gameFileWatcher.restart();
+        gameDataManager.requestReload(true);
 
-        return new SettingsResponse(request.gamePath(), true, "Settings saved and data reloaded successfully");
+        return ResponseEntity.accepted()
+                .body(new SettingsResponse(request.gamePath(), true, "Settings saved, reloading game data"));
     }
 }
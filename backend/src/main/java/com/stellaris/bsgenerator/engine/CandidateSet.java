@@ -0,0 +1,98 @@
+package com.stellaris.bsgenerator.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The candidates of one list whose requirements pass for an empire state as it is being built.
+ * {@link #update} only records which categories changed; the next read re-tests just the
+ * candidates whose requirements read one of them, found through the dependency index of
+ * {@link RequirementIndex.Candidates}. Nothing is tested until something is read, so a set whose
+ * pools all come from the memo costs only the state encodings.
+ * <p>
+ * Not thread-safe: each generation or reroll uses its own.
+ */
+final class CandidateSet<T> {
+
+    private final RequirementIndex index;
+    private final RequirementIndex.Candidates<T> candidates;
+    private EmpireState state;
+    private EncodedState encoded;
+    /** Candidates that passed when last tested; null until the first read. */
+    private BitSet compatible;
+    /** Bit per category ordinal changed since the last read. */
+    private int staleCategories;
+
+    CandidateSet(RequirementIndex index, RequirementIndex.Candidates<T> candidates, EmpireState state) {
+        this.index = index;
+        this.candidates = candidates;
+        this.state = state;
+        this.encoded = index.encode(state);
+    }
+
+    /** Moves to {@code next}, typically the current state with one more category picked. */
+    void update(EmpireState next) {
+        EncodedState nextEncoded = index.encode(next);
+        staleCategories |= encoded.changedCategories(nextEncoded);
+        state = next;
+        encoded = nextEncoded;
+    }
+
+    EmpireState state() {
+        return state;
+    }
+
+    EncodedState encoded() {
+        return encoded;
+    }
+
+    /** Whether this set was built from {@code index}, i.e. from the same game data. */
+    boolean isFrom(RequirementIndex index) {
+        return this.index == index;
+    }
+
+    /** Whether the requirements of the candidate with {@code id} pass; false if there is no such candidate. */
+    boolean contains(String id) {
+        int i = candidates.indexOf(id);
+        return i >= 0 && refresh().get(i);
+    }
+
+    /** Whether the requirements of all candidates with {@code ids} pass. */
+    boolean containsAll(Collection<String> ids) {
+        for (String id : ids) {
+            if (!contains(id)) return false;
+        }
+        return true;
+    }
+
+    /** Candidates whose requirements pass, in list order. */
+    List<T> compatible() {
+        BitSet passing = refresh();
+        var result = new ArrayList<T>(passing.cardinality());
+        for (int i = passing.nextSetBit(0); i >= 0; i = passing.nextSetBit(i + 1)) {
+            result.add(candidates.get(i));
+        }
+        return result;
+    }
+
+    private BitSet refresh() {
+        if (compatible == null) {
+            compatible = new BitSet(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                if (candidates.test(i, encoded)) compatible.set(i);
+            }
+        } else if (staleCategories != 0) {
+            var stale = new BitSet(candidates.size());
+            for (int categories = staleCategories; categories != 0; categories &= categories - 1) {
+                stale.or(candidates.dependents(Integer.numberOfTrailingZeros(categories)));
+            }
+            for (int i = stale.nextSetBit(0); i >= 0; i = stale.nextSetBit(i + 1)) {
+                compatible.set(i, candidates.test(i, encoded));
+            }
+        }
+        staleCategories = 0;
+        return compatible;
+    }
+}
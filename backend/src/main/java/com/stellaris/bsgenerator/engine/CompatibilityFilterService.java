@@ -1,12 +1,23 @@
 package com.stellaris.bsgenerator.engine;
 
 import com.stellaris.bsgenerator.model.*;
+import com.stellaris.bsgenerator.parser.cache.GameData;
 import com.stellaris.bsgenerator.parser.cache.GameDataManager;
+import com.stellaris.bsgenerator.parser.loader.GameCategory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Filters game entities by compatibility with the current empire state.
@@ -18,17 +29,88 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CompatibilityFilterService {
 
+    /** Bound on the memoized pools of one game data snapshot. */
+    private static final int POOL_CACHE_CAPACITY = 4096;
+    /**
+     * Snapshots whose memos are kept: the one a reload published and the one that generations
+     * pinned before it still read.
+     */
+    private static final int MEMO_SLOTS = 2;
+
     private final GameDataManager gameDataManager;
-    private final RequirementEvaluator evaluator;
+    /** Memos of the latest snapshots used, newest first, each built on first use. */
+    private volatile List<Memo> memos = List.of();
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+
+    /**
+     * What the filters read from one snapshot, with the pools memoized from it. Each part is
+     * carried over to the next snapshot if the lists it was built from are unchanged.
+     */
+    private record Memo(GameData data, RequirementIndex index, PoolCache requirementPools,
+                        PoolCache traitPools, PoolCache rulerTraitPools, ReferenceIndex references) {}
+
+    /** Canonical keys of the memoized pools, by what each filter reads. */
+    private record AuthorityKey(EncodedState state) {}
+    private record CivicKey(EncodedState state) {}
+    private record OriginKey(EncodedState state) {}
+    private record TraitKey(String archetypeId, String speciesClass, String origin,
+                            Set<String> civics, Set<String> ethics) {}
+    private record RulerTraitKey(String leaderClass, String origin, Set<String> civics, Set<String> ethics) {}
+
+    /** Hits and misses since startup, and entries for the current snapshot. */
+    public record PoolStats(long hits, long misses, int size) {}
+
+    /**
+     * Waits until {@code categories} are loaded, which on a cold start is well before
+     * localization and icons are.
+     *
+     * @throws GenerationException if they aren't loaded within {@code timeout} or failed to load
+     */
+    public void awaitCategories(Set<GameCategory> categories, Duration timeout) {
+        try {
+            gameDataManager.whenReady(categories).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new GenerationException("Game data is still loading");
+        } catch (ExecutionException | CancellationException e) {
+            throw new GenerationException("Game data failed to load");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenerationException("Interrupted while waiting for game data");
+        }
+    }
+
+    /**
+     * Runs {@code action} with every lookup of this service reading the same game data, so that a
+     * reload published halfway through a generation can't mix old and new entities.
+     */
+    public <T> T withSnapshot(Supplier<T> action) {
+        return gameDataManager.withGameData(action);
+    }
+
+    /**
+     * Waits for {@code categories} as {@link #awaitCategories} does, then runs {@code action} like
+     * {@link #withSnapshot}. On a cold start or after a game path change, that snapshot is the
+     * load's partial data, in which only the awaited categories may be read.
+     */
+    public <T> T withReadySnapshot(Set<GameCategory> categories, Duration timeout, Supplier<T> action) {
+        awaitCategories(categories, timeout);
+        return gameDataManager.withReadyGameData(action);
+    }
 
     /**
      * Get authorities compatible with the current empire state.
      * Evaluates both potential and possible blocks.
      */
     public List<Authority> getCompatibleAuthorities(EmpireState state) {
-        return gameDataManager.getAuthorities().stream()
-                .filter(a -> evaluator.evaluateBoth(a.potential(), a.possible(), state))
-                .toList();
+        return compatibleAuthorityPool(state).candidates();
+    }
+
+    CompatiblePool<Authority> compatibleAuthorityPool(EmpireState state) {
+        Memo memo = memo();
+        EncodedState encoded = memo.index().encode(state);
+        return pool(memo.requirementPools(), new AuthorityKey(encoded),
+                () -> CompatiblePool.of(memo.index().authorities().compatible(encoded), Authority::randomWeight));
     }
 
     /**
@@ -37,11 +119,48 @@ public class CompatibilityFilterService {
      * and excludes civics already selected in the state.
      */
     public List<Civic> getCompatibleCivics(EmpireState state) {
-        return gameDataManager.getCivics().stream()
-                .filter(Civic::pickableAtStart)
-                .filter(c -> !state.civics().contains(c.id()))
-                .filter(c -> evaluator.evaluateBoth(c.potential(), c.possible(), state))
-                .toList();
+        return compatibleCivicPool(state).candidates();
+    }
+
+    CompatiblePool<Civic> compatibleCivicPool(EmpireState state) {
+        Memo memo = memo();
+        EncodedState encoded = memo.index().encode(state);
+        return pool(memo.requirementPools(), new CivicKey(encoded),
+                () -> civicPool(memo.index().civics().compatible(encoded), state));
+    }
+
+    /**
+     * Civics whose requirements pass for the state of {@code candidates}, kept up to date
+     * incrementally by {@link CandidateSet#update} as civics are picked.
+     */
+    CompatiblePool<Civic> compatibleCivicPool(CandidateSet<Civic> candidates) {
+        Memo memo = memo();
+        if (!candidates.isFrom(memo.index())) {
+            // Built from other game data; its encoding doesn't key this memo
+            return compatibleCivicPool(candidates.state());
+        }
+        return pool(memo.requirementPools(), new CivicKey(candidates.encoded()),
+                () -> civicPool(candidates.compatible(), candidates.state()));
+    }
+
+    /** Civics compatible with {@code state}, to be updated as civics are picked. */
+    CandidateSet<Civic> civicCandidates(EmpireState state) {
+        RequirementIndex index = memo().index();
+        return new CandidateSet<>(index, index.civics(), state);
+    }
+
+    /** Origins compatible with {@code state}, to be updated as the state is built. */
+    CandidateSet<Origin> originCandidates(EmpireState state) {
+        RequirementIndex index = memo().index();
+        return new CandidateSet<>(index, index.origins(), state);
+    }
+
+    private static CompatiblePool<Civic> civicPool(List<Civic> compatible, EmpireState state) {
+        return CompatiblePool.of(compatible.stream()
+                        .filter(Civic::pickableAtStart)
+                        .filter(c -> !state.civics().contains(c.id()))
+                        .toList(),
+                Civic::randomWeight);
     }
 
     /**
@@ -49,9 +168,83 @@ public class CompatibilityFilterService {
      * Evaluates both potential and possible blocks.
      */
     public List<Origin> getCompatibleOrigins(EmpireState state) {
-        return gameDataManager.getOrigins().stream()
-                .filter(o -> evaluator.evaluateBoth(o.potential(), o.possible(), state))
-                .toList();
+        Memo memo = memo();
+        EncodedState encoded = memo.index().encode(state);
+        return pool(memo.requirementPools(), new OriginKey(encoded),
+                () -> CompatiblePool.of(memo.index().origins().compatible(encoded), Origin::randomWeight)).candidates();
+    }
+
+    public PoolStats getPoolStats() {
+        Memo current = cachedMemo(gameDataManager.getGameData());
+        int size = current != null
+                ? current.requirementPools().size() + current.traitPools().size() + current.rulerTraitPools().size()
+                : 0;
+        return new PoolStats(poolHits.sum(), poolMisses.sum(), size);
+    }
+
+    /**
+     * The authorities, civics, origins, species traits and starting ruler traits that mention
+     * {@code id}, and how, from the reverse index of the current game data.
+     */
+    public List<ReferenceIndex.Reference> getReferences(String id) {
+        return memo().references().referencesTo(id);
+    }
+
+    /**
+     * The compiled requirements, reverse index and pools of the game data this thread reads.
+     * Memos are kept per snapshot, so generations pinned to the old data while a reload publishes
+     * new data each keep hitting their own pools. A snapshot's memo is built from the newest one:
+     * only the parts built from lists that changed are rebuilt, so publishing localization keeps
+     * every pool, and a reload that only changed civics keeps the trait pools. Concurrent callers
+     * may both build it; either is kept.
+     */
+    private Memo memo() {
+        GameData data = gameDataManager.getGameData();
+        Memo cached = cachedMemo(data);
+        if (cached != null) {
+            return cached;
+        }
+        List<Memo> recent = memos;
+        Memo previous = recent.isEmpty() ? null : recent.getFirst();
+        GameData old = previous != null ? previous.data() : null;
+        boolean requirementsKept = old != null && old.authorities() == data.authorities()
+                && old.civics() == data.civics() && old.origins() == data.origins();
+        boolean traitsKept = old != null && old.speciesTraits() == data.speciesTraits();
+        boolean rulerTraitsKept = old != null && old.startingRulerTraits() == data.startingRulerTraits();
+        var current = new Memo(data,
+                requirementsKept ? previous.index() : new RequirementIndex(data.authorities(), data.civics(), data.origins()),
+                requirementsKept ? previous.requirementPools() : new PoolCache(POOL_CACHE_CAPACITY),
+                traitsKept ? previous.traitPools() : new PoolCache(POOL_CACHE_CAPACITY),
+                rulerTraitsKept ? previous.rulerTraitPools() : new PoolCache(POOL_CACHE_CAPACITY),
+                requirementsKept && traitsKept && rulerTraitsKept ? previous.references() : ReferenceIndex.of(data));
+        var updated = new ArrayList<Memo>(MEMO_SLOTS);
+        updated.add(current);
+        updated.addAll(recent.subList(0, Math.min(recent.size(), MEMO_SLOTS - 1)));
+        memos = List.copyOf(updated);
+        return current;
+    }
+
+    /** The kept memo of {@code data}, matched by identity, or null. */
+    private Memo cachedMemo(GameData data) {
+        for (Memo memo : memos) {
+            if (memo.data() == data) {
+                return memo;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompatiblePool<T> pool(PoolCache pools, Object key, Supplier<CompatiblePool<T>> compute) {
+        var pool = (CompatiblePool<T>) pools.get(key);
+        if (pool != null) {
+            poolHits.increment();
+            return pool;
+        }
+        poolMisses.increment();
+        pool = compute.get();
+        pools.put(key, pool);
+        return pool;
     }
 
     /**
@@ -59,8 +252,17 @@ public class CompatibilityFilterService {
      * Filters by allowed_archetypes, plus origin/civic/ethic restrictions.
      */
     public List<SpeciesTrait> getCompatibleTraits(String archetypeId, EmpireState state) {
-        return gameDataManager.getSpeciesTraits().stream()
-                .filter(t -> t.allowedArchetypes().contains(archetypeId))
+        Memo memo = memo();
+        var key = new TraitKey(archetypeId, state.speciesClass(), state.origin(),
+                Set.copyOf(state.civics()), Set.copyOf(state.ethics()));
+        // The reverse index narrows the traits to those allowing the archetype before any filtering
+        return pool(memo.traitPools(), key, () -> CompatiblePool.uniform(
+                filterTraits(memo.references().speciesTraitsAllowing(archetypeId), state))).candidates();
+    }
+
+    /** Filters traits already known to allow the archetype. */
+    private List<SpeciesTrait> filterTraits(List<SpeciesTrait> traits, EmpireState state) {
+        return traits.stream()
                 .filter(t -> matchesAllowList(t.allowedSpeciesClasses(), state.speciesClass()))
                 .filter(t -> matchesAllowList(t.allowedOrigins(), state.origin()))
                 .filter(t -> matchesForbidList(t.forbiddenOrigins(), state.origin()))
@@ -172,7 +374,15 @@ public class CompatibilityFilterService {
      * Get starting ruler traits compatible with the given leader class and empire state.
      */
     public List<StartingRulerTrait> getCompatibleRulerTraits(String leaderClass, EmpireState state) {
-        return gameDataManager.getStartingRulerTraits().stream()
+        Memo memo = memo();
+        var key = new RulerTraitKey(leaderClass, state.origin(), Set.copyOf(state.civics()), Set.copyOf(state.ethics()));
+        return pool(memo.rulerTraitPools(), key, () -> CompatiblePool.uniform(
+                filterRulerTraits(memo.data().startingRulerTraits(), leaderClass, state))).candidates();
+    }
+
+    private List<StartingRulerTrait> filterRulerTraits(List<StartingRulerTrait> traits, String leaderClass,
+                                                       EmpireState state) {
+        return traits.stream()
                 .filter(t -> t.leaderClasses().contains(leaderClass))
                 .filter(t -> matchesForbidList(t.forbiddenOrigins(), state.origin()))
                 .filter(t -> matchesAllowSet(t.allowedEthics(), state.ethics()))
@@ -0,0 +1,66 @@
+package com.stellaris.bsgenerator.engine;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable list of compatible candidates with the prefix sums of their weights, so that a
+ * weighted pick is a binary search instead of two passes. Picks are the same as
+ * {@link WeightedRandom#select} makes for the same random sequence.
+ */
+final class CompatiblePool<T> {
+
+    private final List<T> candidates;
+    /** Sum of the weights of candidates {@code 0..i}. */
+    private final int[] cumulativeWeights;
+
+    private CompatiblePool(List<T> candidates, int[] cumulativeWeights) {
+        this.candidates = candidates;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static <T> CompatiblePool<T> of(List<T> candidates, ToIntFunction<T> weightFn) {
+        var cumulativeWeights = new int[candidates.size()];
+        int total = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            total += weightFn.applyAsInt(candidates.get(i));
+            cumulativeWeights[i] = total;
+        }
+        return new CompatiblePool<>(List.copyOf(candidates), cumulativeWeights);
+    }
+
+    /** A pool whose candidates are all equally likely. */
+    static <T> CompatiblePool<T> uniform(List<T> candidates) {
+        return of(candidates, _ -> 1);
+    }
+
+    List<T> candidates() {
+        return candidates;
+    }
+
+    /**
+     * A weighted random candidate, or null if the pool is empty. Candidates of weight 0 are
+     * never picked, unless all are, in which case the pick is uniform.
+     */
+    T select(Random random) {
+        if (candidates.isEmpty()) return null;
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        if (totalWeight <= 0) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        int roll = random.nextInt(totalWeight);
+        // First candidate whose cumulative weight exceeds the roll
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > roll) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return candidates.get(low);
+    }
+}
@@ -0,0 +1,150 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One or more {@link RequirementBlock}s compiled into bitset masks over an {@link IdRegistry}:
+ * per category, the ids that must all be present, those that must all be absent and the groups
+ * of which at least one must be present. Testing an {@link EncodedState} is then a few AND and
+ * AND-NOT operations per word, with the same results as {@link RequirementEvaluator}.
+ */
+final class CompiledRequirement {
+
+    /** The requirements of one category: {@code Value}s, {@code Not}s and {@code Nor}s, {@code Or}s. */
+    record CategoryCheck(int category, long[] mustHave, long[] mustNotHave, long[][] anyOf) {
+
+        /** Whether the check passes, deferring (passing) if the category isn't selected yet. */
+        boolean test(EncodedState state) {
+            if (!state.isSelected(category)) return true;
+            long[] bits = state.bits(category);
+            for (int i = 0; i < bits.length; i++) {
+                if ((mustHave[i] & ~bits[i]) != 0 || (mustNotHave[i] & bits[i]) != 0) return false;
+            }
+            for (long[] group : anyOf) {
+                if (!intersects(group, bits)) return false;
+            }
+            return true;
+        }
+
+        private static boolean intersects(long[] group, long[] bits) {
+            for (int i = 0; i < bits.length; i++) {
+                if ((group[i] & bits[i]) != 0) return true;
+            }
+            return false;
+        }
+    }
+
+    private final CategoryCheck[] checks;
+    /** Cross-category ORs: each needs one of its branches to pass. */
+    private final CategoryCheck[][] anyOfBranches;
+
+    private CompiledRequirement(CategoryCheck[] checks, CategoryCheck[][] anyOfBranches) {
+        this.checks = checks;
+        this.anyOfBranches = anyOfBranches;
+    }
+
+    /**
+     * Compiles the conjunction of {@code blocks} (e.g. a potential and a possible block), any of
+     * which may be null. Every value they mention must be registered in {@code registry}.
+     */
+    static CompiledRequirement compile(IdRegistry registry, RequirementBlock... blocks) {
+        var checks = new ArrayList<CategoryCheck>();
+        var anyOfBranches = new ArrayList<CategoryCheck[]>();
+        for (RequirementBlock block : blocks) {
+            if (block == null) continue;
+            block.categories().forEach((category, requirements) ->
+                    checks.add(compile(registry, category, requirements)));
+            for (var orGroup : block.crossCategoryOrs()) {
+                anyOfBranches.add(orGroup.entrySet().stream()
+                        .map(branch -> compile(registry, branch.getKey(), branch.getValue()))
+                        .toArray(CategoryCheck[]::new));
+            }
+        }
+        return new CompiledRequirement(checks.toArray(CategoryCheck[]::new),
+                anyOfBranches.toArray(CategoryCheck[][]::new));
+    }
+
+    /** Checks that must all pass. */
+    CategoryCheck[] checks() {
+        return checks;
+    }
+
+    /** Cross-category ORs, each an array of branches of which one must pass. */
+    CategoryCheck[][] anyOfBranches() {
+        return anyOfBranches;
+    }
+
+    /** Bit per category ordinal this requirement reads; its result can only change when one of them does. */
+    int categories() {
+        int categories = 0;
+        for (CategoryCheck check : checks) {
+            categories |= 1 << check.category();
+        }
+        for (CategoryCheck[] branches : anyOfBranches) {
+            for (CategoryCheck branch : branches) {
+                categories |= 1 << branch.category();
+            }
+        }
+        return categories;
+    }
+
+    /** Registers every value {@code block} mentions, so that it can be compiled against {@code registry}. */
+    static void register(IdRegistry registry, RequirementBlock block) {
+        if (block == null) return;
+        block.categories().forEach((category, requirements) -> register(registry, category, requirements));
+        for (var orGroup : block.crossCategoryOrs()) {
+            orGroup.forEach((category, requirements) -> register(registry, category, requirements));
+        }
+    }
+
+    private static void register(IdRegistry registry, RequirementCategory category, List<Requirement> requirements) {
+        for (Requirement requirement : requirements) {
+            switch (requirement) {
+                case Requirement.Value v -> registry.register(category, v.value());
+                case Requirement.Not n -> registry.register(category, n.value());
+                case Requirement.Nor n -> n.values().forEach(value -> registry.register(category, value));
+                case Requirement.Or o -> o.values().forEach(value -> registry.register(category, value));
+            }
+        }
+    }
+
+    private static CategoryCheck compile(IdRegistry registry, RequirementCategory category,
+                                         List<Requirement> requirements) {
+        var mustHave = new ArrayList<String>();
+        var mustNotHave = new ArrayList<String>();
+        var anyOf = new ArrayList<long[]>();
+        for (Requirement requirement : requirements) {
+            switch (requirement) {
+                case Requirement.Value v -> mustHave.add(v.value());
+                case Requirement.Not n -> mustNotHave.add(n.value());
+                case Requirement.Nor n -> mustNotHave.addAll(n.values());
+                case Requirement.Or o -> anyOf.add(registry.bits(category, o.values()));
+            }
+        }
+        return new CategoryCheck(category.ordinal(), registry.bits(category, mustHave),
+                registry.bits(category, mustNotHave), anyOf.toArray(long[][]::new));
+    }
+
+    /** Whether every compiled block is satisfied by {@code state}. Allocation-free. */
+    boolean test(EncodedState state) {
+        for (CategoryCheck check : checks) {
+            if (!check.test(state)) return false;
+        }
+        for (CategoryCheck[] branches : anyOfBranches) {
+            if (!anyPasses(branches, state)) return false;
+        }
+        return true;
+    }
+
+    private static boolean anyPasses(CategoryCheck[] branches, EncodedState state) {
+        for (CategoryCheck branch : branches) {
+            if (branch.test(state)) return true;
+        }
+        return false;
+    }
+}
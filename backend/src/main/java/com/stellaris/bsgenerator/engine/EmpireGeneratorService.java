@@ -4,11 +4,14 @@ import com.stellaris.bsgenerator.model.*;
 import com.stellaris.bsgenerator.model.requirement.Requirement;
 import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
 import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import com.stellaris.bsgenerator.parser.loader.GameCategory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Generates random valid Stellaris empires by progressively selecting
@@ -19,6 +22,14 @@ import java.util.*;
 @RequiredArgsConstructor
 public class EmpireGeneratorService {
 
+    /**
+     * Game data generation reads. Localization and icons aren't among them, so on a cold start
+     * generation can begin before those are loaded.
+     */
+    static final Set<GameCategory> REQUIRED_CATEGORIES = EnumSet.allOf(GameCategory.class);
+    /** How long a generation requested during startup waits for its categories. */
+    static final Duration READY_TIMEOUT = Duration.ofSeconds(30);
+
     private static final int ETHICS_BUDGET = 3;
     private static final int CIVIC_COUNT = 2;
     private static final double GESTALT_CHANCE = 0.30;
@@ -69,6 +80,19 @@ public class EmpireGeneratorService {
      * @throws GenerationException if no valid combination can be found
      */
     public GeneratedEmpire generate() {
+        return withSnapshot(this::generateEmpire);
+    }
+
+    /**
+     * Runs {@code action} on the snapshot a generation reads, once its categories are loaded.
+     * Generations, rerolls and name lookups inside it share that snapshot, so a result is named
+     * from the same game data it was generated from.
+     */
+    public <T> T withSnapshot(Supplier<T> action) {
+        return filterService.withReadySnapshot(REQUIRED_CATEGORIES, READY_TIMEOUT, action);
+    }
+
+    private GeneratedEmpire generateEmpire() {
         // 1. Pick ethics (total cost = 3)
         List<Ethic> ethics = pickEthics();
         var state = EmpireState.empty()
@@ -322,27 +346,30 @@ public class EmpireGeneratorService {
     }
 
     private Authority pickAuthority(EmpireState state) {
-        var compatible = filterService.getCompatibleAuthorities(state);
-        if (compatible.isEmpty()) {
+        var compatible = filterService.compatibleAuthorityPool(state);
+        if (compatible.candidates().isEmpty()) {
             throw new GenerationException("No compatible authorities for ethics: " + state.ethics());
         }
-        return WeightedRandom.select(compatible, Authority::randomWeight, random);
+        return compatible.select(random);
     }
 
     private List<Civic> pickCivics(EmpireState state, int count) {
         List<Civic> picked = new ArrayList<>();
+        // Each pick only re-tests the civics whose requirements read civics
+        var candidates = filterService.civicCandidates(state);
 
         for (int i = 0; i < count; i++) {
-            var compatible = filterService.getCompatibleCivics(state);
-            if (compatible.isEmpty()) {
+            var compatible = filterService.compatibleCivicPool(candidates);
+            if (compatible.candidates().isEmpty()) {
                 throw new GenerationException("No compatible civics for current state (picked " + picked.size() + "/" + count + ")");
             }
-            var civic = WeightedRandom.select(compatible, Civic::randomWeight, random);
+            var civic = compatible.select(random);
             picked.add(civic);
             // Update state with newly selected civic
             var newCivics = new HashSet<>(state.civics());
             newCivics.add(civic.id());
             state = state.withCivics(newCivics);
+            candidates.update(state);
         }
 
         return picked;
@@ -5,7 +5,7 @@ import java.util.Set;
 
 /**
  * Represents the current (possibly partial) state of an empire being built.
- * Used by the RequirementEvaluator to check if a candidate entity is compatible.
+ * Used by the RequirementEvaluator (and, bitset-encoded, by CompiledRequirement) to check if a candidate entity is compatible.
  * <p>
  * Null/empty fields mean "not yet selected" — requirements against unselected
  * categories are treated as satisfied (they'll be validated when that category is picked).
@@ -0,0 +1,72 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+
+import java.util.Arrays;
+
+/**
+ * An {@link EmpireState} as one bitset per {@link RequirementCategory} over the ids of an
+ * {@link IdRegistry}, encoded once per filtering pass so that every candidate is checked with
+ * word-wide operations and no allocation.
+ * <p>
+ * Equal encodings pass exactly the same requirements, so an encoding is also the canonical key
+ * of the compatible pools of its state: states differing only in ids no requirement mentions
+ * share it.
+ */
+final class EncodedState {
+
+    private static final RequirementCategory[] CATEGORIES = RequirementCategory.values();
+
+    /** Bitset of each category, by ordinal. */
+    private final long[][] bits;
+    /** Bit per category ordinal, set if the category has been selected. */
+    private final int selected;
+
+    private EncodedState(long[][] bits, int selected) {
+        this.bits = bits;
+        this.selected = selected;
+    }
+
+    static EncodedState encode(EmpireState state, IdRegistry registry) {
+        var bits = new long[CATEGORIES.length][];
+        int selected = 0;
+        for (RequirementCategory category : CATEGORIES) {
+            if (state.hasCategory(category)) {
+                selected |= 1 << category.ordinal();
+                bits[category.ordinal()] = registry.bits(category, state.valuesForCategory(category));
+            }
+        }
+        return new EncodedState(bits, selected);
+    }
+
+    boolean isSelected(int category) {
+        return (selected & (1 << category)) != 0;
+    }
+
+    /** Bitset of a selected category. */
+    long[] bits(int category) {
+        return bits[category];
+    }
+
+    /** Bit per category ordinal whose selection or values differ between this and {@code other}. */
+    int changedCategories(EncodedState other) {
+        int changed = selected ^ other.selected;
+        for (int category = 0; category < bits.length; category++) {
+            if (bits[category] != null && other.bits[category] != null
+                    && !Arrays.equals(bits[category], other.bits[category])) {
+                changed |= 1 << category;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EncodedState other && selected == other.selected && Arrays.deepEquals(bits, other.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * selected + Arrays.deepHashCode(bits);
+    }
+}
@@ -0,0 +1,55 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense integer ids, per {@link RequirementCategory}, for the game ids requirements mention, so
+ * that states and requirements can be compared as bitsets. Ids nothing mentions aren't
+ * registered: no requirement can depend on them.
+ */
+final class IdRegistry {
+
+    private static final RequirementCategory[] CATEGORIES = RequirementCategory.values();
+
+    private final Map<String, Integer>[] ids;
+
+    @SuppressWarnings("unchecked")
+    IdRegistry() {
+        ids = new Map[CATEGORIES.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new HashMap<>();
+        }
+    }
+
+    /** Registers {@code value} if it is new; only while the registry is being built. */
+    void register(RequirementCategory category, String value) {
+        Map<String, Integer> categoryIds = ids[category.ordinal()];
+        categoryIds.putIfAbsent(value, categoryIds.size());
+    }
+
+    /** Id of {@code value} in {@code category}, or -1 if no requirement mentions it. */
+    int id(RequirementCategory category, String value) {
+        Integer id = ids[category.ordinal()].get(value);
+        return id != null ? id : -1;
+    }
+
+    /** Length of the bitsets of {@code category}, in 64-bit words. */
+    int words(RequirementCategory category) {
+        return (ids[category.ordinal()].size() + 63) >>> 6;
+    }
+
+    /** A bitset of {@code category} with the ids of {@code values} set; unregistered values are ignored. */
+    long[] bits(RequirementCategory category, Iterable<String> values) {
+        long[] bits = new long[words(category)];
+        for (String value : values) {
+            int id = id(category, value);
+            if (id >= 0) {
+                bits[id >>> 6] |= 1L << id;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,40 @@
+package com.stellaris.bsgenerator.engine;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Compatible pools of one game data snapshot by canonical state key, bounded by evicting the
+ * oldest entries first. Safe for concurrent use; two threads missing the same key may both
+ * compute it, and either result is kept.
+ */
+final class PoolCache {
+
+    private final int capacity;
+    private final Map<Object, CompatiblePool<?>> pools = new ConcurrentHashMap<>();
+    private final Queue<Object> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    PoolCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    CompatiblePool<?> get(Object key) {
+        return pools.get(key);
+    }
+
+    void put(Object key, CompatiblePool<?> pool) {
+        if (pools.putIfAbsent(key, pool) != null) return;
+        insertionOrder.add(key);
+        while (pools.size() > capacity) {
+            Object oldest = insertionOrder.poll();
+            if (oldest == null) break;
+            pools.remove(oldest);
+        }
+    }
+
+    int size() {
+        return pools.size();
+    }
+}
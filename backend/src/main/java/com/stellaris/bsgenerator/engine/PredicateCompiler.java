@@ -0,0 +1,173 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.engine.CompiledRequirement.CategoryCheck;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassHierarchyResolver;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.classfile.instruction.SwitchCase;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.ConstantDescs;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+
+import static java.lang.constant.ConstantDescs.CD_boolean;
+import static java.lang.constant.ConstantDescs.CD_int;
+import static java.lang.constant.ConstantDescs.CD_long;
+
+/**
+ * Compiles the requirements of a list of candidates into one hidden class. Each candidate gets a
+ * small static method with its masks folded in as constants, all-zero words skipped and every
+ * loop unrolled, and {@code test} dispatches to it with a {@code tableswitch}. With one class per
+ * list, the call site filtering that list stays monomorphic and the JIT can inline through it.
+ * <p>
+ * The generated code follows {@link CompiledRequirement#test} branch for branch, which in turn
+ * matches {@link RequirementEvaluator}. If the class can't be generated or defined, the masks
+ * are tested directly instead.
+ */
+@Slf4j
+final class PredicateCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassDesc CD_ENCODED_STATE = EncodedState.class.describeConstable().orElseThrow();
+    private static final ClassDesc CD_PREDICATES = RequirementPredicates.class.describeConstable().orElseThrow();
+    /** Generated classes are hidden, so this name only needs to be in this package. */
+    private static final ClassDesc CD_GENERATED = ClassDesc.of(PredicateCompiler.class.getPackageName(), "GeneratedPredicates");
+    private static final MethodTypeDesc MTD_CANDIDATE = MethodTypeDesc.of(CD_boolean, CD_ENCODED_STATE);
+    private static final MethodTypeDesc MTD_TEST = MethodTypeDesc.of(CD_boolean, CD_int, CD_ENCODED_STATE);
+    private static final MethodTypeDesc MTD_IS_SELECTED = MethodTypeDesc.of(CD_boolean, CD_int);
+    private static final MethodTypeDesc MTD_BITS = MethodTypeDesc.of(CD_long.arrayType(), CD_int);
+    private static final ClassDesc CD_INDEX_OUT_OF_BOUNDS = IndexOutOfBoundsException.class.describeConstable().orElseThrow();
+
+    /** Locals of a candidate method. */
+    private static final int STATE_SLOT = 0;
+    private static final int BITS_SLOT = 1;
+
+    private PredicateCompiler() {}
+
+    static RequirementPredicates compile(CompiledRequirement[] requirements) {
+        if (requirements.length == 0) {
+            return interpreted(requirements);
+        }
+        try {
+            byte[] bytes = generate(requirements);
+            var generated = LOOKUP.defineHiddenClass(bytes, true).lookupClass();
+            return (RequirementPredicates) generated.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            log.warn("Compiling {} requirements to bytecode failed, testing them directly: {}",
+                    requirements.length, e.getMessage());
+            return interpreted(requirements);
+        }
+    }
+
+    /** Tests the masks of {@code requirements} without generating code. */
+    static RequirementPredicates interpreted(CompiledRequirement[] requirements) {
+        return (index, state) -> requirements[index].test(state);
+    }
+
+    private static byte[] generate(CompiledRequirement[] requirements) {
+        var classFile = ClassFile.of(ClassFile.ClassHierarchyResolverOption.of(
+                ClassHierarchyResolver.defaultResolver().orElse(ClassHierarchyResolver.ofClassLoading(LOOKUP))));
+        return classFile.build(CD_GENERATED, clb -> {
+            clb.withFlags(ClassFile.ACC_FINAL | ClassFile.ACC_SUPER)
+                    .withSuperclass(ConstantDescs.CD_Object)
+                    .withInterfaceSymbols(CD_PREDICATES)
+                    .withMethodBody(ConstantDescs.INIT_NAME, ConstantDescs.MTD_void, ClassFile.ACC_PUBLIC, cob -> cob
+                            .aload(0)
+                            .invokespecial(ConstantDescs.CD_Object, ConstantDescs.INIT_NAME, ConstantDescs.MTD_void)
+                            .return_())
+                    .withMethodBody("test", MTD_TEST, ClassFile.ACC_PUBLIC,
+                            cob -> dispatch(cob, requirements.length));
+            for (int i = 0; i < requirements.length; i++) {
+                CompiledRequirement requirement = requirements[i];
+                clb.withMethodBody(candidateMethod(i), MTD_CANDIDATE, ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC,
+                        cob -> candidate(cob, requirement));
+            }
+        });
+    }
+
+    private static String candidateMethod(int index) {
+        return "candidate" + index;
+    }
+
+    /** {@code test(index, state)}: a {@code tableswitch} over the candidate methods. */
+    private static void dispatch(CodeBuilder cob, int candidates) {
+        var cases = new ArrayList<SwitchCase>(candidates);
+        Label outOfBounds = cob.newLabel();
+        for (int i = 0; i < candidates; i++) {
+            cases.add(SwitchCase.of(i, cob.newLabel()));
+        }
+        cob.iload(1).tableswitch(0, candidates - 1, outOfBounds, cases);
+        for (int i = 0; i < candidates; i++) {
+            cob.labelBinding(cases.get(i).target())
+                    .aload(2)
+                    .invokestatic(CD_GENERATED, candidateMethod(i), MTD_CANDIDATE)
+                    .ireturn();
+        }
+        cob.labelBinding(outOfBounds)
+                .new_(CD_INDEX_OUT_OF_BOUNDS)
+                .dup()
+                .invokespecial(CD_INDEX_OUT_OF_BOUNDS, ConstantDescs.INIT_NAME, ConstantDescs.MTD_void)
+                .athrow();
+    }
+
+    /** A candidate's {@code static boolean (EncodedState)}, mirroring {@link CompiledRequirement#test}. */
+    private static void candidate(CodeBuilder cob, CompiledRequirement requirement) {
+        Label fail = cob.newLabel();
+        for (CategoryCheck check : requirement.checks()) {
+            check(cob, check, fail);
+        }
+        for (CategoryCheck[] branches : requirement.anyOfBranches()) {
+            Label passed = cob.newLabel();
+            for (CategoryCheck branch : branches) {
+                Label next = cob.newLabel();
+                check(cob, branch, next);
+                cob.goto_(passed).labelBinding(next);
+            }
+            cob.goto_(fail).labelBinding(passed);
+        }
+        cob.iconst_1().ireturn()
+                .labelBinding(fail)
+                .iconst_0().ireturn();
+    }
+
+    /** Falls through if {@code check} passes (or its category isn't selected), else jumps to {@code fail}. */
+    private static void check(CodeBuilder cob, CategoryCheck check, Label fail) {
+        Label passed = cob.newLabel();
+        cob.aload(STATE_SLOT).loadConstant(check.category())
+                .invokevirtual(CD_ENCODED_STATE, "isSelected", MTD_IS_SELECTED)
+                .ifeq(passed)
+                .aload(STATE_SLOT).loadConstant(check.category())
+                .invokevirtual(CD_ENCODED_STATE, "bits", MTD_BITS)
+                .astore(BITS_SLOT);
+        long[] mustHave = check.mustHave();
+        for (int i = 0; i < mustHave.length; i++) {
+            if (mustHave[i] == 0) continue;
+            // (bits & mustHave) != mustHave
+            word(cob, i, mustHave[i]).loadConstant(mustHave[i]).lcmp().ifne(fail);
+        }
+        long[] mustNotHave = check.mustNotHave();
+        for (int i = 0; i < mustNotHave.length; i++) {
+            if (mustNotHave[i] == 0) continue;
+            // (bits & mustNotHave) != 0
+            word(cob, i, mustNotHave[i]).lconst_0().lcmp().ifne(fail);
+        }
+        for (long[] group : check.anyOf()) {
+            Label matched = cob.newLabel();
+            for (int i = 0; i < group.length; i++) {
+                if (group[i] == 0) continue;
+                word(cob, i, group[i]).lconst_0().lcmp().ifne(matched);
+            }
+            cob.goto_(fail).labelBinding(matched);
+        }
+        cob.labelBinding(passed);
+    }
+
+    /** Pushes word {@code index} of the category's bitset, masked with {@code mask}. */
+    private static CodeBuilder word(CodeBuilder cob, int index, long mask) {
+        return cob.aload(BITS_SLOT).loadConstant(index).laload().loadConstant(mask).land();
+    }
+}
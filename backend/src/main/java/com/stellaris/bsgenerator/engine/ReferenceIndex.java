@@ -0,0 +1,171 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.Authority;
+import com.stellaris.bsgenerator.model.Civic;
+import com.stellaris.bsgenerator.model.Origin;
+import com.stellaris.bsgenerator.model.SpeciesTrait;
+import com.stellaris.bsgenerator.model.StartingRulerTrait;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import com.stellaris.bsgenerator.parser.cache.GameData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which entities mention each game id, and how. Built once per data load from the potential and
+ * possible blocks of authorities, civics and origins and the allow/forbid lists of species and
+ * ruler traits, so that "what references {@code ethic_fanatic_xenophobe}" is a lookup rather
+ * than a scan of every block.
+ */
+public final class ReferenceIndex {
+
+    public enum EntityType { AUTHORITY, CIVIC, ORIGIN, SPECIES_TRAIT, STARTING_RULER_TRAIT }
+
+    /** How an entity mentions an id. */
+    public enum Kind {
+        /** The id must be selected: {@code value = X}. */
+        REQUIRED,
+        /** The id must not be selected: {@code NOT}, {@code NOR} or a forbid list. */
+        FORBIDDEN,
+        /**
+         * One of several ids must be selected: {@code OR} or an allow list. Every mention inside a
+         * cross-category {@code OR} is one too, since none of its branches is binding on its own.
+         */
+        ANY_OF
+    }
+
+    /** {@code entityId} of type {@code entityType} mentions the id as {@code kind} in {@code category}. */
+    public record Reference(EntityType entityType, String entityId, RequirementCategory category, Kind kind) {}
+
+    /** References by the id they mention, in the order of the entity lists. */
+    private final Map<String, List<Reference>> references = new HashMap<>();
+    /**
+     * Species traits by the archetypes they allow, in list order. The traits themselves rather than
+     * their ids, since a mod may redefine an id with different allow lists.
+     */
+    private final Map<String, List<SpeciesTrait>> speciesTraitsByArchetype = new HashMap<>();
+
+    private ReferenceIndex() {}
+
+    /** Indexes the entities of {@code data}; categories not loaded yet are skipped. */
+    static ReferenceIndex of(GameData data) {
+        var index = new ReferenceIndex();
+        if (data.authorities() != null) {
+            for (Authority a : data.authorities()) {
+                index.addBlocks(EntityType.AUTHORITY, a.id(), a.potential(), a.possible());
+            }
+        }
+        if (data.civics() != null) {
+            for (Civic c : data.civics()) {
+                index.addBlocks(EntityType.CIVIC, c.id(), c.potential(), c.possible());
+            }
+        }
+        if (data.origins() != null) {
+            for (Origin o : data.origins()) {
+                index.addBlocks(EntityType.ORIGIN, o.id(), o.potential(), o.possible());
+            }
+        }
+        if (data.speciesTraits() != null) {
+            for (SpeciesTrait t : data.speciesTraits()) {
+                index.addTraitArchetypes(t);
+                var type = EntityType.SPECIES_TRAIT;
+                index.addAll(type, t.id(), RequirementCategory.SPECIES_ARCHETYPE, Kind.ANY_OF, t.allowedArchetypes());
+                index.addAll(type, t.id(), RequirementCategory.SPECIES_CLASS, Kind.ANY_OF, t.allowedSpeciesClasses());
+                index.addAll(type, t.id(), RequirementCategory.ORIGIN, Kind.ANY_OF, t.allowedOrigins());
+                index.addAll(type, t.id(), RequirementCategory.ORIGIN, Kind.FORBIDDEN, t.forbiddenOrigins());
+                index.addAll(type, t.id(), RequirementCategory.CIVICS, Kind.ANY_OF, t.allowedCivics());
+                index.addAll(type, t.id(), RequirementCategory.CIVICS, Kind.FORBIDDEN, t.forbiddenCivics());
+                index.addAll(type, t.id(), RequirementCategory.ETHICS, Kind.ANY_OF, t.allowedEthics());
+                index.addAll(type, t.id(), RequirementCategory.ETHICS, Kind.FORBIDDEN, t.forbiddenEthics());
+            }
+        }
+        if (data.startingRulerTraits() != null) {
+            for (StartingRulerTrait t : data.startingRulerTraits()) {
+                var type = EntityType.STARTING_RULER_TRAIT;
+                index.addAll(type, t.id(), RequirementCategory.ORIGIN, Kind.ANY_OF, t.allowedOrigins());
+                index.addAll(type, t.id(), RequirementCategory.ORIGIN, Kind.FORBIDDEN, t.forbiddenOrigins());
+                index.addAll(type, t.id(), RequirementCategory.CIVICS, Kind.ANY_OF, t.allowedCivics());
+                index.addAll(type, t.id(), RequirementCategory.CIVICS, Kind.FORBIDDEN, t.forbiddenCivics());
+                index.addAll(type, t.id(), RequirementCategory.ETHICS, Kind.ANY_OF, t.allowedEthics());
+                index.addAll(type, t.id(), RequirementCategory.ETHICS, Kind.FORBIDDEN, t.forbiddenEthics());
+            }
+        }
+        index.references.replaceAll((_, refs) -> List.copyOf(refs));
+        index.speciesTraitsByArchetype.replaceAll((_, traits) -> List.copyOf(traits));
+        return index;
+    }
+
+    /** Everything that mentions {@code id}, or an empty list. */
+    public List<Reference> referencesTo(String id) {
+        return references.getOrDefault(id, List.of());
+    }
+
+    /**
+     * Species traits whose allowed archetypes include {@code archetypeId}, in list order: the only
+     * traits that can be compatible with it.
+     */
+    List<SpeciesTrait> speciesTraitsAllowing(String archetypeId) {
+        return speciesTraitsByArchetype.getOrDefault(archetypeId, List.of());
+    }
+
+    private void addTraitArchetypes(SpeciesTrait trait) {
+        if (trait.allowedArchetypes() == null) return;
+        for (String archetype : trait.allowedArchetypes()) {
+            var traits = speciesTraitsByArchetype.computeIfAbsent(archetype, _ -> new ArrayList<>());
+            // An archetype listed twice still allows the trait once
+            if (traits.isEmpty() || traits.getLast() != trait) {
+                traits.add(trait);
+            }
+        }
+    }
+
+    private void addBlocks(EntityType type, String entityId, RequirementBlock... blocks) {
+        for (RequirementBlock block : blocks) {
+            if (block == null) continue;
+            block.categories().forEach((category, requirements) -> {
+                for (Requirement requirement : requirements) {
+                    addAll(type, entityId, category, kind(requirement), values(requirement));
+                }
+            });
+            for (var orGroup : block.crossCategoryOrs()) {
+                orGroup.forEach((category, requirements) -> {
+                    for (Requirement requirement : requirements) {
+                        addAll(type, entityId, category, Kind.ANY_OF, values(requirement));
+                    }
+                });
+            }
+        }
+    }
+
+    private static Kind kind(Requirement requirement) {
+        return switch (requirement) {
+            case Requirement.Value _ -> Kind.REQUIRED;
+            case Requirement.Not _, Requirement.Nor _ -> Kind.FORBIDDEN;
+            case Requirement.Or _ -> Kind.ANY_OF;
+        };
+    }
+
+    private static List<String> values(Requirement requirement) {
+        return switch (requirement) {
+            case Requirement.Value v -> List.of(v.value());
+            case Requirement.Not n -> List.of(n.value());
+            case Requirement.Nor n -> n.values();
+            case Requirement.Or o -> o.values();
+        };
+    }
+
+    private void addAll(EntityType type, String entityId, RequirementCategory category, Kind kind, List<String> ids) {
+        if (ids == null) return;
+        for (String id : ids) {
+            add(type, entityId, category, kind, id);
+        }
+    }
+
+    private void add(EntityType type, String entityId, RequirementCategory category, Kind kind, String id) {
+        references.computeIfAbsent(id, _ -> new ArrayList<>()).add(new Reference(type, entityId, category, kind));
+    }
+}
@@ -104,11 +104,18 @@ public class RequirementEvaluator {
 
             case Requirement.Nor nor ->
                 // Empire must contain NONE of these values
-                nor.values().stream().noneMatch(stateValues::contains);
+                !containsAny(stateValues, nor.values());
 
             case Requirement.Or or ->
                 // Empire must contain at least ONE of these values
-                or.values().stream().anyMatch(stateValues::contains);
+                containsAny(stateValues, or.values());
         };
     }
+
+    private static boolean containsAny(Set<String> stateValues, List<String> values) {
+        for (String value : values) {
+            if (stateValues.contains(value)) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,138 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.Authority;
+import com.stellaris.bsgenerator.model.Civic;
+import com.stellaris.bsgenerator.model.Origin;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * The potential and possible blocks of every authority, civic and origin of one data load,
+ * compiled against a shared {@link IdRegistry} and then to bytecode by {@link PredicateCompiler}.
+ * Built once per load and then used by every filtering pass, which encodes its
+ * {@link EmpireState} once and tests each candidate without allocating.
+ */
+final class RequirementIndex {
+
+    private static final int CATEGORY_COUNT = RequirementCategory.values().length;
+
+    /**
+     * One list of candidates with its compiled requirements and, per category, the candidates
+     * whose requirements read it: only those can change when that category does.
+     */
+    static final class Candidates<T> {
+
+        private final List<T> entities;
+        private final RequirementPredicates predicates;
+        /** Candidates reading each category, by category ordinal. */
+        private final BitSet[] dependents;
+        private final Map<String, Integer> indexById;
+
+        private Candidates(List<T> entities, CompiledRequirement[] requirements, Function<T, String> id) {
+            this.entities = entities;
+            this.predicates = PredicateCompiler.compile(requirements);
+            this.dependents = new BitSet[CATEGORY_COUNT];
+            for (int category = 0; category < CATEGORY_COUNT; category++) {
+                dependents[category] = new BitSet(requirements.length);
+            }
+            this.indexById = new HashMap<>();
+            for (int i = 0; i < requirements.length; i++) {
+                for (int categories = requirements[i].categories(); categories != 0; categories &= categories - 1) {
+                    dependents[Integer.numberOfTrailingZeros(categories)].set(i);
+                }
+                indexById.put(id.apply(entities.get(i)), i);
+            }
+        }
+
+        int size() {
+            return entities.size();
+        }
+
+        T get(int index) {
+            return entities.get(index);
+        }
+
+        /** Index of the candidate with {@code id}, or -1 if there is none. */
+        int indexOf(String id) {
+            return indexById.getOrDefault(id, -1);
+        }
+
+        boolean test(int index, EncodedState state) {
+            return predicates.test(index, state);
+        }
+
+        /** Candidates whose requirements read {@code category}; not to be modified. */
+        BitSet dependents(int category) {
+            return dependents[category];
+        }
+
+        List<T> compatible(EncodedState state) {
+            return IntStream.range(0, entities.size())
+                    .filter(i -> predicates.test(i, state))
+                    .mapToObj(entities::get)
+                    .toList();
+        }
+    }
+
+    private final IdRegistry registry = new IdRegistry();
+    private final Candidates<Authority> authorities;
+    private final Candidates<Civic> civics;
+    private final Candidates<Origin> origins;
+
+    /** Null lists (categories not loaded yet) are treated as empty. */
+    RequirementIndex(List<Authority> authorities, List<Civic> civics, List<Origin> origins) {
+        authorities = authorities != null ? authorities : List.of();
+        civics = civics != null ? civics : List.of();
+        origins = origins != null ? origins : List.of();
+        // Register every mentioned id first, so all bitsets of a category have the same length
+        register(authorities, Authority::potential, Authority::possible);
+        register(civics, Civic::potential, Civic::possible);
+        register(origins, Origin::potential, Origin::possible);
+        // Civics already picked are excluded from the civic pool, so every civic is part of the
+        // encoding that keys it
+        civics.forEach(civic -> registry.register(RequirementCategory.CIVICS, civic.id()));
+        this.authorities = compile(authorities, Authority::id, Authority::potential, Authority::possible);
+        this.civics = compile(civics, Civic::id, Civic::potential, Civic::possible);
+        this.origins = compile(origins, Origin::id, Origin::potential, Origin::possible);
+    }
+
+    EncodedState encode(EmpireState state) {
+        return EncodedState.encode(state, registry);
+    }
+
+    Candidates<Authority> authorities() {
+        return authorities;
+    }
+
+    Candidates<Civic> civics() {
+        return civics;
+    }
+
+    Candidates<Origin> origins() {
+        return origins;
+    }
+
+    private <T> void register(List<T> entities, Function<T, RequirementBlock> potential,
+                              Function<T, RequirementBlock> possible) {
+        for (T entity : entities) {
+            CompiledRequirement.register(registry, potential.apply(entity));
+            CompiledRequirement.register(registry, possible.apply(entity));
+        }
+    }
+
+    private <T> Candidates<T> compile(List<T> entities, Function<T, String> id,
+                                      Function<T, RequirementBlock> potential,
+                                      Function<T, RequirementBlock> possible) {
+        var requirements = entities.stream()
+                .map(entity -> CompiledRequirement.compile(registry, potential.apply(entity), possible.apply(entity)))
+                .toArray(CompiledRequirement[]::new);
+        return new Candidates<>(entities, requirements, id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.stellaris.bsgenerator.engine;
+
+/**
+ * The requirements of a list of candidates (e.g. all civics), tested by candidate index. See
+ * {@link PredicateCompiler}.
+ */
+interface RequirementPredicates {
+
+    /** Whether candidate {@code index} is compatible with {@code state}. */
+    boolean test(int index, EncodedState state);
+}
@@ -32,6 +32,11 @@ public class RerollService {
      * @throws IllegalStateException if the reroll has already been used
      */
     public GeneratedEmpire reroll(GenerationSession session, RerollCategory category) {
+        return filterService.withReadySnapshot(EmpireGeneratorService.REQUIRED_CATEGORIES,
+                EmpireGeneratorService.READY_TIMEOUT, () -> rerollCategory(session, category));
+    }
+
+    private GeneratedEmpire rerollCategory(GenerationSession session, RerollCategory category) {
         if (!session.canReroll()) {
             throw new IllegalStateException("Reroll already used for this generation");
         }
@@ -117,16 +122,22 @@ public class RerollService {
                 .withEthics(toEthicIds(empire.ethics()))
                 .withSpeciesArchetype(empire.speciesArchetype().id())
                 .withSpeciesClass(empire.speciesClass());
-        var compatible = filterService.getCompatibleAuthorities(state).stream()
-                .filter(a -> !a.id().equals(empire.authority().id()))
-                .filter(a -> {
-                    var withAuth = state.withAuthority(a.id());
-                    for (var civic : empire.civics()) {
-                        if (!evaluator.evaluateBoth(civic.potential(), civic.possible(), withAuth)) return false;
-                    }
-                    var withCivics = withAuth.withCivics(toCivicIds(empire.civics()));
-                    return evaluator.evaluateBoth(empire.origin().potential(), empire.origin().possible(), withCivics);
-                }).toList();
+        // Only the civics and origins whose requirements read the authority (or civics) are
+        // re-tested for each alternative
+        var civicIds = toCivicIds(empire.civics());
+        var civics = filterService.civicCandidates(state);
+        var origins = filterService.originCandidates(state);
+        var compatible = new ArrayList<Authority>();
+        for (var authority : filterService.getCompatibleAuthorities(state)) {
+            if (authority.id().equals(empire.authority().id())) continue;
+            var withAuth = state.withAuthority(authority.id());
+            civics.update(withAuth);
+            if (!civics.containsAll(civicIds)) continue;
+            origins.update(withAuth.withCivics(civicIds));
+            if (origins.contains(empire.origin().id())) {
+                compatible.add(authority);
+            }
+        }
 
         if (compatible.isEmpty()) {
             // Gestalt empires: switching hive↔machine requires archetype change.
@@ -251,6 +262,11 @@ public class RerollService {
      * Respects the remaining trait budget and the opposites of kept traits.
      */
     public GeneratedEmpire rerollSingleTrait(GenerationSession session, String targetTraitId) {
+        return filterService.withReadySnapshot(EmpireGeneratorService.REQUIRED_CATEGORIES,
+                EmpireGeneratorService.READY_TIMEOUT, () -> rerollOneTrait(session, targetTraitId));
+    }
+
+    private GeneratedEmpire rerollOneTrait(GenerationSession session, String targetTraitId) {
         if (!session.canReroll()) {
             throw new IllegalStateException("Reroll already used for this generation");
         }
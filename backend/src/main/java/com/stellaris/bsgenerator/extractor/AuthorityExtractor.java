@@ -4,7 +4,8 @@ import com.stellaris.bsgenerator.model.Authority;
 import com.stellaris.bsgenerator.model.requirement.Requirement;
 import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
 import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -15,11 +16,15 @@ import java.util.List;
 @Service
 public class AuthorityExtractor {
 
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "potential", "possible", "election_type", "has_heir", "random_weight.base");
+
     private static final List<String> GESTALT_AUTHORITIES = List.of(
             "auth_hive_mind", "auth_machine_intelligence"
     );
 
-    public List<Authority> extract(ClausewitzNode root) {
+    public List<Authority> extract(AstNode root) {
         List<Authority> authorities = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -30,20 +35,16 @@ public class AuthorityExtractor {
             // Filter out non-player authorities (e.g., auth_ancient_machine_intelligence)
             // These have potential = { country_type = { value = ai_empire } }
             // Note: auth_corporate has country_type = { NOT = { value = primitive } } which is fine
-            RequirementBlock potential = node.child("potential")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock potential = RequirementBlockParser.parse(node.findChild("potential"));
             if (isNonPlayerAuthority(potential)) {
                 log.debug("Skipping non-player authority: {}", id);
                 continue;
             }
 
-            String electionType = node.childValue("election_type").orElse("none");
+            String electionType = node.childValue("election_type", "none");
             boolean hasHeir = node.childBool("has_heir", false);
 
-            RequirementBlock possible = node.child("possible")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock possible = RequirementBlockParser.parse(node.findChild("possible"));
 
             int randomWeight = node.child("random_weight")
                     .map(rw -> rw.childInt("base", 1))
@@ -3,7 +3,8 @@ package com.stellaris.bsgenerator.extractor;
 import com.stellaris.bsgenerator.model.Civic;
 import com.stellaris.bsgenerator.model.SecondarySpeciesConfig;
 import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +15,12 @@ import java.util.List;
 @Service
 public class CivicExtractor {
 
-    public List<Civic> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "is_origin", "playable.NOT.host_has_dlc", "pickable_at_start", "potential", "possible",
+            "random_weight.base", "has_secondary_species", "traits.trait");
+
+    public List<Civic> extract(AstNode root) {
         List<Civic> civics = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -27,23 +33,19 @@ public class CivicExtractor {
 
             // Skip civics that require NOT having a DLC (we always assume all DLCs are active).
             // e.g. civic_corporate_dominion: playable = { NOT = { host_has_dlc = "Megacorp" } }
-            var playableNode = node.child("playable").orElse(null);
+            var playableNode = node.findChild("playable");
             if (playableNode != null) {
-                var notNode = playableNode.child("NOT").orElse(null);
-                if (notNode != null && notNode.child("host_has_dlc").isPresent()) {
+                var notNode = playableNode.findChild("NOT");
+                if (notNode != null && notNode.findChild("host_has_dlc") != null) {
                     log.debug("Skipping no-DLC-required civic: {}", id);
                     continue;
                 }
             }
             boolean pickableAtStart = node.childBool("pickable_at_start", true);
 
-            RequirementBlock potential = node.child("potential")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock potential = RequirementBlockParser.parse(node.findChild("potential"));
 
-            RequirementBlock possible = node.child("possible")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock possible = RequirementBlockParser.parse(node.findChild("possible"));
 
             int randomWeight = node.child("random_weight")
                     .map(rw -> rw.childInt("base", 1))
@@ -55,7 +57,7 @@ public class CivicExtractor {
             List<String> enforcedTraitIds = node.child("traits")
                     .map(t -> t.children().stream()
                             .filter(c -> "trait".equals(c.key()) && c.isLeaf())
-                            .map(ClausewitzNode::value)
+                            .map(AstNode::value)
                             .toList())
                     .orElse(List.of());
 
@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.Ethic;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -12,7 +13,11 @@ import java.util.List;
 @Service
 public class EthicExtractor {
 
-    public List<Ethic> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "cost", "category", "regular_variant", "fanatic_variant", "tags", "random_weight.base");
+
+    public List<Ethic> extract(AstNode root) {
         List<Ethic> ethics = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -20,15 +25,13 @@ public class EthicExtractor {
 
             String id = node.key();
             int cost = node.childInt("cost", 0);
-            String category = node.childValue("category").orElse(null);
-            String regularVariant = node.childValue("regular_variant").orElse(null);
-            String fanaticVariant = node.childValue("fanatic_variant").orElse(null);
+            String category = node.childValue("category", null);
+            String regularVariant = node.childValue("regular_variant", null);
+            String fanaticVariant = node.childValue("fanatic_variant", null);
             boolean isFanatic = cost == 2;
             boolean isGestalt = id.equals("ethic_gestalt_consciousness");
 
-            List<String> tags = node.child("tags")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
+            List<String> tags = node.bareValues("tags");
 
             int randomWeight = node.child("random_weight")
                     .map(rw -> rw.childInt("base", 1))
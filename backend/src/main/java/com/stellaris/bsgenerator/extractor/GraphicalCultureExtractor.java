@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.GraphicalCulture;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -20,12 +21,15 @@ import java.util.Set;
 @Service
 public class GraphicalCultureExtractor {
 
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of("selectable.always");
+
     /** Cultures that are city-set-only visual variants, not actual shipsets. */
     private static final Set<String> NON_SHIPSET_CULTURES = Set.of(
             "solarpunk_01", "wilderness_01", "nemesis_01"
     );
 
-    public List<GraphicalCulture> extract(ClausewitzNode root) {
+    public List<GraphicalCulture> extract(AstNode root) {
         List<GraphicalCulture> cultures = new ArrayList<>();
 
         for (var node : root.children()) {
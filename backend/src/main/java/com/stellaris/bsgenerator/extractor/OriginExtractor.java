@@ -3,7 +3,8 @@ package com.stellaris.bsgenerator.extractor;
 import com.stellaris.bsgenerator.model.Origin;
 import com.stellaris.bsgenerator.model.SecondarySpeciesConfig;
 import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +16,12 @@ import java.util.Objects;
 @Service
 public class OriginExtractor {
 
-    public List<Origin> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "is_origin", "playable.always", "playable.host_has_dlc", "potential", "possible",
+            "random_weight.base", "has_secondary_species", "traits.trait", "icon", "habitability_preference");
+
+    public List<Origin> extract(AstNode root) {
         List<Origin> origins = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -27,14 +33,14 @@ public class OriginExtractor {
             String id = node.key();
 
             // Filter non-playable origins: playable = { always = no }
-            var playableNode = node.child("playable").orElse(null);
+            var playableNode = node.findChild("playable");
             if (playableNode != null && playableNode.childBool("always", true) == false) {
                 log.debug("Skipping non-playable origin: {}", id);
                 continue;
             }
 
             // Filter AI/event-only origins: potential = { always = no }
-            var potentialCheckNode = node.child("potential").orElse(null);
+            var potentialCheckNode = node.findChild("potential");
             if (potentialCheckNode != null && potentialCheckNode.childBool("always", true) == false) {
                 log.debug("Skipping potential=always-no origin: {}", id);
                 continue;
@@ -49,18 +55,14 @@ public class OriginExtractor {
                 continue;
             }
 
-            RequirementBlock potential = node.child("potential")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock potential = RequirementBlockParser.parse(node.findChild("potential"));
 
-            RequirementBlock possible = node.child("possible")
-                    .map(RequirementBlockParser::parse)
-                    .orElse(null);
+            RequirementBlock possible = RequirementBlockParser.parse(node.findChild("possible"));
 
             // Extract DLC requirement from playable = { host_has_dlc = "..." }
             String dlcRequirement = null;
             if (playableNode != null) {
-                dlcRequirement = playableNode.childValue("host_has_dlc").orElse(null);
+                dlcRequirement = playableNode.childValue("host_has_dlc", null);
             }
 
             SecondarySpeciesConfig secondarySpecies = parseSecondarySpecies(node);
@@ -68,16 +70,16 @@ public class OriginExtractor {
             // Parse origin-level enforced species traits: traits = { trait = X }
             List<String> enforcedTraitIds = node.child("traits")
                     .map(traitsNode -> traitsNode.children("trait").stream()
-                            .map(ClausewitzNode::value)
+                            .map(AstNode::value)
                             .filter(Objects::nonNull)
                             .toList())
                     .orElse(List.of());
 
             // Parse icon path (e.g. "gfx/interface/icons/origins/origins_default.dds")
-            String iconPath = node.childValue("icon").orElse(null);
+            String iconPath = node.childValue("icon", null);
 
             // Parse habitability preference (e.g. pc_ocean, pc_habitat)
-            String habitabilityPreference = node.childValue("habitability_preference").orElse(null);
+            String habitabilityPreference = node.childValue("habitability_preference", null);
 
             origins.add(new Origin(id, potential, possible, dlcRequirement, randomWeight, secondarySpecies, enforcedTraitIds, iconPath, habitabilityPreference));
         }
@@ -86,12 +88,12 @@ public class OriginExtractor {
         return origins;
     }
 
-    static SecondarySpeciesConfig parseSecondarySpecies(ClausewitzNode node) {
+    static SecondarySpeciesConfig parseSecondarySpecies(AstNode node) {
         return node.child("has_secondary_species").map(ssNode -> {
-            String title = ssNode.childValue("title").orElse(null);
+            String title = ssNode.childValue("title", null);
             List<String> traitIds = ssNode.child("traits")
                     .map(traitsNode -> traitsNode.children("trait").stream()
-                            .map(ClausewitzNode::value)
+                            .map(AstNode::value)
                             .filter(v -> v != null)
                             .toList())
                     .orElse(List.of());
@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.PlanetClass;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +16,10 @@ import java.util.List;
 @Service
 public class PlanetClassExtractor {
 
-    public List<PlanetClass> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of("colonizable", "initial", "starting_planet", "climate");
+
+    public List<PlanetClass> extract(AstNode root) {
         List<PlanetClass> planetClasses = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -31,7 +35,7 @@ public class PlanetClassExtractor {
             if (!startingPlanet) continue;
 
             String id = node.key();
-            String climate = node.childValue("climate").orElse("unknown");
+            String climate = node.childValue("climate", "unknown");
 
             planetClasses.add(new PlanetClass(id, climate));
         }
@@ -3,7 +3,7 @@ package com.stellaris.bsgenerator.extractor;
 import com.stellaris.bsgenerator.model.requirement.Requirement;
 import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
 import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -39,7 +39,7 @@ public final class RequirementBlockParser {
      * @param node the potential or possible node (its children are category blocks)
      * @return a RequirementBlock, or null if the block is empty/has no meaningful requirements
      */
-    public static RequirementBlock parse(ClausewitzNode node) {
+    public static RequirementBlock parse(AstNode node) {
         if (node == null || node.children().isEmpty()) {
             return null;
         }
@@ -87,7 +87,7 @@ public final class RequirementBlockParser {
      * </pre>
      * Returns a map of category → requirements (each branch is a disjunct).
      */
-    private static Map<RequirementCategory, List<Requirement>> parseCrossCategoryOr(ClausewitzNode orNode) {
+    private static Map<RequirementCategory, List<Requirement>> parseCrossCategoryOr(AstNode orNode) {
         Map<RequirementCategory, List<Requirement>> branches = new EnumMap<>(RequirementCategory.class);
         for (var child : orNode.children()) {
             if (child.key() == null || !child.isBlock()) continue;
@@ -104,7 +104,7 @@ public final class RequirementBlockParser {
     /**
      * Parse a single category block (e.g., ethics = { ... }) into a list of requirements.
      */
-    private static List<Requirement> parseCategoryBlock(ClausewitzNode categoryNode) {
+    private static List<Requirement> parseCategoryBlock(AstNode categoryNode) {
         List<Requirement> requirements = new ArrayList<>();
 
         for (var child : categoryNode.children()) {
@@ -118,7 +118,7 @@ public final class RequirementBlockParser {
                 }
                 case "NOT" -> {
                     if (child.isBlock()) {
-                        var notValue = child.childValue("value").orElse(null);
+                        var notValue = child.childValue("value", null);
                         if (notValue != null) {
                             requirements.add(new Requirement.Not(notValue));
                         }
@@ -151,7 +151,7 @@ public final class RequirementBlockParser {
     /**
      * Extract all "value = X" entries from a block (used for NOT, NOR, OR children).
      */
-    private static List<String> extractValues(ClausewitzNode block) {
+    private static List<String> extractValues(AstNode block) {
         List<String> values = new ArrayList<>();
         for (var child : block.children()) {
             if ("value".equals(child.key()) && child.value() != null) {
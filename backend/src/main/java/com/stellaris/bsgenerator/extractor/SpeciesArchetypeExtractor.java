@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.SpeciesArchetype;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +15,11 @@ import java.util.Map;
 @Service
 public class SpeciesArchetypeExtractor {
 
-    public List<SpeciesArchetype> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "species_trait_points", "species_max_traits", "robotic", "inherit_trait_points_from");
+
+    public List<SpeciesArchetype> extract(AstNode root) {
         // First pass: collect raw data and inheritance references
         record RawArchetype(String id, int traitPoints, int maxTraits, boolean robotic,
                             String inheritFrom) {}
@@ -28,7 +33,7 @@ public class SpeciesArchetypeExtractor {
             int traitPoints = node.childInt("species_trait_points", -1);
             int maxTraits = node.childInt("species_max_traits", -1);
             boolean robotic = node.childBool("robotic", false);
-            String inheritFrom = node.childValue("inherit_trait_points_from").orElse(null);
+            String inheritFrom = node.childValue("inherit_trait_points_from", null);
 
             rawMap.put(id, new RawArchetype(id, traitPoints, maxTraits, robotic, inheritFrom));
         }
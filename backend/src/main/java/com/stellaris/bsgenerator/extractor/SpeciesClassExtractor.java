@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.SpeciesClass;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -12,7 +13,10 @@ import java.util.List;
 @Service
 public class SpeciesClassExtractor {
 
-    public List<SpeciesClass> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of("archetype", "playable.always", "playable.has_global_flag");
+
+    public List<SpeciesClass> extract(AstNode root) {
         List<SpeciesClass> classes = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -21,23 +25,23 @@ public class SpeciesClassExtractor {
             String id = node.key();
 
             // Must have archetype field (skip ship-set-only entries like IMPERIAL, CYBERNETIC, PSIONIC)
-            var archetypeValue = node.childValue("archetype").orElse(null);
+            var archetypeValue = node.childValue("archetype", null);
             if (archetypeValue == null) continue;
 
             // Skip presapient species (PRE_MAM, PRE_REP, etc.)
             if ("PRESAPIENT".equals(archetypeValue)) continue;
 
             // Skip if playable = { always = no }
-            var playableNode = node.child("playable").orElse(null);
+            var playableNode = node.findChild("playable");
             if (playableNode != null && playableNode.isBlock()) {
-                var alwaysVal = playableNode.childValue("always").orElse(null);
+                var alwaysVal = playableNode.childValue("always", null);
                 if ("no".equals(alwaysVal)) continue;
             }
 
             // Skip ROBOT — only available after game start (has_global_flag = game_started),
             // not in the character creator
             if (playableNode != null && playableNode.isBlock()) {
-                var globalFlag = playableNode.childValue("has_global_flag").orElse(null);
+                var globalFlag = playableNode.childValue("has_global_flag", null);
                 if ("game_started".equals(globalFlag)) continue;
             }
 
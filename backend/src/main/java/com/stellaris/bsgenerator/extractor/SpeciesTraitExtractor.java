@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.SpeciesTrait;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +15,14 @@ import java.util.Map;
 @Service
 public class SpeciesTraitExtractor {
 
-    public List<SpeciesTrait> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "allowed_archetypes", "cost.base", "initial", "auto_mod", "species_class",
+            "allowed_planet_classes", "opposites", "randomized", "playable.host_has_dlc", "tags",
+            "allowed_origins", "forbidden_origins", "allowed_civics", "forbidden_civics",
+            "allowed_ethics", "forbidden_ethics", "icon");
+
+    public List<SpeciesTrait> extract(AstNode root) {
         List<SpeciesTrait> traits = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -23,11 +31,11 @@ public class SpeciesTraitExtractor {
             String id = node.key();
 
             // Must have allowed_archetypes (skips leader traits)
-            var archetypesNode = node.child("allowed_archetypes").orElse(null);
+            var archetypesNode = node.findChild("allowed_archetypes");
             if (archetypesNode == null) continue;
 
             // Must have cost field (skips habitability-only traits)
-            var costNode = node.child("cost").orElse(null);
+            var costNode = node.findChild("cost");
             if (costNode == null) continue;
 
             // Skip traits with initial = no (cyborg, presapient traits)
@@ -42,12 +50,10 @@ public class SpeciesTraitExtractor {
             List<String> allowedArchetypes = archetypesNode.bareValues();
 
             // Parse species_class restriction (e.g., species_class = { AQUATIC ART REP })
-            List<String> allowedSpeciesClasses = node.child("species_class")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
+            List<String> allowedSpeciesClasses = node.bareValues("species_class");
 
             // Parse allowed_planet_classes (e.g., allowed_planet_classes = { pc_ocean })
-            List<String> allowedPlanetClasses = node.child("allowed_planet_classes")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
+            List<String> allowedPlanetClasses = node.bareValues("allowed_planet_classes");
 
             // Parse opposites: either bare values or quoted strings
             List<String> opposites = node.child("opposites")
@@ -61,25 +67,17 @@ public class SpeciesTraitExtractor {
                     .flatMap(p -> p.childValue("host_has_dlc"))
                     .orElse(null);
 
-            List<String> tags = node.child("tags")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
+            List<String> tags = node.bareValues("tags");
 
-            List<String> allowedOrigins = node.child("allowed_origins")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
-            List<String> forbiddenOrigins = node.child("forbidden_origins")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
-            List<String> allowedCivics = node.child("allowed_civics")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
-            List<String> forbiddenCivics = node.child("forbidden_civics")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
-            List<String> allowedEthics = node.child("allowed_ethics")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
-            List<String> forbiddenEthics = node.child("forbidden_ethics")
-                    .map(ClausewitzNode::bareValues).orElse(List.of());
+            List<String> allowedOrigins = node.bareValues("allowed_origins");
+            List<String> forbiddenOrigins = node.bareValues("forbidden_origins");
+            List<String> allowedCivics = node.bareValues("allowed_civics");
+            List<String> forbiddenCivics = node.bareValues("forbidden_civics");
+            List<String> allowedEthics = node.bareValues("allowed_ethics");
+            List<String> forbiddenEthics = node.bareValues("forbidden_ethics");
 
             // Parse icon path override (e.g. icon = "gfx/interface/icons/traits/trait_primitive.dds")
-            String iconPath = node.childValue("icon").orElse(null);
+            String iconPath = node.childValue("icon", null);
 
             traits.add(new SpeciesTrait(id, cost, allowedArchetypes, allowedSpeciesClasses,
                     allowedPlanetClasses, opposites, true, randomized, dlcRequirement, tags,
@@ -96,14 +94,14 @@ public class SpeciesTraitExtractor {
      * clone soldier, unplugged, etc.) that are excluded from the creation pool.
      * Maps traitId → explicit icon path (only traits with a custom icon= field).
      */
-    public Map<String, String> extractIconPaths(ClausewitzNode root) {
+    public Map<String, String> extractIconPaths(AstNode root) {
         Map<String, String> map = new HashMap<>();
         for (var node : root.children()) {
             if (node.key() == null || !node.isBlock()) continue;
-            if (node.child("allowed_archetypes").isEmpty()) continue;
-            if (node.child("cost").isEmpty()) continue;
+            if (node.findChild("allowed_archetypes") == null) continue;
+            if (node.findChild("cost") == null) continue;
 
-            String iconPath = node.childValue("icon").orElse(null);
+            String iconPath = node.childValue("icon", null);
             if (iconPath != null) {
                 map.put(node.key(), iconPath);
             }
@@ -111,7 +109,7 @@ public class SpeciesTraitExtractor {
         return map;
     }
 
-    private int parseCost(ClausewitzNode costNode) {
+    private int parseCost(AstNode costNode) {
         if (costNode.isLeaf()) {
             // cost = 2
             return (int) Double.parseDouble(costNode.value());
@@ -122,7 +120,7 @@ public class SpeciesTraitExtractor {
         return 0;
     }
 
-    private List<String> parseOpposites(ClausewitzNode oppositeNode) {
+    private List<String> parseOpposites(AstNode oppositeNode) {
         // Opposites can be bare quoted strings or bare values
         // e.g., opposites = { "trait_slow_breeders" "trait_fertile" }
         // The parser strips quotes, so these appear as bare values
@@ -1,7 +1,8 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.StartingRulerTrait;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +17,13 @@ import java.util.List;
 @Service
 public class StartingRulerTraitExtractor {
 
-    public List<StartingRulerTrait> extract(ClausewitzNode root) {
+    /** Fields of each top-level entry read by this extractor. */
+    public static final Projection SCHEMA = Projection.of(
+            "starting_ruler_trait", "replace_traits", "leader_class", "forbidden_origins",
+            "allowed_ethics", "allowed_origins", "allowed_civics", "forbidden_civics", "forbidden_ethics",
+            "cost", "opposites", "inline_script.ICON");
+
+    public List<StartingRulerTrait> extract(AstNode root) {
         List<StartingRulerTrait> traits = new ArrayList<>();
 
         for (var node : root.children()) {
@@ -30,31 +37,15 @@ public class StartingRulerTraitExtractor {
             if (replaceTraits.isPresent() && !replaceTraits.get().bareValues().isEmpty()) continue;
 
             String id = node.key();
-            List<String> leaderClasses = node.child("leader_class")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> forbiddenOrigins = node.child("forbidden_origins")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> allowedEthics = node.child("allowed_ethics")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> allowedOrigins = node.child("allowed_origins")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> allowedCivics = node.child("allowed_civics")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> forbiddenCivics = node.child("forbidden_civics")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
-            List<String> forbiddenEthics = node.child("forbidden_ethics")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
+            List<String> leaderClasses = node.bareValues("leader_class");
+            List<String> forbiddenOrigins = node.bareValues("forbidden_origins");
+            List<String> allowedEthics = node.bareValues("allowed_ethics");
+            List<String> allowedOrigins = node.bareValues("allowed_origins");
+            List<String> allowedCivics = node.bareValues("allowed_civics");
+            List<String> forbiddenCivics = node.bareValues("forbidden_civics");
+            List<String> forbiddenEthics = node.bareValues("forbidden_ethics");
             int cost = node.childInt("cost", 0);
-            List<String> opposites = node.child("opposites")
-                    .map(ClausewitzNode::bareValues)
-                    .orElse(List.of());
+            List<String> opposites = node.bareValues("opposites");
 
             // Extract GFX key from inline_script ICON field (e.g. "GFX_leader_trait_principled")
             String gfxKey = node.child("inline_script")
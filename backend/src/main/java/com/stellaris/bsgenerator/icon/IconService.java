@@ -158,24 +158,26 @@ public class IconService {
     private Path resolveLeaderTraitIcon(Path gamePath, String traitId) {
         // First try: look up GFX key from the trait data, then resolve via GFX map
         Map<String, String> gfxMap = gameDataManager.getLeaderTraitGfxMap();
-        if (gfxMap != null) {
-            // Try matching the trait ID to a GFX key from the StartingRulerTrait data
-            if (gameDataManager.getStartingRulerTraits() != null) {
-                for (StartingRulerTrait trait : gameDataManager.getStartingRulerTraits()) {
-                    if (trait.id().equals(traitId) && trait.gfxKey() != null) {
-                        String ddsPath = gfxMap.get(trait.gfxKey());
-                        if (ddsPath != null) {
-                            return gamePath.resolve(ddsPath);
-                        }
+        if (gfxMap == null) {
+            // Still loading; don't let the fallback below be cached in place of the real icon
+            return null;
+        }
+        // Try matching the trait ID to a GFX key from the StartingRulerTrait data
+        if (gameDataManager.getStartingRulerTraits() != null) {
+            for (StartingRulerTrait trait : gameDataManager.getStartingRulerTraits()) {
+                if (trait.id().equals(traitId) && trait.gfxKey() != null) {
+                    String ddsPath = gfxMap.get(trait.gfxKey());
+                    if (ddsPath != null) {
+                        return gamePath.resolve(ddsPath);
                     }
                 }
             }
-            // Also try using the ID directly as a GFX key prefix
-            String gfxKey = "GFX_" + traitId;
-            String ddsPath = gfxMap.get(gfxKey);
-            if (ddsPath != null) {
-                return gamePath.resolve(ddsPath);
-            }
+        }
+        // Also try using the ID directly as a GFX key prefix
+        String gfxKey = "GFX_" + traitId;
+        String ddsPath = gfxMap.get(gfxKey);
+        if (ddsPath != null) {
+            return gamePath.resolve(ddsPath);
         }
         // Fallback: try direct path
         return gamePath.resolve("gfx/interface/icons/traits/leader_trait_icons/" + traitId + ".dds");
@@ -2,8 +2,6 @@ package com.stellaris.bsgenerator.icon;
 
 import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
 import com.stellaris.bsgenerator.parser.ast.ClausewitzParser;
-import com.stellaris.bsgenerator.parser.token.Token;
-import com.stellaris.bsgenerator.parser.token.Tokenizer;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
@@ -11,7 +9,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,8 +27,7 @@ public class LeaderTraitGfxParser {
         }
 
         String content = Files.readString(gfxFile, StandardCharsets.UTF_8);
-        List<Token> tokens = Tokenizer.tokenize(content);
-        ClausewitzNode root = ClausewitzParser.parse(tokens, Map.of());
+        ClausewitzNode root = ClausewitzParser.parse(content, Map.of());
 
         // Root has spriteTypes = { spriteType = { name=..., texturefile=... } ... }
         for (var spriteTypes : root.children()) {
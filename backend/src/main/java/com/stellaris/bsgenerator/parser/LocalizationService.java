@@ -12,7 +12,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -38,8 +40,11 @@ public class LocalizationService {
     private final ParserProperties properties;
     private final SettingsService settingsService;
 
+    /** Localizations read by {@link #load}. */
     @Getter
-    private Map<String, String> localizations = Map.of();
+    private volatile Map<String, String> localizations = Map.of();
+    /** Where {@link #getDisplayName} looks names up: the loaded localizations unless replaced. */
+    private volatile Supplier<Map<String, String>> source = this::getLocalizations;
 
     public void load() {
         Path locDir = Path.of(settingsService.getEffectiveGamePath())
@@ -51,31 +56,53 @@ public class LocalizationService {
             return;
         }
 
-        var map = new HashMap<String, String>();
-        long start = System.currentTimeMillis();
-
-        try (Stream<Path> files = Files.list(locDir)) {
-            files.filter(p -> p.getFileName().toString().endsWith("_l_english.yml"))
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(locDir)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith("_l_english.yml"))
                     .sorted()
-                    .forEach(file -> parseFile(file, map));
+                    .toList();
         } catch (IOException e) {
             log.error("Failed to list localization files: {}", e.getMessage());
             return;
         }
+        load(files);
+    }
+
+    /** Loads the given {@code _l_english.yml} files, in order, e.g. as listed by a game file scan. */
+    public void load(List<Path> files) {
+        localizations = parse(files);
+    }
+
+    /** Reads the given {@code _l_english.yml} files without replacing the loaded localizations. */
+    public Map<String, String> parse(List<Path> files) {
+        var map = new HashMap<String, String>();
+        long start = System.currentTimeMillis();
+
+        files.forEach(file -> parseFile(file, map));
 
         // Second pass: resolve $variable$ references
         resolveVariableReferences(map);
 
-        localizations = Map.copyOf(map);
         long elapsed = System.currentTimeMillis() - start;
-        log.info("Loaded {} localization keys in {}ms", localizations.size(), elapsed);
+        log.info("Loaded {} localization keys in {}ms", map.size(), elapsed);
+        return Map.copyOf(map);
+    }
+
+    /**
+     * Looks names up in whatever {@code source} supplies at the time, e.g. the localizations of
+     * the game data the calling thread reads, so that they come from the same snapshot as the
+     * entities they name. It may supply null while no localizations are loaded.
+     */
+    public void readFrom(Supplier<Map<String, String>> source) {
+        this.source = source;
     }
 
     /**
      * Returns the display name for a game entity key, or null if not found.
      */
     public String getDisplayName(String key) {
-        return localizations.get(key);
+        Map<String, String> names = source.get();
+        return names != null ? names.get(key) : null;
     }
 
     private void parseFile(Path file, Map<String, String> target) {
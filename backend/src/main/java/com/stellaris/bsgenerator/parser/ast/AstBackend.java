@@ -0,0 +1,33 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+
+import java.lang.foreign.Arena;
+
+/**
+ * AST representation built when loading game files, selected via {@code stellaris.ast-backend}.
+ */
+public enum AstBackend {
+
+    /** {@link ClausewitzNode} record tree. */
+    RECORD,
+
+    /** {@link FlatAst} with heap-allocated columns. */
+    FLAT,
+
+    /** {@link FlatAst} with off-heap columns, released when the tree becomes unreachable. */
+    FLAT_OFF_HEAP;
+
+    /**
+     * @param symbols the load's symbol table; the flat backends need one and create a private
+     *                table when given {@code null}
+     */
+    public AstBuilder<?> newBuilder(SymbolTable symbols) {
+        SymbolTable table = symbols != null ? symbols : new SymbolTable();
+        return switch (this) {
+            case RECORD -> new ClausewitzNodeBuilder();
+            case FLAT -> FlatAst.builder(table, null);
+            case FLAT_OFF_HEAP -> FlatAst.builder(table, Arena.ofAuto());
+        };
+    }
+}
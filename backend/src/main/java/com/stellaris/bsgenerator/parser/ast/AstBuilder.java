@@ -0,0 +1,43 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+/**
+ * Receives parse events from {@link ClausewitzParser} and assembles an AST backend.
+ * <p>
+ * Entries are appended under the innermost open block, starting at the root.
+ * {@link #mark()} / {@link #rollback(int)} let a loader merge several files into one root
+ * and drop the partial output of a file that fails to parse.
+ */
+public interface AstBuilder<T extends AstNode> {
+
+    void leaf(String key, String value);
+
+    void bareValue(String value);
+
+    void beginBlock(String key);
+
+    void endBlock();
+
+    /** Appends an already-built subtree under the innermost open block. */
+    default void append(AstNode node) {
+        if (node.key() == null) {
+            bareValue(node.value());
+        } else if (node.value() != null && node.children().isEmpty()) {
+            leaf(node.key(), node.value());
+        } else {
+            beginBlock(node.key());
+            for (var child : node.children()) {
+                append(child);
+            }
+            endBlock();
+        }
+    }
+
+    /** Checkpoint at root level; only the most recent mark can be rolled back to. */
+    int mark();
+
+    /** Discards everything added since {@code mark} and returns to root level. */
+    void rollback(int mark);
+
+    /** The root holding every top-level entry added so far. */
+    T build();
+}
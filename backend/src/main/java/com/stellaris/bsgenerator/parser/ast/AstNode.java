@@ -0,0 +1,92 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only view of a parsed Clausewitz node, implemented by both AST backends
+ * ({@link ClausewitzNode} records and {@link FlatAst} cursors) so extractors can run on either.
+ */
+public interface AstNode {
+
+    /** Key of a {@code key = ...} entry, null for the root and bare values. */
+    String key();
+
+    /** Scalar value, null for blocks and the root. */
+    String value();
+
+    List<? extends AstNode> children();
+
+    default boolean isLeaf() {
+        return value() != null && children().isEmpty();
+    }
+
+    default boolean isBlock() {
+        return value() == null && !children().isEmpty();
+    }
+
+    default boolean isBareValue() {
+        return key() == null && value() != null;
+    }
+
+    /** First child with the given key, or null. Allocation-free alternative to {@link #child(String)}. */
+    default AstNode findChild(String childKey) {
+        for (var child : children()) {
+            if (childKey.equals(child.key())) return child;
+        }
+        return null;
+    }
+
+    default Optional<? extends AstNode> child(String childKey) {
+        return Optional.ofNullable(findChild(childKey));
+    }
+
+    default List<? extends AstNode> children(String childKey) {
+        var matches = new ArrayList<AstNode>();
+        for (var child : children()) {
+            if (childKey.equals(child.key())) matches.add(child);
+        }
+        return matches;
+    }
+
+    default Optional<String> childValue(String childKey) {
+        return Optional.ofNullable(childValue(childKey, null));
+    }
+
+    /** Value of the first child with the given key, or {@code defaultValue} if absent or a block. */
+    default String childValue(String childKey, String defaultValue) {
+        AstNode child = findChild(childKey);
+        String value = child != null ? child.value() : null;
+        return value != null ? value : defaultValue;
+    }
+
+    default int childInt(String childKey, int defaultValue) {
+        String value = childValue(childKey, null);
+        return value != null ? (int) Double.parseDouble(value) : defaultValue;
+    }
+
+    default double childDouble(String childKey, double defaultValue) {
+        String value = childValue(childKey, null);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    default boolean childBool(String childKey, boolean defaultValue) {
+        String value = childValue(childKey, null);
+        return value != null ? value.equalsIgnoreCase("yes") : defaultValue;
+    }
+
+    default List<String> bareValues() {
+        var values = new ArrayList<String>();
+        for (var child : children()) {
+            if (child.isBareValue()) values.add(child.value());
+        }
+        return values;
+    }
+
+    /** Bare values of the first child with the given key, or an empty list if there is none. */
+    default List<String> bareValues(String childKey) {
+        AstNode child = findChild(childKey);
+        return child != null ? child.bareValues() : List.of();
+    }
+}
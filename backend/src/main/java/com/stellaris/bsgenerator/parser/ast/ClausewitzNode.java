@@ -2,10 +2,13 @@ package com.stellaris.bsgenerator.parser.ast;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.OptionalDouble;
 
-public record ClausewitzNode(String key, String value, List<ClausewitzNode> children) {
+public record ClausewitzNode(String key, String value, List<ClausewitzNode> children) implements AstNode {
+
+    /** Blocks wider than {@link IndexedChildren#THRESHOLD} get a key index for child lookups. */
+    public ClausewitzNode {
+        children = IndexedChildren.wrap(children);
+    }
 
     public static ClausewitzNode root(List<ClausewitzNode> children) {
         return new ClausewitzNode(null, null, children);
@@ -23,53 +26,58 @@ public record ClausewitzNode(String key, String value, List<ClausewitzNode> chil
         return new ClausewitzNode(null, value, List.of());
     }
 
+    /** Record copy of a node from any AST backend (returned as-is if it already is one). */
+    public static ClausewitzNode copyOf(AstNode node) {
+        if (node instanceof ClausewitzNode record) return record;
+        List<ClausewitzNode> children = node.children().isEmpty()
+                ? List.of()
+                : node.children().stream().map(ClausewitzNode::copyOf).toList();
+        return new ClausewitzNode(node.key(), node.value(), children);
+    }
+
+    @Override
     public boolean isLeaf() {
         return value != null && children.isEmpty();
     }
 
+    @Override
     public boolean isBlock() {
         return value == null && !children.isEmpty();
     }
 
+    @Override
     public boolean isBareValue() {
         return key == null && value != null;
     }
 
+    @Override
+    public ClausewitzNode findChild(String childKey) {
+        if (children instanceof IndexedChildren indexed) {
+            return indexed.first(childKey);
+        }
+        for (int i = 0; i < children.size(); i++) {
+            ClausewitzNode child = children.get(i);
+            if (childKey.equals(child.key())) return child;
+        }
+        return null;
+    }
+
+    @Override
     public Optional<ClausewitzNode> child(String childKey) {
-        return children.stream()
-                .filter(n -> childKey.equals(n.key()))
-                .findFirst();
+        return Optional.ofNullable(findChild(childKey));
     }
 
+    @Override
     public List<ClausewitzNode> children(String childKey) {
+        if (children instanceof IndexedChildren indexed) {
+            return indexed.all(childKey);
+        }
         return children.stream()
                 .filter(n -> childKey.equals(n.key()))
                 .toList();
     }
 
-    public Optional<String> childValue(String childKey) {
-        return child(childKey)
-                .map(ClausewitzNode::value);
-    }
-
-    public int childInt(String childKey, int defaultValue) {
-        return childValue(childKey)
-                .map(v -> (int) Double.parseDouble(v))
-                .orElse(defaultValue);
-    }
-
-    public double childDouble(String childKey, double defaultValue) {
-        return childValue(childKey)
-                .map(Double::parseDouble)
-                .orElse(defaultValue);
-    }
-
-    public boolean childBool(String childKey, boolean defaultValue) {
-        return childValue(childKey)
-                .map(v -> v.equalsIgnoreCase("yes"))
-                .orElse(defaultValue);
-    }
-
+    @Override
     public List<String> bareValues() {
         return children.stream()
                 .filter(ClausewitzNode::isBareValue)
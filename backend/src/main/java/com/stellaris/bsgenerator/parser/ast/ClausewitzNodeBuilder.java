@@ -0,0 +1,67 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@link ClausewitzNode} record tree.
+ */
+public final class ClausewitzNodeBuilder implements AstBuilder<ClausewitzNode> {
+
+    private final List<ClausewitzNode> rootChildren = new ArrayList<>();
+    private final List<String> openKeys = new ArrayList<>();
+    private final List<List<ClausewitzNode>> openChildren = new ArrayList<>();
+
+    public ClausewitzNodeBuilder() {
+        openChildren.add(rootChildren);
+    }
+
+    @Override
+    public void leaf(String key, String value) {
+        current().add(ClausewitzNode.leaf(key, value));
+    }
+
+    @Override
+    public void bareValue(String value) {
+        current().add(ClausewitzNode.bareValue(value));
+    }
+
+    @Override
+    public void beginBlock(String key) {
+        openKeys.add(key);
+        openChildren.add(new ArrayList<>());
+    }
+
+    @Override
+    public void endBlock() {
+        String key = openKeys.removeLast();
+        List<ClausewitzNode> children = openChildren.removeLast();
+        current().add(ClausewitzNode.block(key, children));
+    }
+
+    @Override
+    public void append(AstNode node) {
+        current().add(ClausewitzNode.copyOf(node));
+    }
+
+    @Override
+    public int mark() {
+        return rootChildren.size();
+    }
+
+    @Override
+    public void rollback(int mark) {
+        openKeys.clear();
+        openChildren.subList(1, openChildren.size()).clear();
+        rootChildren.subList(mark, rootChildren.size()).clear();
+    }
+
+    @Override
+    public ClausewitzNode build() {
+        return ClausewitzNode.root(rootChildren);
+    }
+
+    private List<ClausewitzNode> current() {
+        return openChildren.getLast();
+    }
+}
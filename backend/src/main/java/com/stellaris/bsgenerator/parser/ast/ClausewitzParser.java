@@ -1,96 +1,165 @@
 package com.stellaris.bsgenerator.parser.ast;
 
+import com.stellaris.bsgenerator.parser.token.Lexer;
 import com.stellaris.bsgenerator.parser.token.Token;
+import com.stellaris.bsgenerator.parser.token.TokenSource;
 import com.stellaris.bsgenerator.parser.token.TokenType;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * Recursive-descent parser for Clausewitz script, emitting nodes into an {@link AstBuilder}.
+ */
 public final class ClausewitzParser {
 
-    private final List<Token> tokens;
+    private final TokenSource tokens;
     private final Map<String, String> variables;
-    private int pos;
+    private final AstBuilder<?> builder;
+    private final EntryFilter filter;
+    private final Projection schema;
+    private int depth;
+    /** Projection of the innermost open block; unused at root level, where {@link #schema} applies. */
+    private Projection projection = Projection.ALL;
+    /** Whether the innermost open block has received an entry yet. */
+    private boolean kept;
 
-    private ClausewitzParser(List<Token> tokens, Map<String, String> variables) {
+    private ClausewitzParser(TokenSource tokens, Map<String, String> variables, AstBuilder<?> builder,
+                             EntryFilter filter, Projection schema) {
         this.tokens = tokens;
         this.variables = variables;
-        this.pos = 0;
+        this.builder = builder;
+        this.filter = filter;
+        this.schema = schema;
+    }
+
+    /** Lexes and parses a script in a single pass, without building a token list. */
+    public static ClausewitzNode parse(String input, Map<String, String> variables) {
+        return parse(new Lexer(input), variables);
     }
 
     public static ClausewitzNode parse(List<Token> tokens, Map<String, String> variables) {
-        return new ClausewitzParser(tokens, variables).parseRoot();
+        return parse(TokenSource.of(tokens), variables);
     }
 
-    private ClausewitzNode parseRoot() {
-        var children = parseEntries();
-        expect(TokenType.EOF);
-        return ClausewitzNode.root(children);
+    public static ClausewitzNode parse(TokenSource tokens, Map<String, String> variables) {
+        var builder = new ClausewitzNodeBuilder();
+        parseInto(tokens, variables, builder);
+        return builder.build();
     }
 
-    private List<ClausewitzNode> parseEntries() {
-        var entries = new ArrayList<ClausewitzNode>();
-        while (!atEnd() && current().type() != TokenType.CLOSE_BRACE) {
-            entries.add(parseEntry());
-        }
-        return entries;
+    /**
+     * Parses a whole script, appending its top-level entries to the builder's root.
+     * On failure the builder may hold partial output; callers merging several files
+     * should {@link AstBuilder#mark() mark} first and roll back.
+     */
+    public static void parseInto(TokenSource tokens, Map<String, String> variables, AstBuilder<?> builder) {
+        parseInto(tokens, variables, builder, EntryFilter.ALL);
     }
 
-    private ClausewitzNode parseEntry() {
-        Token token = current();
+    /**
+     * Like {@link #parseInto(TokenSource, Map, AstBuilder)}, but top-level blocks rejected by
+     * {@code filter} are skipped without building nodes. Variable definitions inside skipped
+     * blocks are still recorded.
+     */
+    public static void parseInto(TokenSource tokens, Map<String, String> variables, AstBuilder<?> builder,
+                                 EntryFilter filter) {
+        parseInto(tokens, variables, builder, filter, Projection.ALL);
+    }
+
+    /**
+     * Like {@link #parseInto(TokenSource, Map, AstBuilder, EntryFilter)}, additionally pruning the
+     * body of every top-level block to {@code schema}. Top-level scalars are always kept.
+     * <p>
+     * A pruned block keeps its first entry as a stub (scalars as-is, blocks emptied) until a
+     * projected entry arrives, so a block that had content still reports {@link AstNode#isBlock()}.
+     */
+    public static void parseInto(TokenSource tokens, Map<String, String> variables, AstBuilder<?> builder,
+                                 EntryFilter filter, Projection schema) {
+        new ClausewitzParser(tokens, variables, builder, filter, schema).parseRoot();
+    }
 
-        // Variable definition: @var = value (already consumed '=' in tokenizer)
-        if (token.type() == TokenType.VARIABLE_DEF) {
-            advance();
-            String varValue = parseScalarValue();
-            variables.put(token.value(), varValue);
-            // Variable defs don't produce AST nodes
-            return parseEntry();
+    private void parseRoot() {
+        parseEntries();
+        expect(TokenType.EOF);
+    }
+
+    private void parseEntries() {
+        while (!atEnd() && tokens.type() != TokenType.CLOSE_BRACE) {
+            // Variable definition: @var = value (already consumed '=' in lexer).
+            // Variable defs don't produce AST nodes.
+            if (tokens.type() == TokenType.VARIABLE_DEF) {
+                String name = tokens.text();
+                tokens.advance();
+                variables.put(name, parseScalarValue());
+                continue;
+            }
+            parseEntry();
         }
+    }
+
+    private void parseEntry() {
+        TokenType type = tokens.type();
 
         // Variable reference as bare value
-        if (token.type() == TokenType.VARIABLE_REF) {
-            advance();
-            String resolved = resolveVariable(token);
-            return ClausewitzNode.bareValue(resolved);
+        if (type == TokenType.VARIABLE_REF) {
+            if (keepsUnnamed()) {
+                bareValue(parseScalarValue());
+            } else {
+                tokens.advance();
+            }
+            return;
         }
 
         // Check if this is a key=value / key={block} or a bare value
-        if (isKeyToken(token) && hasLookahead()) {
-            Token next = tokens.get(pos + 1);
+        if (isKeyToken(type)) {
+            TokenType next = tokens.peekType();
 
             // key = ...
-            if (next.type() == TokenType.EQUALS) {
-                return parseKeyValue();
+            if (next == TokenType.EQUALS) {
+                parseKeyValue();
+                return;
             }
 
             // key > value, key < value, key >= value, key <= value
-            if (next.type() == TokenType.COMPARISON) {
-                return parseComparison();
+            if (next == TokenType.COMPARISON) {
+                parseComparison();
+                return;
             }
         }
 
         // Bare value (identifier, string, or number without a key)
-        advance();
-        return ClausewitzNode.bareValue(scalarOf(token));
+        if (keepsUnnamed()) {
+            bareValue(tokens.text());
+        }
+        tokens.advance();
     }
 
-    private ClausewitzNode parseKeyValue() {
-        Token keyToken = current();
-        String key = scalarOf(keyToken);
-        advance(); // key
-        advance(); // =
+    private void parseKeyValue() {
+        String key = tokens.text();
+        tokens.advance(); // key
+        tokens.advance(); // =
 
-        Token valToken = current();
+        Projection child = childProjection(key);
+        if (child == null) {
+            if (kept) {
+                skipValue();
+            } else {
+                parseStub(key);
+            }
+            return;
+        }
 
         // Block: key = { ... }
-        if (valToken.type() == TokenType.OPEN_BRACE) {
-            advance(); // {
-            var children = parseEntries();
-            expect(TokenType.CLOSE_BRACE);
-            advance(); // }
-            return ClausewitzNode.block(key, children);
+        if (tokens.type() == TokenType.OPEN_BRACE) {
+            if (depth == 0 && filter != EntryFilter.ALL && !accepts(key)) {
+                skipBlock();
+            } else {
+                parseBlock(key, child);
+            }
+            return;
         }
 
         // Scalar: key = value
@@ -98,73 +167,176 @@ public final class ClausewitzParser {
 
         // Handle value-typed blocks like: atmosphere_color = hsv { 0.5 0.3 0.7 }
         // The identifier (hsv/rgb) was parsed as the scalar value, but a block follows.
-        if (!atEnd() && current().type() == TokenType.OPEN_BRACE) {
-            advance(); // {
-            var children = parseEntries();
-            expect(TokenType.CLOSE_BRACE);
-            advance(); // }
-            return ClausewitzNode.block(key, children);
+        if (!atEnd() && tokens.type() == TokenType.OPEN_BRACE) {
+            parseBlock(key, child);
+            return;
         }
 
-        return ClausewitzNode.leaf(key, value);
+        leaf(key, value);
     }
 
-    private ClausewitzNode parseComparison() {
-        Token keyToken = current();
-        String key = scalarOf(keyToken);
-        advance(); // key
-        Token op = current();
-        advance(); // comparison operator
-        String value = parseScalarValue();
-        return ClausewitzNode.leaf(key, op.value() + " " + value);
+    private void parseBlock(String key, Projection blockProjection) {
+        tokens.advance(); // {
+        builder.beginBlock(key);
+        Projection outer = projection;
+        projection = blockProjection;
+        kept = false;
+        depth++;
+        parseEntries();
+        expect(TokenType.CLOSE_BRACE);
+        tokens.advance(); // }
+        depth--;
+        projection = outer;
+        kept = true;
+        builder.endBlock();
     }
 
-    private String parseScalarValue() {
-        Token token = current();
-        advance();
-        if (token.type() == TokenType.VARIABLE_REF) {
-            return resolveVariable(token);
+    /** Keeps an entry outside the projection as its block's placeholder: scalars as-is, blocks empty. */
+    private void parseStub(String key) {
+        if (tokens.type() != TokenType.OPEN_BRACE) {
+            String value = parseScalarValue();
+            if (atEnd() || tokens.type() != TokenType.OPEN_BRACE) {
+                leaf(key, value);
+                return;
+            }
         }
-        return scalarOf(token);
+        builder.beginBlock(key);
+        skipBlock();
+        builder.endBlock();
+        kept = true;
     }
 
-    private String resolveVariable(Token varToken) {
-        String resolved = variables.get(varToken.value());
-        if (resolved == null) {
-            throw new ParseException("Undefined variable @" + varToken.value(), varToken);
+    /** Projection for an entry of the innermost open block, or null to skip it. */
+    private Projection childProjection(String key) {
+        return depth == 0 ? schema : projection.child(key);
+    }
+
+    /** Whether a bare value in the innermost open block is materialized. */
+    private boolean keepsUnnamed() {
+        return depth == 0 || projection.isAll() || !kept;
+    }
+
+    private void leaf(String key, String value) {
+        builder.leaf(key, value);
+        kept = true;
+    }
+
+    private void bareValue(String value) {
+        builder.bareValue(value);
+        kept = true;
+    }
+
+    /** Skips the value of a {@code key =} entry: a scalar, a block, or a value-typed block. */
+    private void skipValue() {
+        if (tokens.type() != TokenType.OPEN_BRACE) {
+            tokens.advance();
+            if (atEnd() || tokens.type() != TokenType.OPEN_BRACE) return;
         }
-        return resolved;
+        skipBlock();
     }
 
-    private String scalarOf(Token token) {
-        return token.value();
+    /** Decides whether a top-level block (current token is its '{') passes the filter. */
+    private boolean accepts(String key) {
+        if (!filter.mayAccept(key)) return false;
+        if (!filter.needsChildKeys()) return true;
+        return filter.accepts(key, scanChildKeys());
     }
 
-    private boolean isKeyToken(Token token) {
-        return token.type() == TokenType.IDENTIFIER
-                || token.type() == TokenType.STRING
-                || token.type() == TokenType.NUMBER;
+    /**
+     * Collects the direct child keys of interest of the block at the current '{' and
+     * rewinds to it, so the block can then be parsed or skipped.
+     */
+    private Set<String> scanChildKeys() {
+        long mark = tokens.mark();
+        Set<String> interest = filter.childKeysOfInterest();
+        Set<String> found = new HashSet<>();
+        tokens.advance(); // {
+        int level = 1;
+        while (level > 0 && !atEnd()) {
+            switch (tokens.type()) {
+                case OPEN_BRACE -> level++;
+                case CLOSE_BRACE -> level--;
+                case IDENTIFIER, STRING, NUMBER -> {
+                    if (level == 1 && isKeyOperator(tokens.peekType()) && interest.contains(tokens.text())) {
+                        found.add(tokens.text());
+                    }
+                }
+                default -> {}
+            }
+            tokens.advance();
+        }
+        tokens.reset(mark);
+        return found;
     }
 
-    private boolean hasLookahead() {
-        return pos + 1 < tokens.size();
+    /** Skips the block at the current '{' by brace matching, keeping only variable definitions. */
+    private void skipBlock() {
+        tokens.advance(); // {
+        int level = 1;
+        while (!atEnd()) {
+            TokenType type = tokens.type();
+            if (type == TokenType.VARIABLE_DEF) {
+                String name = tokens.text();
+                tokens.advance();
+                variables.put(name, parseScalarValue());
+                continue;
+            }
+            tokens.advance();
+            if (type == TokenType.OPEN_BRACE) {
+                level++;
+            } else if (type == TokenType.CLOSE_BRACE && --level == 0) {
+                return;
+            }
+        }
+        expect(TokenType.CLOSE_BRACE);
     }
 
-    private Token current() {
-        return tokens.get(pos);
+    private void parseComparison() {
+        String key = tokens.text();
+        tokens.advance(); // key
+        if (childProjection(key) == null && kept) {
+            tokens.advance(); // comparison operator
+            tokens.advance(); // value
+            return;
+        }
+        String op = tokens.text();
+        tokens.advance(); // comparison operator
+        String value = parseScalarValue();
+        leaf(key, op + " " + value);
     }
 
-    private boolean atEnd() {
-        return pos >= tokens.size() || tokens.get(pos).type() == TokenType.EOF;
+    private String parseScalarValue() {
+        String value = tokens.type() == TokenType.VARIABLE_REF ? resolveVariable() : tokens.text();
+        tokens.advance();
+        return value;
+    }
+
+    private String resolveVariable() {
+        String name = tokens.text();
+        String resolved = variables.get(name);
+        if (resolved == null) {
+            throw new ParseException("Undefined variable @" + name, tokens.token());
+        }
+        return resolved;
+    }
+
+    private static boolean isKeyToken(TokenType type) {
+        return type == TokenType.IDENTIFIER
+                || type == TokenType.STRING
+                || type == TokenType.NUMBER;
     }
 
-    private void advance() {
-        if (!atEnd()) pos++;
+    private static boolean isKeyOperator(TokenType type) {
+        return type == TokenType.EQUALS || type == TokenType.COMPARISON;
+    }
+
+    private boolean atEnd() {
+        return tokens.type() == TokenType.EOF;
     }
 
     private void expect(TokenType type) {
-        if (current().type() != type) {
-            throw new ParseException("Expected " + type + " but got " + current().type(), current());
+        if (tokens.type() != type) {
+            throw new ParseException("Expected " + type + " but got " + tokens.type(), tokens.token());
         }
     }
 }
@@ -0,0 +1,85 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Selects which top-level blocks of a file the parser materializes.
+ * <p>
+ * A filter is a disjunction of clauses; each clause accepts a block when its key matches a
+ * predicate and every required child key occurs directly inside it. Rejected blocks are
+ * skipped by brace matching without building nodes. Top-level scalars are always kept.
+ */
+public final class EntryFilter {
+
+    public static final EntryFilter ALL = new EntryFilter(List.of(new Clause(_ -> true, Set.of())));
+
+    private record Clause(Predicate<String> keyPredicate, Set<String> requiredChildKeys) {}
+
+    private final List<Clause> clauses;
+    private final Set<String> childKeysOfInterest;
+
+    private EntryFilter(List<Clause> clauses) {
+        this.clauses = List.copyOf(clauses);
+        var keys = new HashSet<String>();
+        for (var clause : clauses) {
+            keys.addAll(clause.requiredChildKeys());
+        }
+        this.childKeysOfInterest = Set.copyOf(keys);
+    }
+
+    /** Blocks whose key matches the predicate. */
+    public static EntryFilter keys(Predicate<String> keyPredicate) {
+        return new EntryFilter(List.of(new Clause(keyPredicate, Set.of())));
+    }
+
+    /** Blocks that directly contain all of the given child keys. */
+    public static EntryFilter withChildren(String... requiredChildKeys) {
+        return of(_ -> true, requiredChildKeys);
+    }
+
+    /** Blocks whose key matches the predicate and that directly contain all of the given child keys. */
+    public static EntryFilter of(Predicate<String> keyPredicate, String... requiredChildKeys) {
+        return new EntryFilter(List.of(new Clause(keyPredicate, Set.of(requiredChildKeys))));
+    }
+
+    /** Blocks accepted by this filter or by {@code other}. */
+    public EntryFilter or(EntryFilter other) {
+        var combined = new ArrayList<>(clauses);
+        combined.addAll(other.clauses);
+        return new EntryFilter(combined);
+    }
+
+    /** Whether any clause could accept a block with this key (so it's worth scanning its children). */
+    public boolean mayAccept(String key) {
+        for (var clause : clauses) {
+            if (clause.keyPredicate().test(key)) return true;
+        }
+        return false;
+    }
+
+    /** Whether the decision depends on child keys, requiring a pre-scan of the block. */
+    public boolean needsChildKeys() {
+        return !childKeysOfInterest.isEmpty();
+    }
+
+    /** Child keys worth collecting during a pre-scan; others can be ignored. */
+    public Set<String> childKeysOfInterest() {
+        return childKeysOfInterest;
+    }
+
+    /**
+     * @param presentChildKeys the block's direct child keys (at least those of interest)
+     */
+    public boolean accepts(String key, Set<String> presentChildKeys) {
+        for (var clause : clauses) {
+            if (clause.keyPredicate().test(key) && presentChildKeys.containsAll(clause.requiredChildKeys())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
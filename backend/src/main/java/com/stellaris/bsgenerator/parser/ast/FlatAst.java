@@ -0,0 +1,220 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Compact AST stored as parallel {@code int} columns instead of a record tree.
+ * <p>
+ * Node {@code i} is described by its key symbol, value symbol, first child and next sibling,
+ * each kept in its own column ({@link #NONE} when absent). Symbols index the
+ * {@link SymbolTable} snapshot taken when the tree was built. Columns live on the heap
+ * ({@code int[]}-backed segments) or, when the builder is given an {@link Arena}, off-heap.
+ * Node 0 is the root; {@link FlatNode} is the cursor type exposing the {@link AstNode} API.
+ */
+public final class FlatAst {
+
+    public static final int NONE = -1;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+
+    private final String[] symbols;
+    private final MemorySegment keys;
+    private final MemorySegment values;
+    private final MemorySegment firstChildren;
+    private final MemorySegment nextSiblings;
+    private final int size;
+
+    private FlatAst(String[] symbols, MemorySegment keys, MemorySegment values,
+                    MemorySegment firstChildren, MemorySegment nextSiblings, int size) {
+        this.symbols = symbols;
+        this.keys = keys;
+        this.values = values;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.size = size;
+    }
+
+    /**
+     * @param symbols table to intern keys and values through (shared with the lexer)
+     * @param arena   arena to allocate the columns in, or {@code null} for the Java heap
+     */
+    public static Builder builder(SymbolTable symbols, Arena arena) {
+        return new Builder(symbols, arena);
+    }
+
+    public FlatNode root() {
+        return new FlatNode(this, 0);
+    }
+
+    /** Number of nodes, including the root. */
+    public int size() {
+        return size;
+    }
+
+    /** Bytes held by the node columns (excluding the symbol strings). */
+    public long byteSize() {
+        return keys.byteSize() + values.byteSize() + firstChildren.byteSize() + nextSiblings.byteSize();
+    }
+
+    int keySymbol(int node) {
+        return keys.getAtIndex(INT, node);
+    }
+
+    int valueSymbol(int node) {
+        return values.getAtIndex(INT, node);
+    }
+
+    int firstChild(int node) {
+        return firstChildren.getAtIndex(INT, node);
+    }
+
+    int nextSibling(int node) {
+        return nextSiblings.getAtIndex(INT, node);
+    }
+
+    String symbol(int id) {
+        return id == NONE ? null : symbols[id];
+    }
+
+    /**
+     * Appends nodes in document order, linking each one to its parent's last child.
+     */
+    public static final class Builder implements AstBuilder<FlatNode> {
+
+        private final SymbolTable symbols;
+        private final Arena arena;
+
+        private MemorySegment keys;
+        private MemorySegment values;
+        private MemorySegment firstChildren;
+        private MemorySegment nextSiblings;
+        private int capacity;
+        private int size;
+
+        // Open blocks (index 0 is the root) and the last child appended to each
+        private int[] openNodes = new int[32];
+        private int[] lastChildren = new int[32];
+        private int depth;
+
+        private int markedLastChild = NONE;
+
+        private Builder(SymbolTable symbols, Arena arena) {
+            this.symbols = symbols;
+            this.arena = arena;
+            this.capacity = 1024;
+            this.keys = allocate(capacity);
+            this.values = allocate(capacity);
+            this.firstChildren = allocate(capacity);
+            this.nextSiblings = allocate(capacity);
+
+            int root = append(NONE, NONE);
+            openNodes[0] = root;
+            lastChildren[0] = NONE;
+            depth = 1;
+        }
+
+        @Override
+        public void leaf(String key, String value) {
+            link(append(symbols.idOf(key), symbols.idOf(value)));
+        }
+
+        @Override
+        public void bareValue(String value) {
+            link(append(NONE, symbols.idOf(value)));
+        }
+
+        @Override
+        public void beginBlock(String key) {
+            int node = append(symbols.idOf(key), NONE);
+            link(node);
+            if (depth == openNodes.length) {
+                openNodes = Arrays.copyOf(openNodes, depth * 2);
+                lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+            }
+            openNodes[depth] = node;
+            lastChildren[depth] = NONE;
+            depth++;
+        }
+
+        @Override
+        public void endBlock() {
+            depth--;
+        }
+
+        @Override
+        public int mark() {
+            markedLastChild = lastChildren[0];
+            return size;
+        }
+
+        @Override
+        public void rollback(int mark) {
+            size = mark;
+            depth = 1;
+            lastChildren[0] = markedLastChild;
+            if (markedLastChild == NONE) {
+                firstChildren.setAtIndex(INT, 0, NONE);
+            } else {
+                nextSiblings.setAtIndex(INT, markedLastChild, NONE);
+            }
+        }
+
+        @Override
+        public FlatNode build() {
+            String[] snapshot = new String[symbols.size()];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = symbols.symbol(i);
+            }
+            // Trim the columns to the node count so spare capacity isn't retained
+            return new FlatAst(snapshot, copy(keys, size), copy(values, size),
+                    copy(firstChildren, size), copy(nextSiblings, size), size).root();
+        }
+
+        private int append(int key, int value) {
+            if (size == capacity) grow();
+            int node = size++;
+            keys.setAtIndex(INT, node, key);
+            values.setAtIndex(INT, node, value);
+            firstChildren.setAtIndex(INT, node, NONE);
+            nextSiblings.setAtIndex(INT, node, NONE);
+            return node;
+        }
+
+        private void link(int node) {
+            int top = depth - 1;
+            int last = lastChildren[top];
+            if (last == NONE) {
+                firstChildren.setAtIndex(INT, openNodes[top], node);
+            } else {
+                nextSiblings.setAtIndex(INT, last, node);
+            }
+            lastChildren[top] = node;
+        }
+
+        private void grow() {
+            int newCapacity = capacity * 2;
+            keys = copy(keys, newCapacity);
+            values = copy(values, newCapacity);
+            firstChildren = copy(firstChildren, newCapacity);
+            nextSiblings = copy(nextSiblings, newCapacity);
+            capacity = newCapacity;
+        }
+
+        private MemorySegment copy(MemorySegment column, int newCapacity) {
+            MemorySegment grown = allocate(newCapacity);
+            MemorySegment.copy(column, 0, grown, 0, (long) size * Integer.BYTES);
+            return grown;
+        }
+
+        private MemorySegment allocate(int count) {
+            return arena != null
+                    ? arena.allocate((long) count * Integer.BYTES, Integer.BYTES)
+                    : MemorySegment.ofArray(new int[count]);
+        }
+    }
+}
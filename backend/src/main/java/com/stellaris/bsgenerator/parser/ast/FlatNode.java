@@ -0,0 +1,133 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cursor onto one node of a {@link FlatAst}.
+ * <p>
+ * Lookups walk the sibling chain directly; {@link #children()} materializes a list of
+ * cursors and is only needed for full iteration.
+ */
+public final class FlatNode implements AstNode {
+
+    private final FlatAst ast;
+    private final int index;
+
+    FlatNode(FlatAst ast, int index) {
+        this.ast = ast;
+        this.index = index;
+    }
+
+    @Override
+    public String key() {
+        return ast.symbol(ast.keySymbol(index));
+    }
+
+    @Override
+    public String value() {
+        return ast.symbol(ast.valueSymbol(index));
+    }
+
+    /** First child, or null if this node has none. */
+    public FlatNode firstChild() {
+        return at(ast.firstChild(index));
+    }
+
+    /** Next sibling in document order, or null if this is the last child. */
+    public FlatNode nextSibling() {
+        return at(ast.nextSibling(index));
+    }
+
+    @Override
+    public List<FlatNode> children() {
+        int child = ast.firstChild(index);
+        if (child == FlatAst.NONE) return List.of();
+        var children = new ArrayList<FlatNode>();
+        for (; child != FlatAst.NONE; child = ast.nextSibling(child)) {
+            children.add(new FlatNode(ast, child));
+        }
+        return children;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return ast.valueSymbol(index) != FlatAst.NONE && ast.firstChild(index) == FlatAst.NONE;
+    }
+
+    @Override
+    public boolean isBlock() {
+        return ast.valueSymbol(index) == FlatAst.NONE && ast.firstChild(index) != FlatAst.NONE;
+    }
+
+    @Override
+    public boolean isBareValue() {
+        return ast.keySymbol(index) == FlatAst.NONE && ast.valueSymbol(index) != FlatAst.NONE;
+    }
+
+    @Override
+    public FlatNode findChild(String childKey) {
+        return at(find(childKey));
+    }
+
+    @Override
+    public Optional<FlatNode> child(String childKey) {
+        return Optional.ofNullable(findChild(childKey));
+    }
+
+    @Override
+    public List<FlatNode> children(String childKey) {
+        var matches = new ArrayList<FlatNode>();
+        for (int child = ast.firstChild(index); child != FlatAst.NONE; child = ast.nextSibling(child)) {
+            if (childKey.equals(ast.symbol(ast.keySymbol(child)))) {
+                matches.add(new FlatNode(ast, child));
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public String childValue(String childKey, String defaultValue) {
+        int child = find(childKey);
+        String value = child == FlatAst.NONE ? null : ast.symbol(ast.valueSymbol(child));
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public List<String> bareValues() {
+        var values = new ArrayList<String>();
+        for (int child = ast.firstChild(index); child != FlatAst.NONE; child = ast.nextSibling(child)) {
+            if (ast.keySymbol(child) == FlatAst.NONE && ast.valueSymbol(child) != FlatAst.NONE) {
+                values.add(ast.symbol(ast.valueSymbol(child)));
+            }
+        }
+        return values;
+    }
+
+    private int find(String childKey) {
+        for (int child = ast.firstChild(index); child != FlatAst.NONE; child = ast.nextSibling(child)) {
+            if (childKey.equals(ast.symbol(ast.keySymbol(child)))) return child;
+        }
+        return FlatAst.NONE;
+    }
+
+    private FlatNode at(int node) {
+        return node == FlatAst.NONE ? null : new FlatNode(ast, node);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FlatNode other && other.ast == ast && other.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(ast) * 31 + index;
+    }
+
+    @Override
+    public String toString() {
+        return "FlatNode[key=" + key() + ", value=" + value() + "]";
+    }
+}
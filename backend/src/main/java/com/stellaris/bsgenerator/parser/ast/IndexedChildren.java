@@ -0,0 +1,69 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable child list of a wide block with a lazily built key → children index,
+ * so repeated {@code child(key)} lookups are O(1) instead of a scan over the block.
+ */
+final class IndexedChildren extends AbstractList<ClausewitzNode> implements RandomAccess {
+
+    /** Blocks with at most this many children are scanned linearly. */
+    static final int THRESHOLD = 8;
+
+    private final ClausewitzNode[] elements;
+    private volatile Map<String, List<ClausewitzNode>> index;
+
+    private IndexedChildren(ClausewitzNode[] elements) {
+        this.elements = elements;
+    }
+
+    static List<ClausewitzNode> wrap(List<ClausewitzNode> children) {
+        if (children == null || children.size() <= THRESHOLD || children instanceof IndexedChildren) {
+            return children;
+        }
+        return new IndexedChildren(children.toArray(ClausewitzNode[]::new));
+    }
+
+    @Override
+    public ClausewitzNode get(int i) {
+        return elements[i];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    /** First child with the given key, or null. */
+    ClausewitzNode first(String key) {
+        List<ClausewitzNode> matches = index().get(key);
+        return matches != null ? matches.getFirst() : null;
+    }
+
+    /** All children with the given key, in document order. */
+    List<ClausewitzNode> all(String key) {
+        return index().getOrDefault(key, List.of());
+    }
+
+    private Map<String, List<ClausewitzNode>> index() {
+        var built = index;
+        if (built == null) {
+            // Racing threads may each build an identical index; the last write wins
+            var grouped = new HashMap<String, List<ClausewitzNode>>();
+            for (var child : elements) {
+                if (child.key() != null) {
+                    grouped.computeIfAbsent(child.key(), _ -> new ArrayList<>(1)).add(child);
+                }
+            }
+            grouped.replaceAll((_, list) -> List.copyOf(list));
+            index = built = grouped;
+        }
+        return built;
+    }
+}
@@ -0,0 +1,37 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Root whose children are the top-level entries of several trees, in order. The entries are
+ * shared rather than copied, so a category merged from per-file trees of any backend doesn't
+ * hold its AST twice.
+ */
+public final class MergedRoot implements AstNode {
+
+    private final List<AstNode> children;
+
+    public MergedRoot(Iterable<? extends AstNode> roots) {
+        var entries = new ArrayList<AstNode>();
+        for (AstNode root : roots) {
+            entries.addAll(root.children());
+        }
+        this.children = List.copyOf(entries);
+    }
+
+    @Override
+    public String key() {
+        return null;
+    }
+
+    @Override
+    public String value() {
+        return null;
+    }
+
+    @Override
+    public List<AstNode> children() {
+        return children;
+    }
+}
@@ -0,0 +1,66 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie of dotted field paths selecting which parts of a block the parser materializes,
+ * e.g. {@code cost.base}, {@code opposites} or {@code possible.*}.
+ * <p>
+ * A path ending in a key (or in {@code *}) keeps that entry's whole subtree; intermediate keys
+ * keep only the entries named below them. Everything else is skipped by brace matching.
+ */
+public final class Projection {
+
+    /** Keeps every entry at every depth. */
+    public static final Projection ALL = new Projection(null);
+
+    /** Child projections by key; null means the whole subtree is kept. */
+    private final Map<String, Projection> children;
+
+    private Projection(Map<String, Projection> children) {
+        this.children = children;
+    }
+
+    public static Projection of(String... paths) {
+        Projection result = new Projection(Map.of());
+        for (String path : paths) {
+            result = result.union(path(path.split("\\."), 0));
+        }
+        return result;
+    }
+
+    private static Projection path(String[] segments, int index) {
+        if (index == segments.length || segments[index].equals("*")) {
+            if (index < segments.length - 1) {
+                throw new IllegalArgumentException("'*' must be the last path segment: " + String.join(".", segments));
+            }
+            return ALL;
+        }
+        return new Projection(Map.of(segments[index], path(segments, index + 1)));
+    }
+
+    /** Projection for the entries under {@code key}, or null if they are not materialized. */
+    public Projection child(String key) {
+        return children == null ? this : children.get(key);
+    }
+
+    public boolean isAll() {
+        return children == null;
+    }
+
+    /** Keeps everything either projection keeps. */
+    public Projection union(Projection other) {
+        if (isAll() || other.isAll()) return ALL;
+        var merged = new HashMap<>(children);
+        other.children.forEach((key, projection) -> merged.merge(key, projection, Projection::union));
+        return new Projection(Map.copyOf(merged));
+    }
+
+    /** Canonical form with keys in sorted order, stable across runs. */
+    @Override
+    public String toString() {
+        return isAll() ? "*" : new TreeMap<>(children).toString();
+    }
+}
@@ -0,0 +1,224 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.parser.ast.AstBuilder;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.loader.ParsedFile;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Compact binary encoding of parsed ASTs for {@link ParsedDataCache}.
+ * <p>
+ * Layout: magic, format version, fingerprint, a symbol table holding every distinct key and
+ * value once, then named sections of one {@link ParsedFile} each: its stamp and its tree. Integers are unsigned LEB128 varints and
+ * strings are length-prefixed UTF-8. A node is its kind followed by symbol references
+ * ({@code 0} for null, otherwise id + 1) and, for blocks, the child count and the children.
+ * Decoding reads straight from a (typically memory-mapped) segment into any {@link AstBuilder}.
+ */
+final class AstCodec {
+
+    /** "SBGC" */
+    private static final int MAGIC = 0x53424743;
+    /** Bump when the layout changes; older files then fail to decode and are re-parsed. */
+    static final int VERSION = 2;
+
+    private static final int LEAF = 0;
+    private static final int BARE_VALUE = 1;
+    private static final int BLOCK = 2;
+
+    private AstCodec() {}
+
+    record Decoded(String fingerprint, Map<String, ParsedFile> sections) {}
+
+    static byte[] encode(String fingerprint, Map<String, ParsedFile> sections) {
+        var encoder = new Encoder();
+        for (var section : sections.values()) {
+            encoder.collect(section.root());
+        }
+
+        var out = encoder.out;
+        out.write(MAGIC >>> 24);
+        out.write(MAGIC >>> 16);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC);
+        encoder.varint(VERSION);
+        encoder.string(fingerprint);
+        encoder.varint(encoder.symbols.size());
+        for (String symbol : encoder.symbols.keySet()) {
+            encoder.string(symbol);
+        }
+        encoder.varint(sections.size());
+        for (var section : sections.entrySet()) {
+            AstNode root = section.getValue().root();
+            encoder.string(section.getKey());
+            encoder.string(section.getValue().stamp());
+            encoder.varint(root.children().size());
+            for (var child : root.children()) {
+                encoder.node(child);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param builders supplies a fresh builder per section, selecting the AST backend
+     * @throws IllegalArgumentException if the data isn't a cache file of this version
+     */
+    static Decoded decode(MemorySegment in, Supplier<? extends AstBuilder<?>> builders) {
+        var decoder = new Decoder(in);
+        if (in.byteSize() < 4 || decoder.int32() != MAGIC) {
+            throw new IllegalArgumentException("Not an AST cache file");
+        }
+        int version = decoder.varint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported AST cache version " + version);
+        }
+        String fingerprint = decoder.string();
+        decoder.symbols = new String[decoder.bounded(decoder.varint())];
+        for (int i = 0; i < decoder.symbols.length; i++) {
+            decoder.symbols[i] = decoder.string();
+        }
+
+        int sectionCount = decoder.varint();
+        var sections = new LinkedHashMap<String, ParsedFile>();
+        for (int i = 0; i < sectionCount; i++) {
+            String name = decoder.string();
+            String stamp = decoder.string();
+            AstBuilder<?> builder = builders.get();
+            decoder.children(decoder.varint(), builder);
+            sections.put(name, new ParsedFile(stamp, builder.build()));
+        }
+        return new Decoded(fingerprint, sections);
+    }
+
+    private static final class Encoder {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        final Map<String, Integer> symbols = new LinkedHashMap<>();
+
+        void collect(AstNode node) {
+            symbol(node.key());
+            symbol(node.value());
+            for (var child : node.children()) {
+                collect(child);
+            }
+        }
+
+        private void symbol(String text) {
+            if (text != null) {
+                symbols.putIfAbsent(text, symbols.size());
+            }
+        }
+
+        void node(AstNode node) {
+            if (node.key() == null) {
+                varint(BARE_VALUE);
+                ref(node.value());
+            } else if (node.value() != null && node.children().isEmpty()) {
+                varint(LEAF);
+                ref(node.key());
+                ref(node.value());
+            } else {
+                varint(BLOCK);
+                ref(node.key());
+                varint(node.children().size());
+                for (var child : node.children()) {
+                    node(child);
+                }
+            }
+        }
+
+        private void ref(String text) {
+            varint(text == null ? 0 : symbols.get(text) + 1);
+        }
+
+        void string(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+
+    private static final class Decoder {
+        private final MemorySegment in;
+        private long pos;
+        String[] symbols;
+
+        Decoder(MemorySegment in) {
+            this.in = in;
+        }
+
+        void children(int count, AstBuilder<?> builder) {
+            for (int i = 0; i < count; i++) {
+                int kind = varint();
+                switch (kind) {
+                    case LEAF -> builder.leaf(ref(), ref());
+                    case BARE_VALUE -> builder.bareValue(ref());
+                    case BLOCK -> {
+                        builder.beginBlock(ref());
+                        children(varint(), builder);
+                        builder.endBlock();
+                    }
+                    default -> throw new IllegalArgumentException("Unknown node kind " + kind + " at " + pos);
+                }
+            }
+        }
+
+        private String ref() {
+            int id = varint();
+            return id == 0 ? null : symbols[id - 1];
+        }
+
+        int int32() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (in.get(JAVA_BYTE, pos++) & 0xFF);
+            }
+            return value;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = in.get(JAVA_BYTE, pos++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint at " + pos);
+        }
+
+        /**
+         * A count or length read from the input, checked against the bytes left (each item takes
+         * at least one) before anything is allocated for it, so a corrupt cache file fails with
+         * an exception rather than an OutOfMemoryError.
+         */
+        int bounded(int size) {
+            if (size < 0 || size > in.byteSize() - pos) {
+                throw new IllegalArgumentException("Size " + size + " at " + pos + " exceeds the remaining input");
+            }
+            return size;
+        }
+
+        String string() {
+            int length = bounded(varint());
+            byte[] bytes = new byte[length];
+            MemorySegment.copy(in, JAVA_BYTE, pos, bytes, 0, length);
+            pos += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a set of directories (not their subdirectories) on a daemon thread and reports the
+ * paths that changed once no further event has arrived for a quiet period, so that a burst of
+ * changes (e.g. Steam patching the game) is reported once.
+ */
+@Slf4j
+final class DirectoryWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Duration quietPeriod;
+    private final Consumer<Set<Path>> onSettled;
+
+    /**
+     * @param directories directories to watch; missing ones are ignored
+     * @param onSettled   receives the changed paths (a directory itself after an event overflow)
+     */
+    DirectoryWatcher(Collection<Path> directories, Duration quietPeriod, Consumer<Set<Path>> onSettled)
+            throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.quietPeriod = quietPeriod;
+        this.onSettled = onSettled;
+        for (Path directory : directories) {
+            if (Files.isDirectory(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+        Thread.ofPlatform().daemon().name("game-file-watcher").start(this::run);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                var changed = new LinkedHashSet<Path>();
+                collect(watchService.take(), changed);
+                // Keep collecting until the burst settles
+                WatchKey key;
+                while ((key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                try {
+                    onSettled.accept(changed);
+                } catch (RuntimeException e) {
+                    log.warn("Handling changed game files failed: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private static void collect(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.add(directory);
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
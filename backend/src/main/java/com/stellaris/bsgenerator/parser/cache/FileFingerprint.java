@@ -1,45 +1,52 @@
 package com.stellaris.bsgenerator.parser.cache;
 
+import com.stellaris.bsgenerator.parser.loader.GameFileScan;
+
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HexFormat;
 import java.util.List;
-import java.util.stream.Stream;
 
 public final class FileFingerprint {
 
     private FileFingerprint() {}
 
+    /** Fingerprints the {@code .txt} files of the given directories under {@code common/}. */
     public static String compute(Path gamePath, List<String> subdirectories) throws IOException {
-        var entries = new ArrayList<String>();
-        Path common = gamePath.resolve("common");
-
-        for (String subdir : subdirectories) {
-            Path dir = common.resolve(subdir);
-            if (!Files.isDirectory(dir)) continue;
-
-            try (Stream<Path> stream = Files.list(dir)) {
-                stream
-                    .filter(p -> p.toString().endsWith(".txt"))
-                    .sorted()
-                    .forEach(p -> {
-                        try {
-                            String relativePath = gamePath.relativize(p).toString();
-                            long lastModified = Files.getLastModifiedTime(p).toMillis();
-                            long size = Files.size(p);
-                            entries.add(relativePath + ":" + lastModified + ":" + size);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-            }
+        return compute(gamePath, subdirectories.stream().map(subdir -> "common/" + subdir).toList(), ".txt");
+    }
+
+    /**
+     * Fingerprints the files ending in {@code suffix} in the given directories, relative to
+     * {@code gamePath}, by path, modification time and size.
+     */
+    public static String compute(Path gamePath, List<String> directories, String suffix) throws IOException {
+        var files = new ArrayList<GameFileScan.Entry>();
+        for (String directory : directories) {
+            files.addAll(GameFileScan.list(gamePath.resolve(directory), suffix));
         }
+        return hash(gamePath, files);
+    }
 
+    /** Fingerprints the given directories of a scan, without touching the file system again. */
+    public static String compute(GameFileScan scan, List<String> directories) {
+        var files = new ArrayList<GameFileScan.Entry>();
+        for (String directory : directories) {
+            files.addAll(scan.files(directory));
+        }
+        return hash(scan.gamePath(), files);
+    }
+
+    private static String hash(Path gamePath, List<GameFileScan.Entry> files) {
+        var entries = new ArrayList<String>(files.size());
+        for (var file : files) {
+            String relativePath = gamePath.relativize(file.path()).toString();
+            entries.add(relativePath + ":" + file.lastModified() + ":" + file.size());
+        }
         entries.sort(String::compareTo);
 
         try {
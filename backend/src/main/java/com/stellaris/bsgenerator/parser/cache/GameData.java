@@ -0,0 +1,46 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.model.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything {@link GameDataManager} has loaded, published as a whole so that readers see either
+ * the data before a reload or after it, never a mix of the two.
+ */
+public record GameData(
+        GameVersion gameVersion,
+        List<Ethic> ethics,
+        List<Authority> authorities,
+        List<Civic> civics,
+        List<Origin> origins,
+        List<SpeciesArchetype> speciesArchetypes,
+        List<SpeciesTrait> speciesTraits,
+        List<PlanetClass> planetClasses,
+        List<GraphicalCulture> graphicalCultures,
+        List<StartingRulerTrait> startingRulerTraits,
+        List<SpeciesClass> speciesClasses,
+        Map<String, String> leaderTraitGfxMap,
+        Map<String, String> allTraitIconPaths,
+        Map<String, String> localizations
+) {
+
+    /** Nothing loaded yet. */
+    static final GameData EMPTY = new GameData(null, null, null, null, null, null, null, null, null, null, null,
+            null, null, Map.of());
+
+    static GameData of(GameVersion gameVersion, GameDataSnapshot snapshot) {
+        return new GameData(gameVersion, snapshot.ethics(), snapshot.authorities(), snapshot.civics(),
+                snapshot.origins(), snapshot.speciesArchetypes(), snapshot.speciesTraits(), snapshot.planetClasses(),
+                snapshot.graphicalCultures(), snapshot.startingRulerTraits(), snapshot.speciesClasses(),
+                snapshot.leaderTraitGfxMap(), snapshot.allTraitIconPaths(), snapshot.localizations());
+    }
+
+    /** The extracted model, as persisted for the next warm start. */
+    GameDataSnapshot snapshot() {
+        return new GameDataSnapshot(ethics, authorities, civics, origins, speciesArchetypes, speciesTraits,
+                planetClasses, graphicalCultures, startingRulerTraits, speciesClasses, leaderTraitGfxMap,
+                allTraitIconPaths, localizations);
+    }
+}
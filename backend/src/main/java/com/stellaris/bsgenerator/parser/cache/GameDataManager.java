@@ -6,7 +6,12 @@ import com.stellaris.bsgenerator.icon.IconService;
 import com.stellaris.bsgenerator.icon.LeaderTraitGfxParser;
 import com.stellaris.bsgenerator.model.*;
 import com.stellaris.bsgenerator.parser.LocalizationService;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.loader.GameCategory;
+import com.stellaris.bsgenerator.parser.loader.GameFileScan;
 import com.stellaris.bsgenerator.parser.loader.GameFileService;
+import com.stellaris.bsgenerator.parser.loader.LoadProgress;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,10 +21,29 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -30,17 +54,33 @@ public class GameDataManager {
 
     @Getter private volatile DataStatus dataStatus = DataStatus.LOADING;
     @Getter private volatile String dataError = null;
+    /**
+     * Why the latest reload failed, or null if it succeeded. Unlike {@link #dataError}, also set
+     * when the data from before the reload keeps being served.
+     */
+    @Getter private volatile String reloadError = null;
 
-    private static final List<String> PARSED_SUBDIRECTORIES = List.of(
-            "ethics",
-            "governments/authorities",
-            "governments/civics",
-            "species_archetypes",
-            "traits",
-            "planet_classes",
-            "graphical_culture",
-            "species_classes"
-    );
+    /** Directories whose contents the cached ASTs depend on, scripted variables included. */
+    private static final List<String> PARSED_DIRECTORIES = Stream.concat(
+                    Stream.of(GameFileScan.SCRIPTED_VARIABLES),
+                    Arrays.stream(GameCategory.values()).map(GameFileScan::directory))
+            .toList();
+
+    private static final String LOCALISATION_PHASE = "localisation";
+    private static final String LEADER_TRAIT_GFX_PHASE = "leader_trait_gfx";
+    /** Phases of a load in {@link LoadProgress}, in the order they are reported. */
+    private static final List<String> LOAD_PHASES = Stream.of(
+                    Stream.of(GameFileService.SCRIPTED_VARIABLES),
+                    Arrays.stream(GameCategory.values()).map(GameCategory::subdirectory),
+                    Stream.of(LOCALISATION_PHASE, LEADER_TRAIT_GFX_PHASE))
+            .flatMap(phase -> phase)
+            .toList();
+
+    /** Changes whenever a category's projection does, since the cache holds projected trees. */
+    private static final String SCHEMA_FINGERPRINT = Integer.toHexString(Arrays.stream(GameCategory.values())
+            .map(category -> category.subdirectory() + "=" + category.projection())
+            .toList()
+            .hashCode());
 
     private final SettingsService settingsService;
     private final GameFileService gameFileService;
@@ -59,147 +99,616 @@ public class GameDataManager {
 
     private IconService iconService;
 
+    /** The published data, replaced as a whole once a load completes. */
+    private final AtomicReference<GameData> current = new AtomicReference<>(GameData.EMPTY);
+    /**
+     * Partial data of a load of a new game path, rebuilt as each category is extracted; null
+     * otherwise. Only read by {@link #withReadyGameData}, as its other categories are still null.
+     */
+    private final AtomicReference<GameData> progressiveData = new AtomicReference<>();
+    /** Data pinned by {@link #withGameData} for the current thread. */
+    private final ThreadLocal<GameData> pinned = new ThreadLocal<>();
+
+    /** Runs reloads one at a time, off the request threads. */
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("game-data-reload").daemon().factory());
+    private final Object reloadLock = new Object();
+    /** Reload waiting for the executor; later requests for the same game path share it. */
+    private ReloadJob queuedReload;
+    private ReloadJob runningReload;
+
+    /**
+     * Input fingerprint of each category the published models were extracted from, to skip
+     * re-extracting unchanged ones. Built from file stamps, so it holds whether or not the ASTs
+     * are retained.
+     */
+    private Map<GameCategory, String> extractedInputs = Map.of();
+    /** Localization and leader trait GFX fingerprint of the published data. */
+    private String loadedPresentationFingerprint;
+    /** Game path the published data was loaded from. */
+    private volatile Path loadedGamePath;
+
+    /** Progress of the latest load. */
+    @Getter private volatile LoadProgress loadProgress = new LoadProgress(LOAD_PHASES);
+    /**
+     * Completes for each category once its models are available for the current game path. While
+     * nothing of that path is published, a load makes categories available one by one as they are
+     * extracted, through {@link #withReadyGameData}, before localization and leader trait GFX.
+     */
+    private volatile Map<GameCategory, CompletableFuture<Void>> readiness = newReadiness();
+
     @Lazy
     @org.springframework.beans.factory.annotation.Autowired
     public void setIconService(IconService iconService) {
         this.iconService = iconService;
     }
 
-    @Getter private GameVersion gameVersion;
-    @Getter private List<Ethic> ethics;
-    @Getter private List<Authority> authorities;
-    @Getter private List<Civic> civics;
-    @Getter private List<Origin> origins;
-    @Getter private List<SpeciesArchetype> speciesArchetypes;
-    @Getter private List<SpeciesTrait> speciesTraits;
-    @Getter private List<PlanetClass> planetClasses;
-    @Getter private List<GraphicalCulture> graphicalCultures;
-    @Getter private List<StartingRulerTrait> startingRulerTraits;
-    @Getter private List<SpeciesClass> speciesClasses;
-    @Getter private Map<String, String> leaderTraitGfxMap;
-    @Getter private Map<String, String> allTraitIconPaths;
+    /** A queued or running reload. */
+    private static final class ReloadJob {
+        private final Path gamePath;
+        private final CompletableFuture<Void> done;
+        /** Whether to bypass the snapshot; set while queued if any request asks for it. */
+        private boolean force;
+        private volatile boolean cancelled;
+
+        private ReloadJob(Path gamePath, boolean force, CompletableFuture<Void> done) {
+            this.gamePath = gamePath;
+            this.force = force;
+            this.done = done;
+        }
+    }
+
+    /**
+     * The published data, or the data pinned by an enclosing {@link #withGameData} call. Never
+     * null; its fields are null until the first load completes.
+     */
+    public GameData getGameData() {
+        GameData data = pinned.get();
+        return data != null ? data : current.get();
+    }
+
+    /**
+     * Runs {@code action} with every read through this manager on the current thread seeing the
+     * same {@link GameData}, even if a reload is published meanwhile. Nested calls share the
+     * outermost pin.
+     */
+    public <T> T withGameData(Supplier<T> action) {
+        if (pinned.get() != null) {
+            return action.get();
+        }
+        return withPinned(current.get(), action);
+    }
+
+    /**
+     * Like {@link #withGameData}, but while a load of a new game path is extracting categories
+     * one by one, pins its partial data instead of the published data. Only for callers that
+     * waited with {@link #whenReady} for every category they read: the others are still null.
+     */
+    public <T> T withReadyGameData(Supplier<T> action) {
+        if (pinned.get() != null) {
+            return action.get();
+        }
+        GameData partial = progressiveData.get();
+        return withPinned(partial != null ? partial : current.get(), action);
+    }
+
+    private <T> T withPinned(GameData data, Supplier<T> action) {
+        pinned.set(data);
+        try {
+            return action.get();
+        } finally {
+            pinned.remove();
+        }
+    }
+
+    public GameVersion getGameVersion() { return getGameData().gameVersion(); }
+    public List<Ethic> getEthics() { return getGameData().ethics(); }
+    public List<Authority> getAuthorities() { return getGameData().authorities(); }
+    public List<Civic> getCivics() { return getGameData().civics(); }
+    public List<Origin> getOrigins() { return getGameData().origins(); }
+    public List<SpeciesArchetype> getSpeciesArchetypes() { return getGameData().speciesArchetypes(); }
+    public List<SpeciesTrait> getSpeciesTraits() { return getGameData().speciesTraits(); }
+    public List<PlanetClass> getPlanetClasses() { return getGameData().planetClasses(); }
+    public List<GraphicalCulture> getGraphicalCultures() { return getGameData().graphicalCultures(); }
+    public List<StartingRulerTrait> getStartingRulerTraits() { return getGameData().startingRulerTraits(); }
+    public List<SpeciesClass> getSpeciesClasses() { return getGameData().speciesClasses(); }
+    public Map<String, String> getLeaderTraitGfxMap() { return getGameData().leaderTraitGfxMap(); }
+    public Map<String, String> getAllTraitIconPaths() { return getGameData().allTraitIconPaths(); }
+
+    /**
+     * Completes once all of {@code categories} are available for the current game path, see
+     * {@link #withReadyGameData}.
+     */
+    public CompletableFuture<Void> whenReady(Collection<GameCategory> categories) {
+        Map<GameCategory, CompletableFuture<Void>> ready = readiness;
+        return CompletableFuture.allOf(categories.stream().map(ready::get).toArray(CompletableFuture[]::new));
+    }
+
+    /** Categories whose models are available for the current game path. */
+    public Set<GameCategory> getReadyCategories() {
+        var ready = EnumSet.noneOf(GameCategory.class);
+        readiness.forEach((category, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) ready.add(category);
+        });
+        return ready;
+    }
+
+    private static Map<GameCategory, CompletableFuture<Void>> newReadiness() {
+        var readiness = new EnumMap<GameCategory, CompletableFuture<Void>>(GameCategory.class);
+        for (GameCategory category : GameCategory.values()) {
+            readiness.put(category, new CompletableFuture<>());
+        }
+        return Collections.unmodifiableMap(readiness);
+    }
+
+    /**
+     * Starts readiness over for a load of a new game path. Categories that are done get new
+     * futures; requests waiting on one that isn't keep waiting, now for that load.
+     */
+    private void restartReadiness() {
+        var restarted = new EnumMap<GameCategory, CompletableFuture<Void>>(GameCategory.class);
+        readiness.forEach((category, ready) ->
+                restarted.put(category, ready.isDone() ? new CompletableFuture<>() : ready));
+        readiness = Collections.unmodifiableMap(restarted);
+    }
+
+    /** Whether a reload is queued or running; the published data keeps being served meanwhile. */
+    public boolean isReloading() {
+        synchronized (reloadLock) {
+            return queuedReload != null || runningReload != null;
+        }
+    }
 
     @EventListener(ApplicationReadyEvent.class)
     public void onStartup() {
-        try {
-            String effectivePath = settingsService.getEffectiveGamePath();
-            Path gamePath = Path.of(effectivePath);
-            if (!Files.isDirectory(gamePath)) {
-                dataStatus = DataStatus.ERROR;
-                dataError = "Game path does not exist or is not a directory: " + gamePath;
-                log.error(dataError);
-                return;
+        Path gamePath = Path.of(settingsService.getEffectiveGamePath());
+        if (!Files.isDirectory(gamePath)) {
+            dataStatus = DataStatus.ERROR;
+            dataError = "Game path does not exist or is not a directory: " + gamePath;
+            log.error(dataError);
+            return;
+        }
+        requestReload(false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues a reload of the configured game path and returns its completion. Requests made while
+     * one is queued share it, so a burst of them costs a single reload. A running reload of a
+     * different game path (the settings changed) is cancelled and never published.
+     * <p>
+     * The published data keeps being served until the reload completes. The status only goes to
+     * {@link DataStatus#LOADING} when that data isn't from the requested game path.
+     *
+     * @param forceReload whether to bypass the snapshot of the extracted model
+     */
+    public CompletableFuture<Void> requestReload(boolean forceReload) {
+        Path gamePath = Path.of(settingsService.getEffectiveGamePath());
+        synchronized (reloadLock) {
+            if (runningReload != null && !runningReload.gamePath.equals(gamePath)) {
+                log.info("Game path changed — cancelling reload of {}", runningReload.gamePath);
+                runningReload.cancelled = true;
             }
-            loadGameData(false);
+            if (queuedReload != null && queuedReload.gamePath.equals(gamePath)) {
+                queuedReload.force |= forceReload;
+                return queuedReload.done;
+            }
+            // A queued reload of another game path is superseded; whoever waits for it gets this one
+            var done = queuedReload != null ? queuedReload.done : new CompletableFuture<Void>();
+            queuedReload = new ReloadJob(gamePath, forceReload, done);
+            if (!gamePath.equals(loadedGamePath)) {
+                dataStatus = DataStatus.LOADING;
+                dataError = null;
+            }
+            reloadExecutor.execute(this::runQueuedReload);
+            return done;
+        }
+    }
+
+    /** Reloads and waits for the result, see {@link #requestReload}. */
+    public void forceReload() throws IOException {
+        GameFileService.await(requestReload(true));
+    }
+
+    private void runQueuedReload() {
+        ReloadJob job;
+        synchronized (reloadLock) {
+            job = queuedReload;
+            if (job == null) return;
+            queuedReload = null;
+            runningReload = job;
+        }
+        Throwable failure = null;
+        try {
+            loadGameData(job.force, () -> job.cancelled);
             dataStatus = DataStatus.READY;
             dataError = null;
+            reloadError = null;
+            if (iconService != null) {
+                iconService.clearCache();
+            }
+        } catch (CancellationException e) {
+            log.info("Reload of {} cancelled", job.gamePath);
+            failure = e;
         } catch (Exception e) {
-            dataStatus = DataStatus.ERROR;
-            dataError = e.getMessage();
-            log.error("Failed to load game data on startup: {}", e.getMessage(), e);
+            reloadError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (job.gamePath.equals(loadedGamePath)) {
+                log.warn("Reload failed, keeping the current data: {}", e.getMessage(), e);
+            } else {
+                dataStatus = DataStatus.ERROR;
+                dataError = e.getMessage();
+                log.error("Failed to load game data: {}", e.getMessage(), e);
+            }
+            failure = e instanceof IOException io ? new UncheckedIOException(io) : e;
+        } finally {
+            synchronized (reloadLock) {
+                runningReload = null;
+            }
+        }
+        // Only now, so that whoever waits for it sees the reload finished
+        if (failure == null) {
+            job.done.complete(null);
+        } else {
+            job.done.completeExceptionally(failure);
         }
     }
 
+    /** Loads (or reloads) all game data and publishes it; serialized, so loads never interleave. */
     public void loadGameData(boolean forceReload) throws IOException {
+        loadGameData(forceReload, () -> false);
+    }
+
+    /**
+     * @param cancelled checked between stages; once true the load stops with a
+     *                  {@link CancellationException} and publishes nothing
+     */
+    private synchronized void loadGameData(boolean forceReload, BooleanSupplier cancelled) throws IOException {
         Path gamePath = Path.of(settingsService.getEffectiveGamePath());
 
         // Detect version
-        gameVersion = GameVersion.fromLauncherSettings(gamePath);
+        GameVersion gameVersion = GameVersion.fromLauncherSettings(gamePath);
         log.info("{} detected", gameVersion);
 
-        // Compute fingerprint
-        String fileHash = FileFingerprint.compute(gamePath, PARSED_SUBDIRECTORIES);
-        String fingerprint = gameVersion.rawVersion() + ":" + fileHash;
+        // List every input once; fingerprints, change detection and loading all work from this
+        GameFileScan scan = GameFileScan.scan(gamePath);
+        String fileHash = FileFingerprint.compute(scan, PARSED_DIRECTORIES);
+        // Per-file ASTs carry their own stamps and scripted variables, so only these invalidate them all;
+        // the game path keeps each install's ASTs in a cache slot of its own
+        String astFingerprint = gamePath + ":" + gameVersion.rawVersion() + ":" + SCHEMA_FINGERPRINT;
+        // The snapshot also holds localization and leader trait GFX, read from outside common/
+        String presentationFingerprint =
+                FileFingerprint.compute(scan, List.of(GameFileScan.LOCALISATION, GameFileScan.TRAIT_ICONS));
+        String snapshotFingerprint = astFingerprint + ":" + fileHash + ":" + presentationFingerprint;
+        Map<GameCategory, String> inputs = inputFingerprints(scan);
+
+        var progress = new LoadProgress(LOAD_PHASES);
+        loadProgress = progress;
+        // Nothing of this game path is published yet, so readiness starts over
+        boolean progressive = !gamePath.equals(loadedGamePath);
+        if (progressive && readiness.values().stream().anyMatch(CompletableFuture::isDone)) {
+            restartReadiness();
+        }
 
         if (!forceReload) {
-            // Try loading from cache
-            ParsedDataCache.CacheEntry cached = cache.load();
-            if (cached != null && fingerprint.equals(cached.fingerprint())) {
-                log.info("Cache valid — loading from cache");
-                restoreFromCache(cached);
+            // Try the extracted model first
+            long start = System.currentTimeMillis();
+            ParsedDataCache.SnapshotEntry snapshot = cache.loadSnapshot(snapshotFingerprint);
+            if (snapshot != null) {
+                publish(gamePath, GameData.of(gameVersion, snapshot.snapshot()), inputs, presentationFingerprint);
+                LOAD_PHASES.forEach(phase -> progress.finish(phase, 0, 0));
+                log.info("Restored game data from snapshot in {}ms", System.currentTimeMillis() - start);
                 return;
             }
-            log.info("Cache stale or missing — re-parsing game files");
+            log.info("No snapshot of these files — loading changed game files");
         } else {
-            log.info("Force reload requested — re-parsing game files");
-            cache.clear();
+            // Per-file stamps still guard the AST cache, so only the snapshot is bypassed
+            log.info("Reload requested — loading changed game files");
+        }
+
+        // Without ASTs from an earlier load in this process, start from the per-file cache
+        if (!gameFileService.hasParsedFiles()) {
+            ParsedDataCache.CacheEntry cached = cache.load(astFingerprint);
+            if (cached != null) {
+                gameFileService.restoreParsedFiles(cached.files());
+            }
+        }
+        checkCancelled(cancelled);
+
+        // With nothing of this game path published yet, start from scratch and make each category
+        // available to readiness-gated callers as soon as it is extracted; either way the current
+        // data keeps being served until the load is done
+        Draft draft = progressive
+                ? new Draft(GameData.EMPTY, Map.of(), inputs, gameVersion, true, cancelled)
+                : new Draft(current.get(), extractedInputs, inputs, gameVersion, false, cancelled);
+
+        // Parse the files that changed and re-extract the categories they belong to
+        boolean presentationChanged = progressive || !presentationFingerprint.equals(loadedPresentationFingerprint);
+        try {
+            loadAndExtract(scan, presentationChanged, draft, progress);
+            checkCancelled(cancelled);
+        } catch (IOException | RuntimeException e) {
+            progress.abort();
+            if (progressive) {
+                // Nothing of this load is published: drop its partial data, and fail even the
+                // categories that were ready, since they were only available through it
+                progressiveData.set(null);
+                if (e instanceof CancellationException) {
+                    // Cancelled for a load of another game path, which whoever waits gets instead
+                    restartReadiness();
+                } else {
+                    var failed = newReadiness();
+                    failed.values().forEach(ready -> ready.completeExceptionally(e));
+                    var stale = readiness;
+                    readiness = failed;
+                    stale.values().forEach(ready -> ready.completeExceptionally(e));
+                }
+            }
+            throw e;
         }
 
-        // Parse fresh
-        gameFileService.loadAll();
-        extractTypedData();
-        localizationService.load();
+        GameData data = draft.build();
+        publish(gamePath, data, draft.extractedInputs, presentationFingerprint);
 
         // Save to cache
-        Map<String, com.stellaris.bsgenerator.parser.ast.ClausewitzNode> data = Map.of(
-                "ethics", gameFileService.getEthics(),
-                "authorities", gameFileService.getAuthorities(),
-                "civics", gameFileService.getCivics(),
-                "speciesArchetypes", gameFileService.getSpeciesArchetypes(),
-                "traits", gameFileService.getTraits()
-        );
-        cache.save(fingerprint, data);
+        cache.save(astFingerprint, gameFileService.exportParsedFiles());
+        cache.saveSnapshot(snapshotFingerprint, data.snapshot());
+
+        if (!gameFileService.retainsParsedFiles()) {
+            // The models are built and the ASTs cached, so only a reload needs them again (from the cache)
+            gameFileService.releaseParsedFiles();
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Retained heap: {}", getFootprint().stream()
+                    .map(f -> f.name() + " " + f.modelBytes() / 1024 + " KB"
+                            + (f.astBytes() > 0 ? " (+" + f.astBytes() / 1024 + " KB AST)" : ""))
+                    .collect(Collectors.joining(", ")));
+        }
     }
 
-    public void forceReload() throws IOException {
-        dataStatus = DataStatus.LOADING;
-        dataError = null;
-        if (iconService != null) {
-            iconService.clearCache();
+    /**
+     * Estimated heap retained by a category's extracted models and, if they are kept, its parsed
+     * ASTs. Localization and leader trait GFX are reported as categories of their own.
+     */
+    public record Footprint(String name, long modelBytes, long astBytes) {}
+
+    /** Estimated heap retained per category by the published data, in {@link LoadProgress} phase order. */
+    public List<Footprint> getFootprint() {
+        GameData data = getGameData();
+        var footprint = new ArrayList<Footprint>();
+        for (GameCategory category : GameCategory.values()) {
+            Object[] models = switch (category) {
+                case ETHICS -> new Object[] {data.ethics()};
+                case AUTHORITIES -> new Object[] {data.authorities()};
+                case CIVICS -> new Object[] {data.civics(), data.origins()};
+                case SPECIES_ARCHETYPES -> new Object[] {data.speciesArchetypes()};
+                case TRAITS -> new Object[] {data.speciesTraits(), data.allTraitIconPaths(), data.startingRulerTraits()};
+                case PLANET_CLASSES -> new Object[] {data.planetClasses()};
+                case GRAPHICAL_CULTURES -> new Object[] {data.graphicalCultures()};
+                case SPECIES_CLASSES -> new Object[] {data.speciesClasses()};
+            };
+            footprint.add(new Footprint(category.subdirectory(), HeapFootprint.of(models),
+                    HeapFootprint.of(gameFileService.retainedTrees(category).toArray())));
         }
-        try {
-            loadGameData(true);
-            dataStatus = DataStatus.READY;
-            dataError = null;
-        } catch (Exception e) {
-            dataStatus = DataStatus.ERROR;
-            dataError = e.getMessage();
-            throw e;
+        footprint.add(new Footprint(LOCALISATION_PHASE, HeapFootprint.of(data.localizations()), 0));
+        footprint.add(new Footprint(LEADER_TRAIT_GFX_PHASE, HeapFootprint.of(data.leaderTraitGfxMap()), 0));
+        return footprint;
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Reload cancelled");
         }
     }
 
-    private void restoreFromCache(ParsedDataCache.CacheEntry cached) {
-        // For now, cached data isn't directly restored to GameFileService
-        // since ClausewitzNode serialization/deserialization would need custom handling.
-        // Instead, we re-parse (fast enough at < 5s) and only use fingerprint for staleness check.
-        try {
-            gameFileService.loadAll();
-            extractTypedData();
-            localizationService.load();
-        } catch (IOException e) {
-            dataStatus = DataStatus.ERROR;
-            dataError = e.getMessage();
-            log.error("Failed to re-parse game files: {}", e.getMessage(), e);
+    /**
+     * Fingerprints the inputs of each category: its own files and the scripted variables they may
+     * reference.
+     */
+    private static Map<GameCategory, String> inputFingerprints(GameFileScan scan) {
+        var inputs = new EnumMap<GameCategory, String>(GameCategory.class);
+        for (GameCategory category : GameCategory.values()) {
+            inputs.put(category, FileFingerprint.compute(scan,
+                    List.of(GameFileScan.SCRIPTED_VARIABLES, GameFileScan.directory(category))));
         }
+        return inputs;
     }
 
-    private void extractTypedData() {
-        ethics = ethicExtractor.extract(gameFileService.getEthics());
-        authorities = authorityExtractor.extract(gameFileService.getAuthorities());
-        civics = civicExtractor.extract(gameFileService.getCivics());
-        origins = originExtractor.extract(gameFileService.getCivics());
-        speciesArchetypes = speciesArchetypeExtractor.extract(gameFileService.getSpeciesArchetypes());
-        speciesTraits = speciesTraitExtractor.extract(gameFileService.getTraits());
-        allTraitIconPaths = speciesTraitExtractor.extractIconPaths(gameFileService.getTraits());
-        planetClasses = planetClassExtractor.extract(gameFileService.getPlanetClasses());
-        graphicalCultures = graphicalCultureExtractor.extract(gameFileService.getGraphicalCultures());
-        startingRulerTraits = startingRulerTraitExtractor.extract(gameFileService.getTraits());
-        speciesClasses = speciesClassExtractor.extract(gameFileService.getSpeciesClasses());
+    /** Makes {@code data} the data every reader sees from now on. */
+    private void publish(Path gamePath, GameData data, Map<GameCategory, String> extractedInputs,
+                         String presentationFingerprint) {
+        this.extractedInputs = Map.copyOf(extractedInputs);
+        this.loadedPresentationFingerprint = presentationFingerprint;
+        this.loadedGamePath = gamePath;
+        // Names come from the data each reader sees, so a pin covers them as it does the models
+        localizationService.readFrom(() -> getGameData().localizations());
+        current.set(data);
+        progressiveData.set(null);
+        // Every category of the game path is published now, even if an earlier load of another path failed them
+        if (readiness.values().stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+            readiness = newReadiness();
+        }
+        readiness.values().forEach(ready -> ready.complete(null));
+    }
 
-        // Parse leader trait GFX mappings
-        Path gamePath = Path.of(settingsService.getEffectiveGamePath());
+    /**
+     * What a load assembles before it is published, starting out as the published data so that
+     * unchanged categories keep their models. Each model field is written by one extraction task;
+     * they are volatile because a progressive load builds partial data from other tasks' fields.
+     */
+    private static final class Draft {
+        /** Input fingerprints the models were extracted from, updated as categories are re-extracted. */
+        private final Map<GameCategory, String> extractedInputs;
+        /** Input fingerprints of this load. */
+        private final Map<GameCategory, String> inputs;
+        private final GameVersion gameVersion;
+        /** Whether to make each category available as soon as it is extracted. */
+        private final boolean progressive;
+        private final BooleanSupplier cancelled;
+        private volatile List<Ethic> ethics;
+        private volatile List<Authority> authorities;
+        private volatile List<Civic> civics;
+        private volatile List<Origin> origins;
+        private volatile List<SpeciesArchetype> speciesArchetypes;
+        private volatile List<SpeciesTrait> speciesTraits;
+        private volatile List<PlanetClass> planetClasses;
+        private volatile List<GraphicalCulture> graphicalCultures;
+        private volatile List<StartingRulerTrait> startingRulerTraits;
+        private volatile List<SpeciesClass> speciesClasses;
+        private volatile Map<String, String> leaderTraitGfxMap;
+        private volatile Map<String, String> allTraitIconPaths;
+        private volatile Map<String, String> localizations;
+
+        private Draft(GameData from, Map<GameCategory, String> extractedInputs, Map<GameCategory, String> inputs,
+                      GameVersion gameVersion, boolean progressive, BooleanSupplier cancelled) {
+            this.extractedInputs = new ConcurrentHashMap<>(extractedInputs);
+            this.inputs = inputs;
+            this.gameVersion = gameVersion;
+            this.progressive = progressive;
+            this.cancelled = cancelled;
+            ethics = from.ethics();
+            authorities = from.authorities();
+            civics = from.civics();
+            origins = from.origins();
+            speciesArchetypes = from.speciesArchetypes();
+            speciesTraits = from.speciesTraits();
+            planetClasses = from.planetClasses();
+            graphicalCultures = from.graphicalCultures();
+            startingRulerTraits = from.startingRulerTraits();
+            speciesClasses = from.speciesClasses();
+            leaderTraitGfxMap = from.leaderTraitGfxMap();
+            allTraitIconPaths = from.allTraitIconPaths();
+            localizations = from.localizations();
+        }
+
+        private GameData build() {
+            return new GameData(gameVersion, ethics, authorities, civics, origins, speciesArchetypes, speciesTraits,
+                    planetClasses, graphicalCultures, startingRulerTraits, speciesClasses, leaderTraitGfxMap,
+                    allTraitIconPaths, localizations);
+        }
+    }
+
+    /**
+     * Runs the load graph: every game file category, localization and leader trait GFX
+     * concurrently. Each category is extracted as soon as it is available, so the total time is
+     * roughly that of the slowest branch. Categories whose inputs have the fingerprint they were
+     * last extracted from (none of their files or the scripted variables changed) keep their models.
+     *
+     * @param scan                the input files to load
+     * @param presentationChanged whether localization and leader trait GFX need reloading too
+     * @param draft               receives the models of re-extracted categories
+     * @param progress            receives the progress of each phase
+     */
+    private void loadAndExtract(GameFileScan scan, boolean presentationChanged, Draft draft, LoadProgress progress)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Path gamePath = scan.gamePath();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var localization = presentationChanged
+                    ? CompletableFuture.supplyAsync(() -> parseLocalization(scan, progress), executor)
+                    : CompletableFuture.completedFuture(draft.localizations);
+            var leaderTraitGfx = presentationChanged
+                    ? CompletableFuture.supplyAsync(() -> parseLeaderTraitGfx(gamePath, progress), executor)
+                    : CompletableFuture.completedFuture(draft.leaderTraitGfxMap);
+            if (!presentationChanged) {
+                progress.finish(LOCALISATION_PHASE, 0, 0);
+                progress.finish(LEADER_TRAIT_GFX_PHASE, 0, 0);
+            }
+
+            var categories = gameFileService.loadAllAsync(executor, scan, progress);
+            var extracted = CompletableFuture.allOf(
+                    extract(categories, draft, GameCategory.ETHICS, root -> draft.ethics = ethicExtractor.extract(root)),
+                    extract(categories, draft, GameCategory.AUTHORITIES, root ->
+                            draft.authorities = authorityExtractor.extract(root)),
+                    extract(categories, draft, GameCategory.CIVICS, root -> {
+                        draft.civics = civicExtractor.extract(root);
+                        draft.origins = originExtractor.extract(root);
+                    }),
+                    extract(categories, draft, GameCategory.SPECIES_ARCHETYPES, root ->
+                            draft.speciesArchetypes = speciesArchetypeExtractor.extract(root)),
+                    extract(categories, draft, GameCategory.TRAITS, root -> {
+                        draft.speciesTraits = speciesTraitExtractor.extract(root);
+                        draft.allTraitIconPaths = speciesTraitExtractor.extractIconPaths(root);
+                        draft.startingRulerTraits = startingRulerTraitExtractor.extract(root);
+                    }),
+                    extract(categories, draft, GameCategory.PLANET_CLASSES, root ->
+                            draft.planetClasses = planetClassExtractor.extract(root)),
+                    extract(categories, draft, GameCategory.GRAPHICAL_CULTURES, root ->
+                            draft.graphicalCultures = graphicalCultureExtractor.extract(root)),
+                    extract(categories, draft, GameCategory.SPECIES_CLASSES, root ->
+                            draft.speciesClasses = speciesClassExtractor.extract(root)));
+
+            GameFileService.await(extracted);
+            if (draft.progressive) {
+                // Generation only needs the categories; names and icons fill in when the rest is done
+                log.info("Game data categories ready in {}ms", System.currentTimeMillis() - start);
+            }
+            draft.leaderTraitGfxMap = leaderTraitGfx.join();
+            draft.localizations = GameFileService.await(localization);
+        }
+
+        log.info("Load graph complete in {}ms", System.currentTimeMillis() - start);
+        log.info("Extracted: {} ethics, {} authorities, {} civics, {} origins, {} archetypes, {} traits, {} planets, {} shipsets, {} ruler traits, {} species classes, {} leader GFX",
+                draft.ethics.size(), draft.authorities.size(), draft.civics.size(), draft.origins.size(),
+                draft.speciesArchetypes.size(), draft.speciesTraits.size(),
+                draft.planetClasses.size(), draft.graphicalCultures.size(), draft.startingRulerTraits.size(),
+                draft.speciesClasses.size(), draft.leaderTraitGfxMap.size());
+    }
+
+
+    /**
+     * Runs {@code extractor} once the category is loaded, unless it was already extracted from
+     * the same inputs, then makes the category available to {@link #withReadyGameData} if the load is
+     * progressive.
+     */
+    private CompletableFuture<Void> extract(Map<GameCategory, CompletableFuture<AstNode>> categories,
+                                            Draft draft, GameCategory category, Consumer<AstNode> extractor) {
+        return categories.get(category).thenAccept(root -> {
+            checkCancelled(draft.cancelled);
+            String input = draft.inputs.get(category);
+            if (input.equals(draft.extractedInputs.get(category))) {
+                log.debug("{} unchanged — keeping extracted data", category.subdirectory());
+                return;
+            }
+            extractor.accept(root);
+            draft.extractedInputs.put(category, input);
+            if (draft.progressive) {
+                // Serialized, so a build missing a category can't replace one that has it
+                synchronized (draft) {
+                    progressiveData.set(draft.build());
+                }
+                readiness.get(category).complete(null);
+            }
+        });
+    }
+
+    private Map<String, String> parseLocalization(GameFileScan scan, LoadProgress progress) {
+        List<GameFileScan.Entry> files = scan.files(GameFileScan.LOCALISATION);
+        progress.start(LOCALISATION_PHASE, files.size());
+        Map<String, String> localizations = localizationService.parse(
+                files.stream().map(GameFileScan.Entry::path).toList());
+        progress.finish(LOCALISATION_PHASE, files.size(), files.stream().mapToLong(GameFileScan.Entry::size).sum());
+        return localizations;
+    }
+
+    private Map<String, String> parseLeaderTraitGfx(Path gamePath, LoadProgress progress) {
+        long start = System.currentTimeMillis();
         Path gfxFile = gamePath.resolve("interface/icons/traits/leader_traits.gfx");
+        progress.start(LEADER_TRAIT_GFX_PHASE, 1);
         try {
-            leaderTraitGfxMap = LeaderTraitGfxParser.parse(gfxFile);
+            Map<String, String> gfxMap = LeaderTraitGfxParser.parse(gfxFile);
+            long bytes = Files.exists(gfxFile) ? Files.size(gfxFile) : 0;
+            progress.finish(LEADER_TRAIT_GFX_PHASE, bytes > 0 ? 1 : 0, bytes);
+            log.info("Parsed {} leader trait GFX entries in {}ms", gfxMap.size(), System.currentTimeMillis() - start);
+            return gfxMap;
         } catch (IOException e) {
+            progress.fail(LEADER_TRAIT_GFX_PHASE);
             log.warn("Failed to parse leader_traits.gfx: {}", e.getMessage());
-            leaderTraitGfxMap = Map.of();
+            return Map.of();
         }
-
-        log.info("Extracted: {} ethics, {} authorities, {} civics, {} origins, {} archetypes, {} traits, {} planets, {} shipsets, {} ruler traits, {} species classes, {} leader GFX",
-                ethics.size(), authorities.size(), civics.size(), origins.size(),
-                speciesArchetypes.size(), speciesTraits.size(),
-                planetClasses.size(), graphicalCultures.size(), startingRulerTraits.size(),
-                speciesClasses.size(), leaderTraitGfxMap.size());
     }
 }
@@ -0,0 +1,26 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.model.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything {@link GameDataManager} extracts from the game files, as persisted by
+ * {@link ParsedDataCache#saveSnapshot} so a warm start needs neither parsing nor extraction.
+ */
+public record GameDataSnapshot(
+        List<Ethic> ethics,
+        List<Authority> authorities,
+        List<Civic> civics,
+        List<Origin> origins,
+        List<SpeciesArchetype> speciesArchetypes,
+        List<SpeciesTrait> speciesTraits,
+        List<PlanetClass> planetClasses,
+        List<GraphicalCulture> graphicalCultures,
+        List<StartingRulerTrait> startingRulerTraits,
+        List<SpeciesClass> speciesClasses,
+        Map<String, String> leaderTraitGfxMap,
+        Map<String, String> allTraitIconPaths,
+        Map<String, String> localizations
+) {}
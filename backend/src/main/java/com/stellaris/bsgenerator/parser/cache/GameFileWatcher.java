@@ -0,0 +1,79 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.config.SettingsService;
+import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.parser.loader.GameFileScan;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Opt-in ({@code stellaris.watch-game-files}) hot reload: watches every directory a
+ * {@link GameFileScan} covers and, once a burst of changes has settled, reloads in the
+ * background. Only changed files are re-parsed (unchanged ones are read back from the AST cache
+ * unless {@code stellaris.retain-asts} keeps them in memory) and only categories whose files or
+ * scripted variables changed are re-extracted, while generation keeps using the current data
+ * until the reload is published.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameFileWatcher {
+
+    /** How long the directories must stay quiet before a burst of changes is reloaded. */
+    static final Duration QUIET_PERIOD = Duration.ofSeconds(2);
+
+    private final ParserProperties properties;
+    private final SettingsService settingsService;
+    private final GameDataManager gameDataManager;
+
+    private DirectoryWatcher watcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (properties.watchGameFiles()) {
+            restart();
+        }
+    }
+
+    /** Watches the current game path, e.g. after it was changed in the settings. */
+    public synchronized void restart() {
+        if (!properties.watchGameFiles()) return;
+        stop();
+        Path gamePath = Path.of(settingsService.getEffectiveGamePath());
+        var directories = GameFileScan.directories().stream().map(gamePath::resolve).toList();
+        try {
+            watcher = new DirectoryWatcher(directories, QUIET_PERIOD, this::onChanged);
+            log.info("Watching {} game file directories under {}", directories.size(), gamePath);
+        } catch (IOException e) {
+            log.warn("Failed to watch game files under {}: {}", gamePath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (watcher == null) return;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            log.debug("Failed to close game file watcher: {}", e.getMessage());
+        }
+        watcher = null;
+    }
+
+    private void onChanged(Set<Path> changed) {
+        // A key can be signalled without events, leaving nothing to reload
+        if (changed.isEmpty()) return;
+        log.info("{} game file change(s) detected (e.g. {}) — reloading in the background",
+                changed.size(), changed.iterator().next());
+        gameDataManager.requestReload(true);
+    }
+}
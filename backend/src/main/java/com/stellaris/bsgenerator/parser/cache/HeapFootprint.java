@@ -0,0 +1,144 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the heap retained by object graphs of this application's models and trees, assuming
+ * a 64-bit JVM with compressed references. Objects reachable from several roots of one estimate
+ * count once. JDK collections and strings are sized from their contents rather than measured,
+ * so the result is an approximation, good enough to compare categories and spot regressions.
+ */
+final class HeapFootprint {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final String APPLICATION_PACKAGE = "com.stellaris.";
+
+    /** Instance fields of application classes, superclasses included. */
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+    private long bytes;
+
+    private HeapFootprint() {}
+
+    /** Estimated bytes retained by {@code roots} together. */
+    static long of(Object... roots) {
+        var footprint = new HeapFootprint();
+        for (Object root : roots) {
+            footprint.push(root);
+        }
+        footprint.drain();
+        return footprint.bytes;
+    }
+
+    private void push(Object object) {
+        if (object != null && !(object instanceof Enum<?>) && !(object instanceof Class<?>) && visited.add(object)) {
+            pending.push(object);
+        }
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            bytes += shallowSize(object);
+        }
+    }
+
+    /** Size of {@code object} itself, pushing whatever it references. */
+    private long shallowSize(Object object) {
+        return switch (object) {
+            // Compact (Latin-1) strings: the String plus its byte array
+            case String string -> align(HEADER + 12) + align(ARRAY_HEADER + string.length());
+            case Number _, Boolean _, Character _ -> align(HEADER + 8);
+            // Its entries live in the mapped file, off the heap
+            case MappedStringMap _ -> align(HEADER + REFERENCE + 16);
+            case Map<?, ?> map -> {
+                map.forEach((key, value) -> {
+                    push(key);
+                    push(value);
+                });
+                // A HashMap: the map, its table at the default load factor and one node per entry
+                int capacity = Integer.highestOneBit(Math.max(1, (int) (map.size() / 0.75f)) * 2 - 1);
+                yield align(HEADER + 36) + align(ARRAY_HEADER + (long) capacity * REFERENCE)
+                        + map.size() * align(HEADER + 4 + 3L * REFERENCE);
+            }
+            case Collection<?> collection -> {
+                collection.forEach(this::push);
+                yield align(HEADER + 12) + align(ARRAY_HEADER + (long) collection.size() * REFERENCE);
+            }
+            default -> object.getClass().isArray() ? arraySize(object) : objectSize(object);
+        };
+    }
+
+    private long arraySize(Object array) {
+        Class<?> component = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (!component.isPrimitive()) {
+            for (Object element : (Object[]) array) {
+                push(element);
+            }
+            return align(ARRAY_HEADER + (long) length * REFERENCE);
+        }
+        return align(ARRAY_HEADER + (long) length * primitiveSize(component));
+    }
+
+    private long objectSize(Object object) {
+        Class<?> type = object.getClass();
+        if (!type.getName().startsWith(APPLICATION_PACKAGE)) {
+            // Some other JDK object; its internals aren't accessible
+            return align(HEADER + REFERENCE);
+        }
+        long size = HEADER;
+        for (Field field : FIELDS.computeIfAbsent(type, HeapFootprint::instanceFields)) {
+            Class<?> fieldType = field.getType();
+            if (fieldType.isPrimitive()) {
+                size += primitiveSize(fieldType);
+                continue;
+            }
+            size += REFERENCE;
+            try {
+                push(field.get(object));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return align(size);
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        var fields = new ArrayList<Field>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
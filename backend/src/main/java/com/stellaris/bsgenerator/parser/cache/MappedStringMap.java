@@ -0,0 +1,217 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only string map that looks entries up in its encoded bytes, typically a read-only mapping
+ * of a snapshot file. Nothing is decoded up front and only the values asked for are, so the
+ * bytes stay in the OS page cache, shared by every process mapping the same file, instead of
+ * being copied onto each heap.
+ * <p>
+ * Layout (big-endian): entry count, table size (a power of two), the table of entry offsets
+ * ({@code -1} for an empty slot, open addressing with linear probing on the FNV-1a hash of the
+ * key's UTF-8 bytes), then the entries, each a length-prefixed UTF-8 key and value.
+ */
+final class MappedStringMap extends AbstractMap<String, String> {
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final int HEADER = 8;
+
+    private final MemorySegment bytes;
+    private final int size;
+    private final int mask;
+    private final long entriesStart;
+
+    /** @throws IllegalArgumentException if the bytes aren't a complete, consistent map */
+    MappedStringMap(MemorySegment bytes) {
+        if (bytes.byteSize() < HEADER) {
+            throw malformed();
+        }
+        this.bytes = bytes;
+        this.size = bytes.get(INT, 0);
+        int tableSize = bytes.get(INT, 4);
+        if (size < 0 || Integer.bitCount(tableSize) != 1 || size >= tableSize
+                || HEADER + 4L * tableSize > bytes.byteSize()) {
+            throw malformed();
+        }
+        this.mask = tableSize - 1;
+        this.entriesStart = HEADER + 4L * tableSize;
+        validate();
+    }
+
+    /**
+     * Checks every offset and length once, so that no later lookup can read past the bytes: the
+     * entries must fill the rest of them exactly, and each slot of the table must be empty or
+     * point at the start of an entry. Only the length prefixes are read, nothing is decoded.
+     */
+    private void validate() {
+        // Each entry takes at least its two length prefixes
+        if (size > (bytes.byteSize() - entriesStart) / 8) {
+            throw malformed();
+        }
+        long[] starts = new long[size];
+        long offset = entriesStart;
+        for (int i = 0; i < size; i++) {
+            starts[i] = offset;
+            offset = skipString(skipString(offset));
+        }
+        if (offset != bytes.byteSize()) {
+            throw malformed();
+        }
+        int used = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            int entry = bytes.get(INT, HEADER + 4L * slot);
+            if (entry == -1) continue;
+            if (Arrays.binarySearch(starts, entry) < 0) {
+                throw malformed();
+            }
+            used++;
+        }
+        if (used != size) {
+            throw malformed();
+        }
+    }
+
+    /** Offset just past the length-prefixed string at {@code offset}. */
+    private long skipString(long offset) {
+        if (offset + 4 > bytes.byteSize()) {
+            throw malformed();
+        }
+        int length = bytes.get(INT, offset);
+        if (length < 0 || offset + 4 + length > bytes.byteSize()) {
+            throw malformed();
+        }
+        return offset + 4 + length;
+    }
+
+    private static IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed string map");
+    }
+
+    static byte[] encode(Map<String, String> map) {
+        // At most half full, so probe sequences stay short
+        int tableSize = Integer.highestOneBit(Math.max(1, map.size()) * 4 - 1);
+        int[] table = new int[tableSize];
+        Arrays.fill(table, -1);
+
+        var entries = new ByteArrayOutputStream();
+        int entriesStart = HEADER + 4 * tableSize;
+        for (var entry : map.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            int slot = hash(key) & (tableSize - 1);
+            while (table[slot] != -1) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = entriesStart + entries.size();
+            entries.writeBytes(ByteBuffer.allocate(4).putInt(key.length).array());
+            entries.writeBytes(key);
+            entries.writeBytes(ByteBuffer.allocate(4).putInt(value.length).array());
+            entries.writeBytes(value);
+        }
+
+        var out = ByteBuffer.allocate(entriesStart + entries.size());
+        out.putInt(map.size()).putInt(tableSize);
+        for (int offset : table) {
+            out.putInt(offset);
+        }
+        out.put(entries.toByteArray());
+        return out.array();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        long offset = find(key);
+        if (offset < 0) return null;
+        long valueAt = offset + 4 + bytes.get(INT, offset);
+        return string(valueAt);
+    }
+
+    /** Offset of the entry for {@code key}, or -1. */
+    private long find(Object key) {
+        if (!(key instanceof String text)) return -1;
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        for (int slot = hash(utf8) & mask; ; slot = (slot + 1) & mask) {
+            int offset = bytes.get(INT, HEADER + 4L * slot);
+            if (offset < 0) return -1;
+            if (keyEquals(offset, utf8)) return offset;
+        }
+    }
+
+    private boolean keyEquals(long offset, byte[] key) {
+        if (bytes.get(INT, offset) != key.length) return false;
+        return MemorySegment.mismatch(bytes, offset + 4, offset + 4 + key.length,
+                MemorySegment.ofArray(key), 0, key.length) == -1;
+    }
+
+    private String string(long offset) {
+        int length = bytes.get(INT, offset);
+        byte[] utf8 = new byte[length];
+        MemorySegment.copy(bytes, ValueLayout.JAVA_BYTE, offset + 4, utf8, 0, length);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] utf8) {
+        int hash = 0x811C9DC5;
+        for (byte b : utf8) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private long offset = entriesStart;
+                    private int remaining = size;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (remaining == 0) throw new NoSuchElementException();
+                        remaining--;
+                        String key = string(offset);
+                        offset += 4 + bytes.get(INT, offset);
+                        String value = string(offset);
+                        offset += 4 + bytes.get(INT, offset);
+                        return new SimpleImmutableEntry<>(key, value);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -1,63 +1,260 @@
 package com.stellaris.bsgenerator.parser.cache;
 
-import tools.jackson.databind.ObjectMapper;
-import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.parser.loader.GameFileService;
+import com.stellaris.bsgenerator.parser.loader.ParsedFile;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * Persists per-file parsed ASTs between runs in the {@link AstCodec} binary format, decoded from
+ * a memory-mapped file into trees of the backend {@link GameFileService} parses into, alongside a {@link GameDataSnapshot} of
+ * the extracted model ({@link SnapshotCodec}) that lets a warm start skip parsing altogether.
+ * <p>
+ * Entries are content-addressed by their fingerprint, so several of each kind are kept side by
+ * side (other installs, the beta branch, earlier versions) and switching back to one restores it
+ * without parsing. The least recently used entries are evicted once there are more than
+ * {@link ParserProperties#cacheSlots} of a kind or they take more than
+ * {@link ParserProperties#cacheMaxSize} together.
+ */
 @Slf4j
 @Service
 public class ParsedDataCache {
 
-    private static final String CACHE_FILE = "stellaris-cache.json";
+    private static final String SLOTS_DIRECTORY = "slots";
+    private static final String AST_PREFIX = "ast-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    /** Single-entry caches written by earlier versions; removed on save and clear. */
+    private static final List<String> LEGACY_FILES =
+            List.of("stellaris-cache.json", "stellaris-cache.bin", "stellaris-snapshot.bin");
 
-    private final Path cachePath;
-    private final ObjectMapper mapper;
+    private final Path directory;
+    private final Path slotsDirectory;
+    private final int slots;
+    private final long maxSize;
+    private final AstBackend astBackend;
 
-    public ParsedDataCache(ParserProperties properties, ObjectMapper mapper) {
-        this.cachePath = Path.of(properties.cachePath()).resolve(CACHE_FILE);
-        this.mapper = mapper;
+    public ParsedDataCache(ParserProperties properties) {
+        this.directory = Path.of(properties.cachePath());
+        this.slotsDirectory = directory.resolve(SLOTS_DIRECTORY);
+        this.slots = Math.max(1, properties.cacheSlots());
+        this.maxSize = properties.cacheMaxSize().toBytes();
+        this.astBackend = properties.astBackend();
     }
 
-    public record CacheEntry(String fingerprint, Map<String, ClausewitzNode> data) {}
+    /** @param files per-file parse results, as from {@link GameFileService#exportParsedFiles} */
+    public record CacheEntry(String fingerprint, Map<String, ParsedFile> files) {}
 
-    public CacheEntry load() {
-        if (!Files.exists(cachePath)) {
-            log.debug("No cache file found at {}", cachePath);
-            return null;
+    public record SnapshotEntry(String fingerprint, GameDataSnapshot snapshot) {}
+
+    /**
+     * The ASTs saved with {@code fingerprint}, decoded into the configured backend, or null if
+     * there are none (or they can't be read).
+     */
+    public CacheEntry load(String fingerprint) {
+        return read(astFile(fingerprint), fingerprint, false, bytes -> {
+            // Decoded strings are already shared across files, so each file only needs its own table
+            var decoded = AstCodec.decode(bytes, () -> astBackend.newBuilder(new SymbolTable()));
+            return new CacheEntry(decoded.fingerprint(), decoded.sections());
+        }, CacheEntry::fingerprint);
+    }
+
+    public void save(String fingerprint, Map<String, ParsedFile> data) {
+        write(astFile(fingerprint), () -> AstCodec.encode(fingerprint, data));
+    }
+
+    /**
+     * The snapshot saved with {@code fingerprint}, or null if there is none (or it can't be read).
+     * Its localization is read in place from the file, which stays mapped until the snapshot is
+     * no longer reachable; other processes mapping the same file share those pages.
+     */
+    public SnapshotEntry loadSnapshot(String fingerprint) {
+        return read(snapshotFile(fingerprint), fingerprint, true, bytes -> {
+            var decoded = SnapshotCodec.decode(bytes);
+            return new SnapshotEntry(decoded.fingerprint(), decoded.snapshot());
+        }, SnapshotEntry::fingerprint);
+    }
+
+    /**
+     * Saves the snapshot unless there already is one with that fingerprint: it would hold the
+     * same data, and may be mapped by this or another process (which on Windows prevents
+     * replacing the file).
+     */
+    public void saveSnapshot(String fingerprint, GameDataSnapshot snapshot) {
+        Path file = snapshotFile(fingerprint);
+        if (Files.exists(file)) {
+            touch(file);
+            return;
+        }
+        write(file, () -> SnapshotCodec.encode(fingerprint, snapshot));
+    }
+
+    public void clear() {
+        try {
+            listSlots().forEach(ParsedDataCache::deleteQuietly);
+            deleteLegacyFiles();
+            log.info("Cache cleared");
+        } catch (IOException e) {
+            log.warn("Failed to clear cache: {}", e.getMessage());
         }
+    }
+
+    /** File holding the entry of the given kind saved with {@code fingerprint}. */
+    private Path slotFile(String prefix, String fingerprint) {
         try {
-            CacheEntry entry = mapper.readValue(cachePath.toFile(), CacheEntry.class);
-            log.debug("Loaded cache with fingerprint: {}", entry.fingerprint());
-            return entry;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            // 128 bits are plenty to address a handful of entries; the fingerprint inside is checked anyway
+            return slotsDirectory.resolve(prefix + HexFormat.of().formatHex(digest, 0, 16) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    Path astFile(String fingerprint) {
+        return slotFile(AST_PREFIX, fingerprint);
+    }
+
+    /** Snapshots are only ever written once per name, so the name changes with their format. */
+    Path snapshotFile(String fingerprint) {
+        return slotFile(SNAPSHOT_PREFIX, SnapshotCodec.VERSION + ":" + fingerprint);
+    }
+
+    /**
+     * @param keepMapped whether the decoded entry reads from the mapping, which then stays open
+     *                   until the garbage collector finds it unreachable
+     */
+    private <T> T read(Path file, String fingerprint, boolean keepMapped, Function<MemorySegment, T> decoder,
+                       Function<T, String> fingerprintOf) {
+        if (!Files.exists(file)) {
+            log.debug("No cache entry found at {}", file);
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        T entry;
+        Arena arena = keepMapped ? Arena.ofAuto() : Arena.ofConfined();
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            entry = decoder.apply(bytes);
         } catch (Exception e) {
-            log.warn("Failed to read cache file: {}", e.getMessage());
+            log.warn("Failed to read cache file {}: {}", file.getFileName(), e.getMessage());
+            deleteQuietly(file);
             return null;
+        } finally {
+            if (!keepMapped) arena.close();
         }
+        if (!fingerprint.equals(fingerprintOf.apply(entry))) {
+            log.warn("Cache file {} holds another fingerprint — ignoring it", file.getFileName());
+            return null;
+        }
+        touch(file);
+        log.debug("Decoded {} in {}ms", file.getFileName(), System.currentTimeMillis() - start);
+        return entry;
     }
 
-    public void save(String fingerprint, Map<String, ClausewitzNode> data) {
+    private void write(Path file, Supplier<byte[]> encoder) {
         try {
-            Files.createDirectories(cachePath.getParent());
-            mapper.writeValue(cachePath.toFile(), new CacheEntry(fingerprint, data));
-            log.info("Cache saved to {}", cachePath);
+            Files.createDirectories(slotsDirectory);
+            // Written aside and moved into place, so a reader (maybe another process) never sees a partial file
+            Path temp = Files.createTempFile(slotsDirectory, "write-", ".tmp");
+            try {
+                Files.write(temp, encoder.get());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            deleteLegacyFiles();
+            log.info("Cache saved to {}", file);
+            evict(file);
         } catch (Exception e) {
             log.warn("Failed to write cache file: {}", e.getMessage());
         }
     }
 
-    public void clear() {
+    /** Marks {@code file} as just used; its modification time orders eviction. */
+    private static void touch(Path file) {
         try {
-            Files.deleteIfExists(cachePath);
-            log.info("Cache cleared");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
         } catch (IOException e) {
-            log.warn("Failed to clear cache: {}", e.getMessage());
+            log.debug("Failed to touch {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries beyond {@link #slots} per kind or {@link #maxSize}
+     * in total. The entry just written is always kept, even if it alone exceeds the size.
+     */
+    private void evict(Path written) throws IOException {
+        record Slot(Path path, long lastModified, long size) {}
+        var entries = listSlots().stream().map(path -> {
+            try {
+                return new Slot(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path));
+            } catch (IOException e) {
+                return new Slot(path, 0, 0);
+            }
+        }).sorted(Comparator.comparing((Slot slot) -> !slot.path().equals(written))
+                .thenComparing(Slot::lastModified, Comparator.reverseOrder()))
+                .toList();
+
+        var perKind = new HashMap<String, Integer>();
+        long total = 0;
+        for (Slot slot : entries) {
+            String kind = slot.path().getFileName().toString().startsWith(AST_PREFIX) ? AST_PREFIX : SNAPSHOT_PREFIX;
+            int count = perKind.getOrDefault(kind, 0) + 1;
+            if (!slot.path().equals(written) && (count > slots || total + slot.size() > maxSize)) {
+                if (deleteQuietly(slot.path())) {
+                    log.info("Evicted cache file {}", slot.path().getFileName());
+                }
+                continue;
+            }
+            perKind.put(kind, count);
+            total += slot.size();
+        }
+    }
+
+    /** Deletes {@code file} unless it can't be, e.g. because a process on Windows has it mapped. */
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private List<Path> listSlots() throws IOException {
+        if (!Files.isDirectory(slotsDirectory)) return List.of();
+        try (Stream<Path> files = Files.list(slotsDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).toList();
+        }
+    }
+
+    private void deleteLegacyFiles() throws IOException {
+        for (String legacy : LEGACY_FILES) {
+            Files.deleteIfExists(directory.resolve(legacy));
         }
     }
 }
@@ -0,0 +1,466 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.model.*;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Compact binary encoding of a {@link GameDataSnapshot}.
+ * <p>
+ * Layout: magic, format version, fingerprint, then each model list and map in record order.
+ * Integers are unsigned LEB128 varints (signed values zigzag-encoded). Strings are references:
+ * {@code 0} for null, {@code 1} followed by length-prefixed UTF-8 for a string seen for the
+ * first time, otherwise its id + 2, so the many repeated ids are stored once.
+ * <p>
+ * Localization, by far the largest part, comes last as a length-prefixed {@link MappedStringMap}
+ * that is read in place rather than decoded, so a snapshot mapped by several processes shares
+ * those bytes through the page cache.
+ */
+final class SnapshotCodec {
+
+    /** "SBGS" */
+    private static final int MAGIC = 0x53424753;
+    /** Bump whenever a model record or this layout changes; older snapshots are then discarded. */
+    static final int VERSION = 2;
+
+    private SnapshotCodec() {}
+
+    record Decoded(String fingerprint, GameDataSnapshot snapshot) {}
+
+    static byte[] encode(String fingerprint, GameDataSnapshot s) {
+        var out = new Encoder();
+        out.int32(MAGIC);
+        out.varint(VERSION);
+        out.string(fingerprint);
+        out.list(s.ethics(), out::ethic);
+        out.list(s.authorities(), out::authority);
+        out.list(s.civics(), out::civic);
+        out.list(s.origins(), out::origin);
+        out.list(s.speciesArchetypes(), out::speciesArchetype);
+        out.list(s.speciesTraits(), out::speciesTrait);
+        out.list(s.planetClasses(), out::planetClass);
+        out.list(s.graphicalCultures(), g -> out.string(g.id()));
+        out.list(s.startingRulerTraits(), out::startingRulerTrait);
+        out.list(s.speciesClasses(), out::speciesClass);
+        out.map(s.leaderTraitGfxMap());
+        out.map(s.allTraitIconPaths());
+        out.mappedMap(s.localizations());
+        return out.bytes.toByteArray();
+    }
+
+    /**
+     * The localization map of the result reads from {@code data}, which must stay mapped (e.g.
+     * in an automatic arena) for as long as it is used.
+     *
+     * @throws IllegalArgumentException if the data isn't a snapshot of this version
+     */
+    static Decoded decode(MemorySegment data) {
+        var in = new Decoder(data);
+        if (data.byteSize() < 4 || in.int32() != MAGIC) {
+            throw new IllegalArgumentException("Not a game data snapshot");
+        }
+        int version = in.varint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported game data snapshot version " + version);
+        }
+        String fingerprint = in.string();
+        var snapshot = new GameDataSnapshot(
+                in.list(Decoder::ethic),
+                in.list(Decoder::authority),
+                in.list(Decoder::civic),
+                in.list(Decoder::origin),
+                in.list(Decoder::speciesArchetype),
+                in.list(Decoder::speciesTrait),
+                in.list(Decoder::planetClass),
+                in.list(d -> new GraphicalCulture(d.string())),
+                in.list(Decoder::startingRulerTrait),
+                in.list(Decoder::speciesClass),
+                in.map(),
+                in.map(),
+                in.mappedMap());
+        if (in.pos != data.byteSize()) {
+            throw new IllegalArgumentException("Trailing data in game data snapshot at " + in.pos);
+        }
+        return new Decoded(fingerprint, snapshot);
+    }
+
+    private static final class Encoder {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        private final Map<String, Integer> seen = new HashMap<>();
+
+        void ethic(Ethic e) {
+            string(e.id());
+            signed(e.cost());
+            string(e.category());
+            bool(e.isFanatic());
+            bool(e.isGestalt());
+            string(e.regularVariant());
+            string(e.fanaticVariant());
+            strings(e.tags());
+            signed(e.randomWeight());
+        }
+
+        void authority(Authority a) {
+            string(a.id());
+            string(a.electionType());
+            bool(a.hasHeir());
+            requirements(a.potential());
+            requirements(a.possible());
+            signed(a.randomWeight());
+            bool(a.isGestalt());
+        }
+
+        void civic(Civic c) {
+            string(c.id());
+            requirements(c.potential());
+            requirements(c.possible());
+            bool(c.pickableAtStart());
+            signed(c.randomWeight());
+            secondarySpecies(c.secondarySpecies());
+            strings(c.enforcedTraitIds());
+        }
+
+        void origin(Origin o) {
+            string(o.id());
+            requirements(o.potential());
+            requirements(o.possible());
+            string(o.dlcRequirement());
+            signed(o.randomWeight());
+            secondarySpecies(o.secondarySpecies());
+            strings(o.enforcedTraitIds());
+            string(o.iconPath());
+            string(o.habitabilityPreference());
+        }
+
+        void speciesArchetype(SpeciesArchetype a) {
+            string(a.id());
+            signed(a.traitPoints());
+            signed(a.maxTraits());
+            bool(a.robotic());
+        }
+
+        void speciesTrait(SpeciesTrait t) {
+            string(t.id());
+            signed(t.cost());
+            strings(t.allowedArchetypes());
+            strings(t.allowedSpeciesClasses());
+            strings(t.allowedPlanetClasses());
+            strings(t.opposites());
+            bool(t.initial());
+            bool(t.randomized());
+            string(t.dlcRequirement());
+            strings(t.tags());
+            strings(t.allowedOrigins());
+            strings(t.forbiddenOrigins());
+            strings(t.allowedCivics());
+            strings(t.forbiddenCivics());
+            strings(t.allowedEthics());
+            strings(t.forbiddenEthics());
+            string(t.iconPath());
+        }
+
+        void planetClass(PlanetClass p) {
+            string(p.id());
+            string(p.climate());
+        }
+
+        void startingRulerTrait(StartingRulerTrait t) {
+            string(t.id());
+            strings(t.leaderClasses());
+            strings(t.forbiddenOrigins());
+            strings(t.allowedEthics());
+            strings(t.allowedOrigins());
+            strings(t.allowedCivics());
+            strings(t.forbiddenCivics());
+            strings(t.forbiddenEthics());
+            signed(t.cost());
+            strings(t.opposites());
+            string(t.gfxKey());
+        }
+
+        void speciesClass(SpeciesClass c) {
+            string(c.id());
+            string(c.archetype());
+        }
+
+        private void secondarySpecies(SecondarySpeciesConfig config) {
+            bool(config != null);
+            if (config != null) {
+                string(config.title());
+                strings(config.enforcedTraitIds());
+            }
+        }
+
+        private void requirements(RequirementBlock block) {
+            bool(block != null);
+            if (block != null) {
+                categories(block.categories());
+                list(block.crossCategoryOrs(), this::categories);
+            }
+        }
+
+        private void categories(Map<RequirementCategory, List<Requirement>> categories) {
+            varint(categories.size());
+            categories.forEach((category, requirements) -> {
+                varint(category.ordinal());
+                list(requirements, this::requirement);
+            });
+        }
+
+        private void requirement(Requirement requirement) {
+            switch (requirement) {
+                case Requirement.Value v -> { varint(0); string(v.value()); }
+                case Requirement.Not n -> { varint(1); string(n.value()); }
+                case Requirement.Nor n -> { varint(2); strings(n.values()); }
+                case Requirement.Or o -> { varint(3); strings(o.values()); }
+            }
+        }
+
+        <T> void list(List<T> items, Consumer<T> writer) {
+            if (items == null) {
+                varint(0);
+                return;
+            }
+            varint(items.size() + 1);
+            items.forEach(writer);
+        }
+
+        private void strings(List<String> values) {
+            list(values, this::string);
+        }
+
+        void map(Map<String, String> map) {
+            list(map == null ? null : List.copyOf(map.entrySet()), entry -> {
+                string(entry.getKey());
+                string(entry.getValue());
+            });
+        }
+
+        void mappedMap(Map<String, String> map) {
+            if (map == null) {
+                varint(0);
+                return;
+            }
+            byte[] encoded = MappedStringMap.encode(map);
+            varint(encoded.length + 1);
+            bytes.writeBytes(encoded);
+        }
+
+        void string(String text) {
+            if (text == null) {
+                varint(0);
+                return;
+            }
+            Integer id = seen.get(text);
+            if (id != null) {
+                varint(id + 2);
+                return;
+            }
+            seen.put(text, seen.size());
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            varint(1);
+            varint(utf8.length);
+            bytes.writeBytes(utf8);
+        }
+
+        private void bool(boolean value) {
+            bytes.write(value ? 1 : 0);
+        }
+
+        private void signed(int value) {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        void int32(int value) {
+            bytes.write(value >>> 24);
+            bytes.write(value >>> 16);
+            bytes.write(value >>> 8);
+            bytes.write(value);
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+    }
+
+    private static final class Decoder {
+        private final MemorySegment in;
+        private final List<String> seen = new ArrayList<>();
+        long pos;
+
+        Decoder(MemorySegment in) {
+            this.in = in;
+        }
+
+        Ethic ethic() {
+            return new Ethic(string(), signed(), string(), bool(), bool(), string(), string(), strings(), signed());
+        }
+
+        Authority authority() {
+            return new Authority(string(), string(), bool(), requirements(), requirements(), signed(), bool());
+        }
+
+        Civic civic() {
+            return new Civic(string(), requirements(), requirements(), bool(), signed(), secondarySpecies(),
+                    strings());
+        }
+
+        Origin origin() {
+            return new Origin(string(), requirements(), requirements(), string(), signed(), secondarySpecies(),
+                    strings(), string(), string());
+        }
+
+        SpeciesArchetype speciesArchetype() {
+            return new SpeciesArchetype(string(), signed(), signed(), bool());
+        }
+
+        SpeciesTrait speciesTrait() {
+            return new SpeciesTrait(string(), signed(), strings(), strings(), strings(), strings(), bool(), bool(),
+                    string(), strings(), strings(), strings(), strings(), strings(), strings(), strings(), string());
+        }
+
+        PlanetClass planetClass() {
+            return new PlanetClass(string(), string());
+        }
+
+        StartingRulerTrait startingRulerTrait() {
+            return new StartingRulerTrait(string(), strings(), strings(), strings(), strings(), strings(), strings(),
+                    strings(), signed(), strings(), string());
+        }
+
+        SpeciesClass speciesClass() {
+            return new SpeciesClass(string(), string());
+        }
+
+        private SecondarySpeciesConfig secondarySpecies() {
+            return bool() ? new SecondarySpeciesConfig(string(), strings()) : null;
+        }
+
+        private RequirementBlock requirements() {
+            return bool() ? new RequirementBlock(categories(), list(Decoder::categories)) : null;
+        }
+
+        private Map<RequirementCategory, List<Requirement>> categories() {
+            int size = varint();
+            var categories = new EnumMap<RequirementCategory, List<Requirement>>(RequirementCategory.class);
+            for (int i = 0; i < size; i++) {
+                categories.put(RequirementCategory.values()[varint()], list(Decoder::requirement));
+            }
+            return Map.copyOf(categories);
+        }
+
+        private Requirement requirement() {
+            int kind = varint();
+            return switch (kind) {
+                case 0 -> new Requirement.Value(string());
+                case 1 -> new Requirement.Not(string());
+                case 2 -> new Requirement.Nor(strings());
+                case 3 -> new Requirement.Or(strings());
+                default -> throw new IllegalArgumentException("Unknown requirement kind " + kind + " at " + pos);
+            };
+        }
+
+        <T> List<T> list(Function<Decoder, T> reader) {
+            int size = varint() - 1;
+            if (size < 0) return null;
+            var items = new ArrayList<T>(bounded(size));
+            for (int i = 0; i < size; i++) {
+                items.add(reader.apply(this));
+            }
+            return Collections.unmodifiableList(items);
+        }
+
+        private List<String> strings() {
+            return list(Decoder::string);
+        }
+
+        Map<String, String> map() {
+            int size = varint() - 1;
+            if (size < 0) return null;
+            var map = HashMap.<String, String>newHashMap(bounded(size));
+            for (int i = 0; i < size; i++) {
+                map.put(string(), string());
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        Map<String, String> mappedMap() {
+            int length = varint() - 1;
+            if (length < 0) return null;
+            var map = new MappedStringMap(in.asSlice(pos, bounded(length)));
+            pos += length;
+            return map;
+        }
+
+        String string() {
+            int ref = varint();
+            if (ref == 0) return null;
+            if (ref > 1) return seen.get(ref - 2);
+            int length = bounded(varint());
+            byte[] utf8 = new byte[length];
+            MemorySegment.copy(in, JAVA_BYTE, pos, utf8, 0, length);
+            pos += length;
+            String text = new String(utf8, StandardCharsets.UTF_8);
+            seen.add(text);
+            return text;
+        }
+
+        /**
+         * A count or length read from the input, checked against the bytes left (each item takes
+         * at least one) before anything is allocated for it, so a corrupt file fails with an
+         * exception rather than an OutOfMemoryError.
+         */
+        private int bounded(int size) {
+            if (size < 0 || size > in.byteSize() - pos) {
+                throw new IllegalArgumentException("Size " + size + " at " + pos + " exceeds the remaining input");
+            }
+            return size;
+        }
+
+        private boolean bool() {
+            return in.get(JAVA_BYTE, pos++) != 0;
+        }
+
+        private int signed() {
+            int zigzag = varint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        int int32() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (in.get(JAVA_BYTE, pos++) & 0xFF);
+            }
+            return value;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = in.get(JAVA_BYTE, pos++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint at " + pos);
+        }
+    }
+}
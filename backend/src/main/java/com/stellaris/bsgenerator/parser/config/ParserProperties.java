@@ -1,15 +1,54 @@
 package com.stellaris.bsgenerator.parser.config;
 
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * @param retainAsts   whether to keep parsed ASTs in memory after extraction. Off by default: they
+ *                     are written to the cache and dropped, and a reload reads them back from there.
+ * @param cacheSlots   how many ASTs and snapshots the cache keeps of each kind, e.g. for switching
+ *                     between installs or branches
+ * @param cacheMaxSize disk space the cache may take; the least recently used entries go first
+ */
 @ConfigurationProperties(prefix = "stellaris")
 public record ParserProperties(
         String gamePath,
-        String cachePath
+        String cachePath,
+        AstBackend astBackend,
+        Boolean parallelParsing,
+        Boolean watchGameFiles,
+        Boolean retainAsts,
+        Integer cacheSlots,
+        DataSize cacheMaxSize
 ) {
+    @ConstructorBinding
     public ParserProperties {
         if (cachePath == null || cachePath.isBlank()) {
             cachePath = System.getProperty("user.home") + "/.stellaris-bs-generator";
         }
+        if (astBackend == null) {
+            astBackend = AstBackend.RECORD;
+        }
+        if (parallelParsing == null) {
+            parallelParsing = true;
+        }
+        if (watchGameFiles == null) {
+            watchGameFiles = false;
+        }
+        if (retainAsts == null) {
+            retainAsts = false;
+        }
+        if (cacheSlots == null) {
+            cacheSlots = 4;
+        }
+        if (cacheMaxSize == null) {
+            cacheMaxSize = DataSize.ofMegabytes(512);
+        }
+    }
+
+    public ParserProperties(String gamePath, String cachePath) {
+        this(gamePath, cachePath, null, null, null, null, null, null);
     }
 }
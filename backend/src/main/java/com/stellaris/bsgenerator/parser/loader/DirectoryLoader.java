@@ -1,18 +1,33 @@
 package com.stellaris.bsgenerator.parser.loader;
 
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
+import com.stellaris.bsgenerator.parser.ast.AstBuilder;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
 import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.ClausewitzNodeBuilder;
 import com.stellaris.bsgenerator.parser.ast.ClausewitzParser;
-import com.stellaris.bsgenerator.parser.token.Tokenizer;
+import com.stellaris.bsgenerator.parser.ast.EntryFilter;
+import com.stellaris.bsgenerator.parser.ast.MergedRoot;
+import com.stellaris.bsgenerator.parser.ast.Projection;
+import com.stellaris.bsgenerator.parser.token.ByteLexer;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 @Slf4j
@@ -21,8 +36,46 @@ public final class DirectoryLoader {
     private DirectoryLoader() {}
 
     public static ClausewitzNode loadDirectory(Path directory, Map<String, String> globalVariables) throws IOException {
+        return loadDirectory(directory, globalVariables, new SymbolTable());
+    }
+
+    public static ClausewitzNode loadDirectory(Path directory, Map<String, String> globalVariables,
+                                               SymbolTable symbols) throws IOException {
+        return loadDirectory(directory, globalVariables, symbols, new ClausewitzNodeBuilder());
+    }
+
+    public static <T extends AstNode> T loadDirectory(Path directory, Map<String, String> globalVariables,
+                                                      SymbolTable symbols, AstBuilder<T> builder) throws IOException {
+        return loadDirectory(directory, globalVariables, symbols, builder, EntryFilter.ALL, Projection.ALL);
+    }
+
+    public static <T extends AstNode> T loadDirectory(Path directory, Map<String, String> globalVariables,
+                                                      SymbolTable symbols, AstBuilder<T> builder,
+                                                      EntryFilter filter, Projection schema) throws IOException {
+        return loadDirectory(directory, globalVariables, symbols, builder, filter, schema, null);
+    }
+
+    /**
+     * Parses every {@code .txt} file of a directory, in name order, into one root.
+     * <p>
+     * With an executor, files are parsed concurrently into per-file record trees that are then
+     * appended to {@code builder} in name order, so later files still override earlier ones
+     * deterministically. Each file then gets its own symbol table; the tables share a canonical
+     * map for the duration of the call, so equal identifiers still share one instance.
+     *
+     * @param symbols  table shared across the load to canonicalize keys and identifiers,
+     *                 or {@code null} to keep every token's text as a separate string
+     * @param builder  AST backend to build; a file that fails to parse is rolled back and skipped
+     * @param filter   top-level blocks to materialize; the rest are skipped while parsing
+     * @param schema   fields to materialize inside each top-level block
+     * @param executor runs the per-file parses, or {@code null} to parse sequentially
+     */
+    public static <T extends AstNode> T loadDirectory(Path directory, Map<String, String> globalVariables,
+                                                      SymbolTable symbols, AstBuilder<T> builder,
+                                                      EntryFilter filter, Projection schema,
+                                                      Executor executor) throws IOException {
         if (!Files.isDirectory(directory)) {
-            return ClausewitzNode.root(List.of());
+            return builder.build();
         }
 
         List<Path> files;
@@ -33,25 +86,138 @@ public final class DirectoryLoader {
                     .toList();
         }
 
-        var allChildren = new ArrayList<ClausewitzNode>();
-        for (Path file : files) {
-            var fileVars = new HashMap<>(globalVariables);
-            try {
-                ClausewitzNode fileRoot = parseFile(file, fileVars);
-                allChildren.addAll(fileRoot.children());
-            } catch (Exception e) {
-                log.warn("Skipping file {} due to parse error: {}", file.getFileName(), e.getMessage());
+        if (executor == null) {
+            for (Path file : files) {
+                var fileVars = new LayeredVariables(globalVariables);
+                int mark = builder.mark();
+                try {
+                    parseFile(file, fileVars, symbols, builder, filter, schema);
+                } catch (Exception e) {
+                    builder.rollback(mark);
+                    logSkipped(file, e);
+                }
+            }
+        } else {
+            Map<String, String> canonical = symbols != null ? new ConcurrentHashMap<>() : null;
+            var parses = new ArrayList<CompletableFuture<ClausewitzNode>>(files.size());
+            for (Path file : files) {
+                parses.add(CompletableFuture.supplyAsync(() -> {
+                    var fileBuilder = new ClausewitzNodeBuilder();
+                    try {
+                        parseFile(file, new LayeredVariables(globalVariables),
+                                canonical != null ? new SymbolTable(canonical) : null,
+                                fileBuilder, filter, schema);
+                    } catch (Exception e) {
+                        logSkipped(file, e);
+                        return null;
+                    }
+                    return fileBuilder.build();
+                }, executor));
+            }
+            for (var parse : parses) {
+                ClausewitzNode fileRoot = parse.join();
+                if (fileRoot == null) continue;
+                for (var entry : fileRoot.children()) {
+                    builder.append(entry);
+                }
             }
         }
 
-        log.debug("Loaded {} top-level entries from {}", allChildren.size(), directory);
-        return ClausewitzNode.root(allChildren);
+        T root = builder.build();
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded {} top-level entries from {}", root.children().size(), directory);
+        }
+        return root;
+    }
+
+    /**
+     * Lists a directory's {@code .txt} files and parses them, see {@link #loadFiles(List, Map,
+     * Map, AstBackend, EntryFilter, Projection, Map, Executor)}.
+     */
+    public static SortedMap<String, ParsedFile> loadFiles(Path directory, Map<String, String> globalVariables,
+                                                          Map<String, String> canonicalSymbols, AstBackend backend,
+                                                          EntryFilter filter, Projection schema,
+                                                          Map<String, ParsedFile> previous,
+                                                          Executor executor) throws IOException {
+        return loadFiles(GameFileScan.list(directory, ".txt"), globalVariables, canonicalSymbols, backend, filter,
+                schema, previous, executor);
     }
 
-    static ClausewitzNode parseFile(Path file, Map<String, String> variables) throws IOException {
-        String content = ScriptedVariableLoader.stripBom(
-                Files.readString(file, StandardCharsets.UTF_8));
-        var tokens = Tokenizer.tokenize(content);
-        return ClausewitzParser.parse(tokens, variables);
+    /**
+     * Parses the given files of one directory, as listed by a {@link GameFileScan}, reusing the
+     * tree of every file whose stamp matches its entry in {@code previous}. Each file is parsed
+     * straight into its own tree of {@code backend}, with its own symbol table; a file that fails
+     * to parse is kept as an empty tree, so it isn't retried until it changes.
+     *
+     * @param canonicalSymbols canonical instances shared by the per-file symbol tables (a
+     *                         concurrent map owned by the load), or {@code null} to keep every
+     *                         token's text as a separate string
+     * @param previous earlier result for this directory, keyed by file name (may be empty)
+     * @param executor runs the parses of changed files, or {@code null} to parse sequentially
+     * @return every current file by name, in name order
+     */
+    public static SortedMap<String, ParsedFile> loadFiles(List<GameFileScan.Entry> entries,
+                                                          Map<String, String> globalVariables,
+                                                          Map<String, String> canonicalSymbols, AstBackend backend,
+                                                          EntryFilter filter, Projection schema,
+                                                          Map<String, ParsedFile> previous,
+                                                          Executor executor) {
+        var files = new TreeMap<String, ParsedFile>();
+        var parses = new TreeMap<String, CompletableFuture<ParsedFile>>();
+        for (var entry : entries) {
+            Path file = entry.path();
+            String name = file.getFileName().toString();
+            String stamp = entry.stamp();
+            ParsedFile earlier = previous.get(name);
+            if (earlier != null && earlier.stamp().equals(stamp)) {
+                files.put(name, earlier);
+                continue;
+            }
+            parses.put(name, CompletableFuture.supplyAsync(() -> {
+                SymbolTable symbols = canonicalSymbols != null ? new SymbolTable(canonicalSymbols) : null;
+                AstBuilder<?> fileBuilder = backend.newBuilder(symbols);
+                int mark = fileBuilder.mark();
+                try {
+                    parseFile(file, new LayeredVariables(globalVariables), symbols, fileBuilder, filter, schema);
+                } catch (Exception e) {
+                    fileBuilder.rollback(mark);
+                    logSkipped(file, e);
+                }
+                return new ParsedFile(stamp, fileBuilder.build());
+            }, executor != null ? executor : Runnable::run));
+        }
+        parses.forEach((name, parse) -> files.put(name, parse.join()));
+
+        if (log.isDebugEnabled()) {
+            log.debug("Parsed {} of {} files", parses.size(), files.size());
+        }
+        return files;
+    }
+
+    /** One root over the entries of {@code files}, in iteration order, sharing rather than copying them. */
+    public static AstNode merge(Iterable<ParsedFile> files) {
+        var roots = new ArrayList<AstNode>();
+        for (ParsedFile file : files) {
+            roots.add(file.root());
+        }
+        return new MergedRoot(roots);
+    }
+
+    private static void logSkipped(Path file, Exception e) {
+        log.warn("Skipping file {} due to parse error: {}", file.getFileName(), e.getMessage());
+    }
+
+    /**
+     * Parses a file straight from its memory-mapped UTF-8 bytes. The mapping is scoped to a
+     * confined arena so it is released as soon as parsing finishes (important on Windows,
+     * where a live mapping keeps the game file locked).
+     */
+    static void parseFile(Path file, Map<String, String> variables, SymbolTable symbols,
+                          AstBuilder<?> builder, EntryFilter filter, Projection schema) throws IOException {
+        try (var arena = Arena.ofConfined();
+             var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            ClausewitzParser.parseInto(new ByteLexer(bytes, symbols), variables, builder, filter, schema);
+        }
     }
 }
@@ -0,0 +1,65 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import com.stellaris.bsgenerator.extractor.AuthorityExtractor;
+import com.stellaris.bsgenerator.extractor.CivicExtractor;
+import com.stellaris.bsgenerator.extractor.EthicExtractor;
+import com.stellaris.bsgenerator.extractor.GraphicalCultureExtractor;
+import com.stellaris.bsgenerator.extractor.OriginExtractor;
+import com.stellaris.bsgenerator.extractor.PlanetClassExtractor;
+import com.stellaris.bsgenerator.extractor.SpeciesArchetypeExtractor;
+import com.stellaris.bsgenerator.extractor.SpeciesClassExtractor;
+import com.stellaris.bsgenerator.extractor.SpeciesTraitExtractor;
+import com.stellaris.bsgenerator.extractor.StartingRulerTraitExtractor;
+import com.stellaris.bsgenerator.parser.ast.EntryFilter;
+import com.stellaris.bsgenerator.parser.ast.Projection;
+
+import java.nio.file.Path;
+
+/**
+ * Game file directories under {@code common/} that are parsed, with the top-level entries and
+ * fields the extractors actually read from each. Everything else is skipped while parsing.
+ */
+public enum GameCategory {
+
+    ETHICS("ethics", EntryFilter.ALL, EthicExtractor.SCHEMA),
+    AUTHORITIES("governments/authorities", EntryFilter.ALL, AuthorityExtractor.SCHEMA),
+    /** Civics and origins share one directory. */
+    CIVICS("governments/civics", EntryFilter.ALL, CivicExtractor.SCHEMA.union(OriginExtractor.SCHEMA)),
+    SPECIES_ARCHETYPES("species_archetypes", EntryFilter.ALL, SpeciesArchetypeExtractor.SCHEMA),
+    /** Species traits ({@code allowed_archetypes} + {@code cost}) and starting ruler traits. */
+    TRAITS("traits",
+            EntryFilter.withChildren("allowed_archetypes", "cost")
+                    .or(EntryFilter.withChildren("starting_ruler_trait")),
+            SpeciesTraitExtractor.SCHEMA.union(StartingRulerTraitExtractor.SCHEMA)),
+    PLANET_CLASSES("planet_classes", EntryFilter.withChildren("colonizable", "initial"), PlanetClassExtractor.SCHEMA),
+    GRAPHICAL_CULTURES("graphical_culture", EntryFilter.ALL, GraphicalCultureExtractor.SCHEMA),
+    SPECIES_CLASSES("species_classes", EntryFilter.withChildren("archetype"), SpeciesClassExtractor.SCHEMA);
+
+    private final String subdirectory;
+    private final EntryFilter filter;
+    private final Projection projection;
+
+    GameCategory(String subdirectory, EntryFilter filter, Projection projection) {
+        this.subdirectory = subdirectory;
+        this.filter = filter;
+        this.projection = projection;
+    }
+
+    /** Path relative to {@code common/}, with forward slashes. */
+    public String subdirectory() {
+        return subdirectory;
+    }
+
+    public EntryFilter filter() {
+        return filter;
+    }
+
+    /** Fields of each entry read by the category's extractors; the rest is skipped while parsing. */
+    public Projection projection() {
+        return projection;
+    }
+
+    public Path resolve(Path common) {
+        return common.resolve(subdirectory);
+    }
+}
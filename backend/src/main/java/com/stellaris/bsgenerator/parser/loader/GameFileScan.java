@@ -0,0 +1,128 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One listing of every game file input, with the attributes that fingerprinting, change
+ * detection and parsing need, so that each directory is listed and each file stat'ed once.
+ * <p>
+ * Directories are walked with {@link Files#walkFileTree}, which hands over the attributes
+ * gathered while listing (free on Windows, where they come with the directory entries) instead
+ * of a separate metadata call per file.
+ */
+public final class GameFileScan {
+
+    public static final String SCRIPTED_VARIABLES = "common/scripted_variables";
+    public static final String LOCALISATION = "localisation/english";
+    public static final String TRAIT_ICONS = "interface/icons/traits";
+
+    /** A file found by the scan, with the attributes it had then. */
+    public record Entry(Path path, long lastModified, long size) {
+
+        /** Modification time and size, the change-detection key of {@link ParsedFile}. */
+        public String stamp() {
+            return lastModified + ":" + size;
+        }
+    }
+
+    private final Path gamePath;
+    private final Map<String, List<Entry>> directories;
+
+    private GameFileScan(Path gamePath, Map<String, List<Entry>> directories) {
+        this.gamePath = gamePath;
+        this.directories = directories;
+    }
+
+    /** Scanned directories relative to the game path, with the file name suffix of their inputs. */
+    private static final Map<String, String> INPUTS = inputs();
+
+    private static Map<String, String> inputs() {
+        var inputs = new LinkedHashMap<String, String>();
+        inputs.put(SCRIPTED_VARIABLES, ".txt");
+        for (GameCategory category : GameCategory.values()) {
+            inputs.put(directory(category), ".txt");
+        }
+        inputs.put(LOCALISATION, "_l_english.yml");
+        inputs.put(TRAIT_ICONS, ".gfx");
+        return Collections.unmodifiableMap(inputs);
+    }
+
+    /** Scans the scripted variables, every {@link GameCategory}, English localization and trait icon sprites. */
+    public static GameFileScan scan(Path gamePath) throws IOException {
+        var directories = new LinkedHashMap<String, List<Entry>>();
+        for (var input : INPUTS.entrySet()) {
+            directories.put(input.getKey(), list(gamePath.resolve(input.getKey()), input.getValue()));
+        }
+        return new GameFileScan(gamePath, directories);
+    }
+
+    /** Every directory a scan covers, relative to the game path. */
+    public static Set<String> directories() {
+        return INPUTS.keySet();
+    }
+
+    /** Directory of a category relative to the game path. */
+    public static String directory(GameCategory category) {
+        return "common/" + category.subdirectory();
+    }
+
+    /**
+     * Files directly inside {@code directory} whose name ends in {@code suffix}, in name order;
+     * empty if the directory doesn't exist.
+     */
+    public static List<Entry> list(Path directory, String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        var entries = new ArrayList<Entry>();
+        FileVisitor<Path> visitor = new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && file.getFileName().toString().endsWith(suffix)) {
+                    entries.add(new Entry(file, attributes.lastModifiedTime().toMillis(), attributes.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        };
+        Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, visitor);
+        entries.sort(Comparator.comparing(Entry::path));
+        return List.copyOf(entries);
+    }
+
+    public Path gamePath() {
+        return gamePath;
+    }
+
+    /**
+     * Files of a scanned directory, in name order.
+     *
+     * @param directory one of the constants of this class or {@link #directory(GameCategory)}
+     * @throws IllegalArgumentException if the directory wasn't part of the scan
+     */
+    public List<Entry> files(String directory) {
+        List<Entry> entries = directories.get(directory);
+        if (entries == null) {
+            throw new IllegalArgumentException("Directory not scanned: " + directory);
+        }
+        return entries;
+    }
+
+    public List<Entry> files(GameCategory category) {
+        return files(directory(category));
+    }
+}
@@ -1,6 +1,7 @@
 package com.stellaris.bsgenerator.parser.loader;
 
 import com.stellaris.bsgenerator.config.SettingsService;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
 import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
 import lombok.Getter;
@@ -9,69 +10,305 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class GameFileService {
 
+    /** Key of the scripted variables in {@link #exportParsedFiles}. */
+    public static final String SCRIPTED_VARIABLES = "scripted_variables";
+
     private final ParserProperties properties;
     private final SettingsService settingsService;
 
-    @Getter private ClausewitzNode ethics;
-    @Getter private ClausewitzNode authorities;
-    @Getter private ClausewitzNode civics;
-    @Getter private ClausewitzNode origins;
-    @Getter private ClausewitzNode speciesArchetypes;
-    @Getter private ClausewitzNode traits;
-    @Getter private ClausewitzNode planetClasses;
-    @Getter private ClausewitzNode graphicalCultures;
-    @Getter private ClausewitzNode speciesClasses;
+    @Getter private volatile AstNode ethics;
+    @Getter private volatile AstNode authorities;
+    @Getter private volatile AstNode civics;
+    @Getter private volatile AstNode origins;
+    @Getter private volatile AstNode speciesArchetypes;
+    @Getter private volatile AstNode traits;
+    @Getter private volatile AstNode planetClasses;
+    @Getter private volatile AstNode graphicalCultures;
+    @Getter private volatile AstNode speciesClasses;
+
+    /** Per-file results of the latest load by category, reused by the next load for unchanged files. */
+    private final Map<GameCategory, SortedMap<String, ParsedFile>> parsedFiles = new ConcurrentHashMap<>();
+    /** Game path and scripted variables that {@link #parsedFiles} were parsed against. */
+    private volatile Path parsedGamePath;
+    private volatile Map<String, String> parsedGlobals;
 
     public void loadAll() throws IOException {
-        Path gamePath = Path.of(settingsService.getEffectiveGamePath());
-        Path common = gamePath.resolve("common");
+        loadAll(true);
+    }
+
+    /** Loads all categories and waits for them; {@code internSymbols = false} keeps every token's text separate. */
+    void loadAll(boolean internSymbols) throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            await(CompletableFuture.allOf(loadAllAsync(executor, null, new LoadProgress(List.of()), internSymbols)
+                    .values().toArray(CompletableFuture[]::new)));
+        }
+    }
+
+    public Map<GameCategory, CompletableFuture<AstNode>> loadAllAsync(Executor executor) {
+        return loadAllAsync(executor, null, new LoadProgress(List.of()), true);
+    }
+
+    /** Loads the files listed by {@code scan} rather than listing the directories again. */
+    public Map<GameCategory, CompletableFuture<AstNode>> loadAllAsync(Executor executor, GameFileScan scan) {
+        return loadAllAsync(executor, scan, new LoadProgress(List.of()), true);
+    }
+
+    /**
+     * Loads the files listed by {@code scan}, reporting each phase ({@value #SCRIPTED_VARIABLES},
+     * then every category by {@link GameCategory#subdirectory}) to {@code progress}.
+     */
+    public Map<GameCategory, CompletableFuture<AstNode>> loadAllAsync(Executor executor, GameFileScan scan,
+                                                                      LoadProgress progress) {
+        return loadAllAsync(executor, scan, progress, true);
+    }
+
+    private record Inputs(GameFileScan scan, Map<String, String> globals) {}
+
+    /**
+     * Starts loading every category on {@code executor}: the scan (unless given) and scripted
+     * variables first, then all categories at once (one after another when parallel parsing is
+     * disabled). Each category is published to its getter as soon as it is parsed, and its
+     * future completes then.
+     * <p>
+     * Only files changed since the previous load (or {@link #restoreParsedFiles}) are parsed. A
+     * category none of whose files changed completes with its current root instance, so callers
+     * can skip re-extracting it; a change to the scripted variables re-parses everything.
+     */
+    Map<GameCategory, CompletableFuture<AstNode>> loadAllAsync(Executor executor, GameFileScan scan,
+                                                               LoadProgress progress, boolean internSymbols) {
+        Path gamePath = scan != null ? scan.gamePath() : Path.of(settingsService.getEffectiveGamePath());
+        boolean parallel = properties.parallelParsing();
+        Executor categoryExecutor = parallel ? executor : Runnable::run;
+        Executor fileExecutor = parallel ? executor : null;
 
         log.info("Loading game files from {}", gamePath);
         long start = System.currentTimeMillis();
+        // Canonical symbol instances of this load, shared by its per-file and per-category tables
+        Map<String, String> symbols = internSymbols ? new ConcurrentHashMap<>() : null;
 
-        // Load global scripted variables first
-        Map<String, String> globalVars = ScriptedVariableLoader.loadFromDirectory(
-                common.resolve("scripted_variables"));
-        log.info("Loaded {} global scripted variables", globalVars.size());
+        // List the inputs and load global scripted variables first; every category depends on them
+        CompletableFuture<Inputs> inputs = CompletableFuture.supplyAsync(() -> {
+            long phaseStart = System.currentTimeMillis();
+            GameFileScan files = scan != null ? scan : unchecked(() -> GameFileScan.scan(gamePath));
+            List<GameFileScan.Entry> variableFiles = files.files(GameFileScan.SCRIPTED_VARIABLES);
+            progress.start(SCRIPTED_VARIABLES, variableFiles.size());
+            Map<String, String> vars = unchecked(() -> ScriptedVariableLoader.loadFromFiles(variableFiles));
+            progress.finish(SCRIPTED_VARIABLES, variableFiles.size(),
+                    variableFiles.stream().mapToLong(GameFileScan.Entry::size).sum());
+            log.info("Loaded {} global scripted variables in {}ms", vars.size(), System.currentTimeMillis() - phaseStart);
+            if (!gamePath.equals(parsedGamePath) || !vars.equals(parsedGlobals)) {
+                // Every parse depends on both, so no earlier result can be reused
+                parsedFiles.clear();
+                parsedGamePath = gamePath;
+                parsedGlobals = vars;
+            }
+            return new Inputs(files, vars);
+        }, categoryExecutor);
 
-        // Parse each category
-        ethics = DirectoryLoader.loadDirectory(common.resolve("ethics"), globalVars);
-        log.info("Loaded {} ethics", ethics.children().size());
+        var futures = new EnumMap<GameCategory, CompletableFuture<AstNode>>(GameCategory.class);
+        var timings = new ConcurrentHashMap<GameCategory, Long>();
+        for (GameCategory category : GameCategory.values()) {
+            futures.put(category, inputs.thenApplyAsync(in -> {
+                long phaseStart = System.currentTimeMillis();
+                List<GameFileScan.Entry> entries = in.scan().files(category);
+                progress.start(category.subdirectory(), entries.size());
+                SortedMap<String, ParsedFile> previous = parsedFiles.getOrDefault(category, Collections.emptySortedMap());
+                SortedMap<String, ParsedFile> files = DirectoryLoader.loadFiles(entries,
+                        in.globals(), symbols, properties.astBackend(), category.filter(), category.projection(),
+                        previous, fileExecutor);
+                parsedFiles.put(category, files);
 
-        authorities = DirectoryLoader.loadDirectory(
-                common.resolve("governments").resolve("authorities"), globalVars);
-        log.info("Loaded {} authorities", authorities.children().size());
+                int parsed = 0;
+                long bytesRead = 0;
+                for (GameFileScan.Entry entry : entries) {
+                    String name = entry.path().getFileName().toString();
+                    if (previous.get(name) != files.get(name)) {
+                        parsed++;
+                        bytesRead += entry.size();
+                    }
+                }
+                progress.finish(category.subdirectory(), parsed, bytesRead);
+                AstNode root = get(category);
+                if (root == null || parsed > 0 || files.size() != previous.size()) {
+                    root = DirectoryLoader.merge(files.values());
+                    publish(category, root);
+                }
+                long elapsed = System.currentTimeMillis() - phaseStart;
+                timings.put(category, elapsed);
+                log.info("Loaded {} {} entries ({} of {} files parsed) in {}ms", root.children().size(),
+                        category.subdirectory(), parsed, files.size(), elapsed);
+                return root;
+            }, categoryExecutor));
+        }
 
-        civics = DirectoryLoader.loadDirectory(
-                common.resolve("governments").resolve("civics"), globalVars);
-        log.info("Loaded {} civics/origins entries", civics.children().size());
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).thenRun(() -> {
+            var slowest = Collections.max(timings.entrySet(), Map.Entry.comparingByValue());
+            log.info("Game file loading complete in {}ms (slowest: {} in {}ms, {} AST)",
+                    System.currentTimeMillis() - start, slowest.getKey().subdirectory(), slowest.getValue(),
+                    properties.astBackend());
+        });
+        return futures;
+    }
 
-        speciesArchetypes = DirectoryLoader.loadDirectory(
-                common.resolve("species_archetypes"), globalVars);
-        log.info("Loaded {} species archetypes", speciesArchetypes.children().size());
+    /** Parsed root of a category, or null before it has been loaded. */
+    public AstNode get(GameCategory category) {
+        return switch (category) {
+            case ETHICS -> ethics;
+            case AUTHORITIES -> authorities;
+            case CIVICS -> civics;
+            case SPECIES_ARCHETYPES -> speciesArchetypes;
+            case TRAITS -> traits;
+            case PLANET_CLASSES -> planetClasses;
+            case GRAPHICAL_CULTURES -> graphicalCultures;
+            case SPECIES_CLASSES -> speciesClasses;
+        };
+    }
 
-        traits = DirectoryLoader.loadDirectory(common.resolve("traits"), globalVars);
-        log.info("Loaded {} traits", traits.children().size());
+    /**
+     * The scripted variables and per-file results of the latest load, for the cache: the
+     * variables as leaves under {@value #SCRIPTED_VARIABLES}, each file under
+     * {@code <subdirectory>/<file name>}.
+     */
+    public Map<String, ParsedFile> exportParsedFiles() {
+        var exported = new LinkedHashMap<String, ParsedFile>();
+        Map<String, String> globals = parsedGlobals;
+        if (globals == null) return exported;
 
-        planetClasses = DirectoryLoader.loadDirectory(common.resolve("planet_classes"), globalVars);
-        log.info("Loaded {} planet class entries", planetClasses.children().size());
+        var variables = new ArrayList<ClausewitzNode>(globals.size());
+        new TreeMap<>(globals).forEach((name, value) -> variables.add(ClausewitzNode.leaf(name, value)));
+        exported.put(SCRIPTED_VARIABLES, new ParsedFile("", ClausewitzNode.root(variables)));
+        for (GameCategory category : GameCategory.values()) {
+            parsedFiles.getOrDefault(category, Collections.emptySortedMap())
+                    .forEach((name, file) -> exported.put(category.subdirectory() + "/" + name, file));
+        }
+        return exported;
+    }
 
-        graphicalCultures = DirectoryLoader.loadDirectory(common.resolve("graphical_culture"), globalVars);
-        log.info("Loaded {} graphical culture entries", graphicalCultures.children().size());
+    /**
+     * Seeds the next load with per-file results from {@link #exportParsedFiles} (e.g. read back
+     * from the cache), so that only files changed since then are parsed. Published roots are
+     * cleared until that load.
+     */
+    public void restoreParsedFiles(Map<String, ParsedFile> files) {
+        ParsedFile variables = files.get(SCRIPTED_VARIABLES);
+        if (variables == null) return;
 
-        speciesClasses = DirectoryLoader.loadDirectory(common.resolve("species_classes"), globalVars);
-        log.info("Loaded {} species class entries", speciesClasses.children().size());
+        var globals = new HashMap<String, String>();
+        for (var variable : variables.root().children()) {
+            globals.put(variable.key(), variable.value());
+        }
+        var byCategory = new EnumMap<GameCategory, SortedMap<String, ParsedFile>>(GameCategory.class);
+        files.forEach((key, file) -> {
+            int slash = key.lastIndexOf('/');
+            if (slash < 0) return;
+            String subdirectory = key.substring(0, slash);
+            for (GameCategory category : GameCategory.values()) {
+                if (category.subdirectory().equals(subdirectory)) {
+                    byCategory.computeIfAbsent(category, _ -> new TreeMap<>()).put(key.substring(slash + 1), file);
+                }
+            }
+        });
 
-        long elapsed = System.currentTimeMillis() - start;
-        log.info("Game file loading complete in {}ms", elapsed);
+        for (GameCategory category : GameCategory.values()) {
+            publish(category, null);
+        }
+        parsedFiles.clear();
+        parsedFiles.putAll(byCategory);
+        parsedGamePath = Path.of(settingsService.getEffectiveGamePath());
+        parsedGlobals = Map.copyOf(globals);
     }
 
+    /** Whether per-file results are held, from a load or {@link #restoreParsedFiles}, and not released since. */
+    public boolean hasParsedFiles() {
+        return parsedGlobals != null;
+    }
+
+    /** Whether {@link #releaseParsedFiles} should follow extraction, see {@link ParserProperties#retainAsts}. */
+    public boolean retainsParsedFiles() {
+        return properties.retainAsts();
+    }
+
+    /**
+     * Drops every parsed tree: the published roots and the per-file results. The next load parses
+     * everything again unless it is seeded by {@link #restoreParsedFiles} first.
+     */
+    public void releaseParsedFiles() {
+        for (GameCategory category : GameCategory.values()) {
+            publish(category, null);
+        }
+        parsedFiles.clear();
+        parsedGamePath = null;
+        parsedGlobals = null;
+    }
+
+    /** Parsed trees held for {@code category}: its published root, then each file's entries. */
+    public List<AstNode> retainedTrees(GameCategory category) {
+        var trees = new ArrayList<AstNode>();
+        AstNode root = get(category);
+        if (root != null) trees.add(root);
+        parsedFiles.getOrDefault(category, Collections.emptySortedMap()).values()
+                .forEach(file -> trees.add(file.root()));
+        return trees;
+    }
+
+    private void publish(GameCategory category, AstNode root) {
+        switch (category) {
+            case ETHICS -> ethics = root;
+            case AUTHORITIES -> authorities = root;
+            case CIVICS -> civics = root;
+            case SPECIES_ARCHETYPES -> speciesArchetypes = root;
+            case TRAITS -> traits = root;
+            case PLANET_CLASSES -> planetClasses = root;
+            case GRAPHICAL_CULTURES -> graphicalCultures = root;
+            case SPECIES_CLASSES -> speciesClasses = root;
+        }
+    }
+
+    /** Waits for {@code future}, rethrowing an I/O failure of any stage as the original IOException. */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    static <T> T unchecked(IoSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
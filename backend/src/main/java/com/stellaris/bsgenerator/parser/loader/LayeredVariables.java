@@ -0,0 +1,95 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Scripted variables visible to one file: a shared, never-copied global layer plus a
+ * per-file overlay that receives the file's own {@code @name = value} definitions.
+ * <p>
+ * Creating a scope is O(1), so per-file cost no longer grows with the number of globals.
+ * Lookups check the overlay first. Writes never reach the global layer.
+ */
+final class LayeredVariables extends AbstractMap<String, String> {
+
+    private final Map<String, String> globals;
+    private Map<String, String> overlay;
+
+    /** @param globals shared layer; must not change while scopes over it are in use */
+    LayeredVariables(Map<String, String> globals) {
+        this.globals = globals;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (overlay != null) {
+            String value = overlay.get(key);
+            if (value != null) return value;
+        }
+        return globals.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (overlay != null && overlay.containsKey(key)) || globals.containsKey(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (overlay == null) {
+            overlay = new HashMap<>();
+        }
+        String previous = get(key);
+        overlay.put(key, value);
+        return previous;
+    }
+
+    /** Definitions made in this scope, without the global layer. */
+    Map<String, String> overlay() {
+        return overlay != null ? overlay : Map.of();
+    }
+
+    /** O(overlay): globals shadowed by the overlay are counted once. */
+    @Override
+    public int size() {
+        int size = globals.size();
+        for (String key : overlay().keySet()) {
+            if (!globals.containsKey(key)) size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return globals.isEmpty() && overlay().isEmpty();
+    }
+
+    /**
+     * Merged view without copying either layer: the overlay's entries, then the globals it
+     * doesn't shadow. Read-only.
+     */
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Map<String, String> local = overlay();
+                return Stream.concat(
+                                local.entrySet().stream(),
+                                globals.entrySet().stream().filter(e -> !local.containsKey(e.getKey())))
+                        .map(e -> Map.entry(e.getKey(), e.getValue()))
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return LayeredVariables.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of one load, phase by phase (scripted variables, each {@link GameCategory},
+ * localization, ...), for reporting while the load runs. Phases are updated by the tasks that
+ * load them, from any thread.
+ */
+public final class LoadProgress {
+
+    public enum State { PENDING, LOADING, DONE, FAILED }
+
+    /**
+     * @param filesParsed files actually parsed; unchanged files reused from an earlier load don't count
+     * @param bytesRead   size of the files parsed
+     * @param elapsedMs   time since the phase started, up to now while it is loading
+     */
+    public record Phase(String name, State state, int filesParsed, int filesTotal, long bytesRead, long elapsedMs) {}
+
+    private static final class Tracker {
+        State state = State.PENDING;
+        int filesParsed;
+        int filesTotal;
+        long bytesRead;
+        long startedAt;
+        long finishedAt;
+    }
+
+    private final Map<String, Tracker> phases = new LinkedHashMap<>();
+
+    /** Progress with the given phases pending, reported in that order. */
+    public LoadProgress(List<String> phases) {
+        phases.forEach(phase -> this.phases.put(phase, new Tracker()));
+    }
+
+    public synchronized void start(String phase, int filesTotal) {
+        Tracker tracker = tracker(phase);
+        tracker.state = State.LOADING;
+        tracker.filesTotal = filesTotal;
+        tracker.startedAt = System.currentTimeMillis();
+    }
+
+    public synchronized void finish(String phase, int filesParsed, long bytesRead) {
+        Tracker tracker = tracker(phase);
+        tracker.state = State.DONE;
+        tracker.filesParsed = filesParsed;
+        tracker.bytesRead = bytesRead;
+        tracker.finishedAt = System.currentTimeMillis();
+    }
+
+    public synchronized void fail(String phase) {
+        Tracker tracker = tracker(phase);
+        tracker.state = State.FAILED;
+        tracker.finishedAt = System.currentTimeMillis();
+    }
+
+    /** Marks every phase that hasn't finished as failed, e.g. after the load was aborted. */
+    public synchronized void abort() {
+        long now = System.currentTimeMillis();
+        for (Tracker tracker : phases.values()) {
+            if (tracker.state != State.DONE) {
+                tracker.state = State.FAILED;
+                tracker.finishedAt = now;
+            }
+        }
+    }
+
+    public synchronized List<Phase> phases() {
+        long now = System.currentTimeMillis();
+        return phases.entrySet().stream().map(entry -> {
+            Tracker t = entry.getValue();
+            long elapsed = switch (t.state) {
+                case PENDING -> 0;
+                case LOADING -> now - t.startedAt;
+                case DONE, FAILED -> t.startedAt == 0 ? 0 : t.finishedAt - t.startedAt;
+            };
+            return new Phase(entry.getKey(), t.state, t.filesParsed, t.filesTotal, t.bytesRead, elapsed);
+        }).toList();
+    }
+
+    private Tracker tracker(String phase) {
+        return phases.computeIfAbsent(phase, _ -> new Tracker());
+    }
+}
@@ -0,0 +1,11 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+
+/**
+ * Parse result of one game file, kept so that a reload can skip files that haven't changed.
+ *
+ * @param stamp modification time and size the file had when parsed, see {@link GameFileScan.Entry#stamp}
+ * @param root  the file's top-level entries (empty if it failed to parse)
+ */
+public record ParsedFile(String stamp, AstNode root) {}
@@ -1,62 +1,46 @@
 package com.stellaris.bsgenerator.parser.loader;
 
-import com.stellaris.bsgenerator.parser.token.Tokenizer;
-import com.stellaris.bsgenerator.parser.token.Token;
-import com.stellaris.bsgenerator.parser.token.TokenType;
-
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 public final class ScriptedVariableLoader {
 
     private ScriptedVariableLoader() {}
 
+    /**
+     * Loads the global scripted variables of a directory, in file name order.
+     *
+     * @return an immutable map, shared as the global layer of every file's variable scope
+     */
     public static Map<String, String> loadFromDirectory(Path directory) throws IOException {
-        var variables = new HashMap<String, String>();
         if (!Files.isDirectory(directory)) {
-            return variables;
-        }
-
-        List<Path> files;
-        try (Stream<Path> stream = Files.list(directory)) {
-            files = stream
-                    .filter(p -> p.toString().endsWith(".txt"))
-                    .sorted()
-                    .toList();
+            return Map.of();
         }
+        return loadFromFiles(GameFileScan.list(directory, ".txt"));
+    }
 
-        for (Path file : files) {
-            loadFromFile(file, variables);
+    /** Loads the global scripted variables of the given files, as listed by a {@link GameFileScan}. */
+    public static Map<String, String> loadFromFiles(List<GameFileScan.Entry> files) throws IOException {
+        var variables = new HashMap<String, String>();
+        for (var file : files) {
+            loadFromFile(file.path(), variables);
         }
-        return variables;
+        return Map.copyOf(variables);
     }
 
     private static void loadFromFile(Path file, Map<String, String> variables) throws IOException {
-        String content = stripBom(Files.readString(file, StandardCharsets.UTF_8));
-        List<Token> tokens = Tokenizer.tokenize(content);
-
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if (token.type() == TokenType.VARIABLE_DEF) {
-                if (i + 1 < tokens.size()) {
-                    Token valueToken = tokens.get(i + 1);
-                    if (valueToken.type() == TokenType.VARIABLE_REF) {
-                        String resolved = variables.get(valueToken.value());
-                        if (resolved != null) {
-                            variables.put(token.value(), resolved);
-                        }
-                    } else {
-                        variables.put(token.value(), valueToken.value());
-                    }
-                    i++;
-                }
-            }
+        try (var arena = Arena.ofConfined();
+             var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            ScriptedVariableScanner.scan(bytes, variables);
         }
     }
 
@@ -0,0 +1,147 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Finds {@code @name = value} definitions in raw UTF-8 bytes without tokenizing the rest of the
+ * file. Comments and quoted strings are skipped so an {@code @} inside them isn't mistaken for a
+ * definition; an {@code @} that isn't followed by {@code =} is a reference and ignored.
+ */
+final class ScriptedVariableScanner {
+
+    private ScriptedVariableScanner() {}
+
+    /**
+     * Adds every definition in {@code bytes} to {@code variables}. A value that is itself a
+     * reference is resolved against earlier definitions and dropped if undefined.
+     */
+    static void scan(MemorySegment bytes, Map<String, String> variables) {
+        long size = bytes.byteSize();
+        long pos = hasBom(bytes) ? 3 : 0;
+        boolean tokenStart = true;
+        while (pos < size) {
+            byte b = bytes.get(JAVA_BYTE, pos);
+            if (b == '#') {
+                pos = skipLine(bytes, pos);
+            } else if (b == '"') {
+                pos = skipString(bytes, pos);
+            } else if (b == '@' && tokenStart) {
+                pos = definition(bytes, pos + 1, variables);
+            } else {
+                pos++;
+            }
+            tokenStart = isDelimiter(b);
+        }
+    }
+
+    private static long definition(MemorySegment bytes, long pos, Map<String, String> variables) {
+        long size = bytes.byteSize();
+        long nameStart = pos;
+        pos = skipWord(bytes, pos);
+        if (pos == nameStart) return pos;
+        String name = decode(bytes, nameStart, pos, false);
+
+        pos = skipWhitespace(bytes, pos);
+        if (pos >= size || bytes.get(JAVA_BYTE, pos) != '=') return pos; // a reference, not a definition
+        pos = skipWhitespace(bytes, pos + 1);
+        if (pos >= size) return pos;
+
+        byte first = bytes.get(JAVA_BYTE, pos);
+        if (first == '"') {
+            long end = skipString(bytes, pos);
+            if (end <= size) {
+                variables.put(name, decode(bytes, pos + 1, end - 1, true));
+            }
+            return end;
+        }
+        if (first == '@') {
+            long refStart = pos + 1;
+            pos = skipWord(bytes, refStart);
+            String resolved = variables.get(decode(bytes, refStart, pos, false));
+            if (resolved != null) {
+                variables.put(name, resolved);
+            }
+            return pos;
+        }
+        long valueStart = pos;
+        pos = skipWord(bytes, pos);
+        if (pos > valueStart) {
+            variables.put(name, decode(bytes, valueStart, pos, false));
+        }
+        return pos;
+    }
+
+    private static boolean hasBom(MemorySegment bytes) {
+        return bytes.byteSize() >= 3
+                && bytes.get(JAVA_BYTE, 0) == (byte) 0xEF
+                && bytes.get(JAVA_BYTE, 1) == (byte) 0xBB
+                && bytes.get(JAVA_BYTE, 2) == (byte) 0xBF;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '{' || b == '}' || b == '=' || b == '"';
+    }
+
+    private static long skipWord(MemorySegment bytes, long pos) {
+        long size = bytes.byteSize();
+        while (pos < size) {
+            byte b = bytes.get(JAVA_BYTE, pos);
+            if (isDelimiter(b) || b == '#') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static long skipWhitespace(MemorySegment bytes, long pos) {
+        long size = bytes.byteSize();
+        while (pos < size) {
+            byte b = bytes.get(JAVA_BYTE, pos);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static long skipLine(MemorySegment bytes, long pos) {
+        long size = bytes.byteSize();
+        while (pos < size && bytes.get(JAVA_BYTE, pos) != '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /** Position just past the closing quote of the string starting at {@code pos}, or the end of input. */
+    private static long skipString(MemorySegment bytes, long pos) {
+        long size = bytes.byteSize();
+        pos++;
+        while (pos < size) {
+            byte b = bytes.get(JAVA_BYTE, pos);
+            if (b == '\\') {
+                pos += 2;
+            } else if (b == '"') {
+                return pos + 1;
+            } else {
+                pos++;
+            }
+        }
+        return size + 1;
+    }
+
+    private static String decode(MemorySegment bytes, long start, long end, boolean unescape) {
+        byte[] raw = bytes.asSlice(start, end - start).toArray(JAVA_BYTE);
+        int length = raw.length;
+        if (unescape) {
+            int out = 0;
+            for (int i = 0; i < raw.length; i++) {
+                if (raw[i] == '\\' && i + 1 < raw.length) i++;
+                raw[out++] = raw[i];
+            }
+            length = out;
+        }
+        return new String(raw, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,325 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull-based Clausewitz lexer over the raw UTF-8 bytes of a script, typically a memory-mapped file.
+ * <p>
+ * Character classes come from an ASCII lookup table instead of {@code Character.isLetter} calls.
+ * Every byte {@code >= 0x80} is treated as part of an identifier, which accepts the non-ASCII
+ * letters the char-based {@link Lexer} would accept (and is more lenient about other symbols).
+ * Bytes are only decoded to a {@code String} when {@link #text()} is called, and a leading
+ * UTF-8 BOM is skipped, so no full-file decode or copy is needed.
+ */
+public final class ByteLexer implements TokenSource {
+
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    private static final byte WHITESPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte IDENT_START = 4;
+    private static final byte IDENT_PART = 8;
+
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        for (char c : new char[] { ' ', '\t', '\n', '\u000B', '\f', '\r', '\u001C', '\u001D', '\u001E', '\u001F' }) {
+            CLASSES[c] = WHITESPACE;
+        }
+        for (int c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT | IDENT_PART;
+        for (int c = 'a'; c <= 'z'; c++) CLASSES[c] = IDENT_START | IDENT_PART;
+        for (int c = 'A'; c <= 'Z'; c++) CLASSES[c] = IDENT_START | IDENT_PART;
+        CLASSES['_'] = IDENT_START | IDENT_PART;
+        for (char c : new char[] { '-', '.', ':', '|', '\'', '/' }) {
+            CLASSES[c] = IDENT_PART;
+        }
+        for (int c = 0x80; c < 0x100; c++) CLASSES[c] = IDENT_START | IDENT_PART;
+    }
+
+    private final MemorySegment input;
+    private final SymbolTable symbols;
+    private final long length;
+    private final long contentStart;
+    private long pos;
+
+    // Current token
+    private TokenType type;
+    private long tokenStart;
+    private long textStart;
+    private long textEnd;
+    private boolean escaped;
+    private String text;
+
+    // One-token lookahead, filled on demand by peekType()
+    private boolean peeked;
+    private TokenType nextType;
+    private long nextTokenStart;
+    private long nextTextStart;
+    private long nextTextEnd;
+    private boolean nextEscaped;
+
+    // Result of the last scan()
+    private TokenType scanType;
+    private long scanTokenStart;
+    private long scanTextStart;
+    private long scanTextEnd;
+    private boolean scanEscaped;
+
+    public ByteLexer(MemorySegment input) {
+        this(input, null);
+    }
+
+    /** @param symbols table to canonicalize identifiers, numbers and variable names through, or {@code null} */
+    public ByteLexer(MemorySegment input, SymbolTable symbols) {
+        this.input = input;
+        this.symbols = symbols;
+        this.length = input.byteSize();
+        this.contentStart = length >= 3 && at(0) == 0xEF && at(1) == 0xBB && at(2) == 0xBF ? 3 : 0;
+        this.pos = contentStart;
+        scan();
+        takeScan();
+    }
+
+    @Override
+    public TokenType type() {
+        return type;
+    }
+
+    @Override
+    public TokenType peekType() {
+        if (type == TokenType.EOF) return TokenType.EOF;
+        if (!peeked) {
+            scan();
+            nextType = scanType;
+            nextTokenStart = scanTokenStart;
+            nextTextStart = scanTextStart;
+            nextTextEnd = scanTextEnd;
+            nextEscaped = scanEscaped;
+            peeked = true;
+        }
+        return nextType;
+    }
+
+    @Override
+    public String text() {
+        if (text == null) {
+            text = symbols != null && Lexer.isSymbol(type)
+                    ? symbols.intern(input, textStart, textEnd)
+                    : decode(textStart, textEnd, escaped);
+        }
+        return text;
+    }
+
+    @Override
+    public void advance() {
+        if (type == TokenType.EOF) return;
+        if (peeked) {
+            type = nextType;
+            tokenStart = nextTokenStart;
+            textStart = nextTextStart;
+            textEnd = nextTextEnd;
+            escaped = nextEscaped;
+            peeked = false;
+        } else {
+            scan();
+            takeScan();
+        }
+        text = null;
+    }
+
+    @Override
+    public long mark() {
+        return tokenStart;
+    }
+
+    @Override
+    public void reset(long mark) {
+        pos = mark;
+        peeked = false;
+        scan();
+        takeScan();
+    }
+
+    @Override
+    public Token token() {
+        int[] lineColumn = lineColumnAt(tokenStart);
+        return new Token(type, text(), lineColumn[0], lineColumn[1]);
+    }
+
+    private void takeScan() {
+        type = scanType;
+        tokenStart = scanTokenStart;
+        textStart = scanTextStart;
+        textEnd = scanTextEnd;
+        escaped = scanEscaped;
+        text = null;
+    }
+
+    private void scan() {
+        skipWhitespaceAndComments();
+        scanTokenStart = pos;
+        scanEscaped = false;
+        if (pos >= length) {
+            result(TokenType.EOF, pos, pos);
+            return;
+        }
+
+        int c = at(pos);
+        switch (c) {
+            case '{' -> single(TokenType.OPEN_BRACE);
+            case '}' -> single(TokenType.CLOSE_BRACE);
+            case '=' -> single(TokenType.EQUALS);
+            case '"' -> scanString();
+            case '@' -> scanVariable();
+            case '<', '>' -> scanComparison();
+            default -> {
+                if (is(c, DIGIT) || (c == '-' && pos + 1 < length && is(at(pos + 1), DIGIT))) {
+                    scanNumber();
+                } else if (is(c, IDENT_START)) {
+                    scanIdentifier();
+                } else {
+                    throw error("Unexpected character '" + (char) c + "'", pos);
+                }
+            }
+        }
+    }
+
+    private void single(TokenType tokenType) {
+        result(tokenType, pos, pos + 1);
+        pos++;
+    }
+
+    private void scanString() {
+        long start = pos;
+        pos++; // skip opening quote
+        long valueStart = pos;
+        while (pos < length && at(pos) != '"') {
+            if (at(pos) == '\\' && pos + 1 < length) {
+                scanEscaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= length) {
+            throw error("Unterminated string", start);
+        }
+        result(TokenType.STRING, valueStart, pos);
+        pos++; // skip closing quote
+    }
+
+    private void scanVariable() {
+        long start = pos;
+        pos++; // skip @
+        long nameStart = pos;
+        while (pos < length && is(at(pos), IDENT_PART)) {
+            pos++;
+        }
+        if (pos == nameStart) {
+            throw error("Empty variable name after @", start);
+        }
+        long nameEnd = pos;
+
+        // Peek ahead past whitespace on the same line for '=' to distinguish def vs ref
+        long afterName = pos;
+        while (pos < length && at(pos) != '\n' && is(at(pos), WHITESPACE)) {
+            pos++;
+        }
+        if (pos < length && at(pos) == '=') {
+            pos++; // consume '='
+            result(TokenType.VARIABLE_DEF, nameStart, nameEnd);
+            return;
+        }
+        pos = afterName;
+        result(TokenType.VARIABLE_REF, nameStart, nameEnd);
+    }
+
+    private void scanNumber() {
+        long start = pos;
+        if (at(pos) == '-') pos++;
+        while (pos < length && is(at(pos), DIGIT)) pos++;
+        if (pos < length && at(pos) == '.') {
+            pos++;
+            while (pos < length && is(at(pos), DIGIT)) pos++;
+        }
+        result(TokenType.NUMBER, start, pos);
+    }
+
+    private void scanIdentifier() {
+        long start = pos;
+        while (pos < length && is(at(pos), IDENT_PART)) pos++;
+        result(TokenType.IDENTIFIER, start, pos);
+    }
+
+    private void scanComparison() {
+        long start = pos;
+        pos++;
+        if (pos < length && at(pos) == '=') pos++;
+        result(TokenType.COMPARISON, start, pos);
+    }
+
+    private void result(TokenType tokenType, long start, long end) {
+        scanType = tokenType;
+        scanTextStart = start;
+        scanTextEnd = end;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            int c = at(pos);
+            if (c == '#') {
+                while (pos < length && at(pos) != '\n') pos++;
+            } else if (is(c, WHITESPACE)) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private String decode(long start, long end, boolean unescape) {
+        int size = (int) (end - start);
+        if (size == 0) return "";
+        byte[] bytes = new byte[size];
+        MemorySegment.copy(input, BYTE, start, bytes, 0, size);
+        if (unescape) {
+            int out = 0;
+            for (int i = 0; i < size; i++) {
+                if (bytes[i] == '\\' && i + 1 < size) i++;
+                bytes[out++] = bytes[i];
+            }
+            size = out;
+        }
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private TokenizerException error(String message, long offset) {
+        int[] lineColumn = lineColumnAt(offset);
+        return new TokenizerException(message, lineColumn[0], lineColumn[1]);
+    }
+
+    /** 1-based line and column (in characters, not bytes) of an offset, computed by rescanning up to it. */
+    private int[] lineColumnAt(long offset) {
+        int line = 1;
+        int column = 1;
+        for (long i = contentStart; i < offset && i < length; i++) {
+            int c = at(i);
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else if ((c & 0xC0) != 0x80) { // skip UTF-8 continuation bytes
+                column++;
+            }
+        }
+        return new int[] { line, column };
+    }
+
+    private int at(long index) {
+        return input.get(BYTE, index) & 0xFF;
+    }
+
+    private static boolean is(int c, byte flag) {
+        return (CLASSES[c] & flag) != 0;
+    }
+}
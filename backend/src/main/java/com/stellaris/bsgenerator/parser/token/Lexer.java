@@ -0,0 +1,306 @@
+package com.stellaris.bsgenerator.parser.token;
+
+/**
+ * Pull-based Clausewitz lexer over an in-memory script.
+ * <p>
+ * Produces the same token stream as {@link Tokenizer} but one token at a time, so the parser
+ * can consume a file without an intermediate {@code List<Token>}. Token text is only
+ * materialized when {@link #text()} is called, and line/column are derived from the
+ * token offset only when a {@link Token} is requested for error reporting.
+ */
+public final class Lexer implements TokenSource {
+
+    private final String input;
+    private final SymbolTable symbols;
+    private final int length;
+    private int pos;
+
+    // Current token
+    private TokenType type;
+    private int tokenStart;
+    private int textStart;
+    private int textEnd;
+    private boolean escaped;
+    private String text;
+
+    // One-token lookahead, filled on demand by peekType()
+    private boolean peeked;
+    private TokenType nextType;
+    private int nextTokenStart;
+    private int nextTextStart;
+    private int nextTextEnd;
+    private boolean nextEscaped;
+
+    // Result of the last scan()
+    private TokenType scanType;
+    private int scanTokenStart;
+    private int scanTextStart;
+    private int scanTextEnd;
+    private boolean scanEscaped;
+
+    public Lexer(String input) {
+        this(input, null);
+    }
+
+    /** @param symbols table to canonicalize identifiers, numbers and variable names through, or {@code null} */
+    public Lexer(String input, SymbolTable symbols) {
+        this.input = input;
+        this.symbols = symbols;
+        this.length = input.length();
+        scan();
+        takeScan();
+    }
+
+    @Override
+    public TokenType type() {
+        return type;
+    }
+
+    @Override
+    public TokenType peekType() {
+        if (type == TokenType.EOF) return TokenType.EOF;
+        if (!peeked) {
+            scan();
+            nextType = scanType;
+            nextTokenStart = scanTokenStart;
+            nextTextStart = scanTextStart;
+            nextTextEnd = scanTextEnd;
+            nextEscaped = scanEscaped;
+            peeked = true;
+        }
+        return nextType;
+    }
+
+    @Override
+    public String text() {
+        if (text == null) {
+            if (symbols != null && isSymbol(type)) {
+                text = symbols.intern(input, textStart, textEnd);
+            } else {
+                text = escaped ? unescape(textStart, textEnd) : input.substring(textStart, textEnd);
+            }
+        }
+        return text;
+    }
+
+    @Override
+    public void advance() {
+        if (type == TokenType.EOF) return;
+        if (peeked) {
+            type = nextType;
+            tokenStart = nextTokenStart;
+            textStart = nextTextStart;
+            textEnd = nextTextEnd;
+            escaped = nextEscaped;
+            peeked = false;
+        } else {
+            scan();
+            takeScan();
+        }
+        text = null;
+    }
+
+    @Override
+    public long mark() {
+        return tokenStart;
+    }
+
+    @Override
+    public void reset(long mark) {
+        pos = (int) mark;
+        peeked = false;
+        scan();
+        takeScan();
+    }
+
+    @Override
+    public Token token() {
+        int[] lineColumn = lineColumnAt(tokenStart);
+        return new Token(type, text(), lineColumn[0], lineColumn[1]);
+    }
+
+    /** Offset of the current token in the input (the quote for strings, the '@' for variables). */
+    int tokenStart() {
+        return tokenStart;
+    }
+
+    private void takeScan() {
+        type = scanType;
+        tokenStart = scanTokenStart;
+        textStart = scanTextStart;
+        textEnd = scanTextEnd;
+        escaped = scanEscaped;
+        text = null;
+    }
+
+    private void scan() {
+        skipWhitespaceAndComments();
+        scanTokenStart = pos;
+        scanEscaped = false;
+        if (pos >= length) {
+            result(TokenType.EOF, pos, pos);
+            return;
+        }
+
+        char c = input.charAt(pos);
+        switch (c) {
+            case '{' -> single(TokenType.OPEN_BRACE);
+            case '}' -> single(TokenType.CLOSE_BRACE);
+            case '=' -> single(TokenType.EQUALS);
+            case '"' -> scanString();
+            case '@' -> scanVariable();
+            case '<', '>' -> scanComparison();
+            default -> {
+                if (isDigitChar(c) || (c == '-' && pos + 1 < length && isDigitChar(input.charAt(pos + 1)))) {
+                    scanNumber();
+                } else if (isIdentStart(c)) {
+                    scanIdentifier();
+                } else {
+                    throw error("Unexpected character '" + c + "'", pos);
+                }
+            }
+        }
+    }
+
+    private void single(TokenType tokenType) {
+        result(tokenType, pos, pos + 1);
+        pos++;
+    }
+
+    private void scanString() {
+        int start = pos;
+        pos++; // skip opening quote
+        int contentStart = pos;
+        while (pos < length && input.charAt(pos) != '"') {
+            if (input.charAt(pos) == '\\' && pos + 1 < length) {
+                scanEscaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= length) {
+            throw error("Unterminated string", start);
+        }
+        result(TokenType.STRING, contentStart, pos);
+        pos++; // skip closing quote
+    }
+
+    private void scanVariable() {
+        int start = pos;
+        pos++; // skip @
+        int nameStart = pos;
+        while (pos < length && isIdentPart(input.charAt(pos))) {
+            pos++;
+        }
+        if (pos == nameStart) {
+            throw error("Empty variable name after @", start);
+        }
+        int nameEnd = pos;
+
+        // Peek ahead past whitespace on the same line for '=' to distinguish def vs ref
+        int afterName = pos;
+        while (pos < length && input.charAt(pos) != '\n' && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+        if (pos < length && input.charAt(pos) == '=') {
+            pos++; // consume '='
+            result(TokenType.VARIABLE_DEF, nameStart, nameEnd);
+            return;
+        }
+        pos = afterName;
+        result(TokenType.VARIABLE_REF, nameStart, nameEnd);
+    }
+
+    private void scanNumber() {
+        int start = pos;
+        if (input.charAt(pos) == '-') pos++;
+        while (pos < length && isDigitChar(input.charAt(pos))) pos++;
+        if (pos < length && input.charAt(pos) == '.') {
+            pos++;
+            while (pos < length && isDigitChar(input.charAt(pos))) pos++;
+        }
+        result(TokenType.NUMBER, start, pos);
+    }
+
+    private void scanIdentifier() {
+        int start = pos;
+        while (pos < length && isIdentPart(input.charAt(pos))) pos++;
+        result(TokenType.IDENTIFIER, start, pos);
+    }
+
+    private void scanComparison() {
+        int start = pos;
+        pos++;
+        if (pos < length && input.charAt(pos) == '=') pos++;
+        result(TokenType.COMPARISON, start, pos);
+    }
+
+    private void result(TokenType tokenType, int start, int end) {
+        scanType = tokenType;
+        scanTextStart = start;
+        scanTextEnd = end;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            char c = input.charAt(pos);
+            if (c == '#') {
+                while (pos < length && input.charAt(pos) != '\n') pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private String unescape(int start, int end) {
+        var sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                c = input.charAt(++i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private TokenizerException error(String message, int offset) {
+        int[] lineColumn = lineColumnAt(offset);
+        return new TokenizerException(message, lineColumn[0], lineColumn[1]);
+    }
+
+    /** 1-based line and column of an offset, computed by rescanning the input up to it. */
+    private int[] lineColumnAt(int offset) {
+        int line = 1;
+        int lineStart = 0;
+        for (int i = 0; i < offset && i < length; i++) {
+            if (input.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return new int[] { line, offset - lineStart + 1 };
+    }
+
+    /** Token types whose text is canonicalized through the symbol table; quoted strings are left alone. */
+    static boolean isSymbol(TokenType tokenType) {
+        return tokenType == TokenType.IDENTIFIER
+                || tokenType == TokenType.NUMBER
+                || tokenType == TokenType.VARIABLE_DEF
+                || tokenType == TokenType.VARIABLE_REF;
+    }
+
+    private static boolean isDigitChar(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':' || c == '|' || c == '\'' || c == '/';
+    }
+}
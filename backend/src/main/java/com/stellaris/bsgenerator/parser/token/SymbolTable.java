@@ -0,0 +1,163 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Canonicalizes identifier text produced by the lexers during a load.
+ * <p>
+ * Each distinct symbol gets a dense id and a single {@code String} instance. Lookups take a
+ * char or byte range of the input, so a hit allocates nothing.
+ * <p>
+ * Not thread-safe; use one table per parsing thread. Tables of the same load can share a
+ * canonical map, through which misses are deduplicated, so that they still hand out the same
+ * instances. The map is owned by the load and dropped with it: unlike {@link String#intern()},
+ * it doesn't keep symbols alive once the trees built from them are released.
+ */
+public final class SymbolTable {
+
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    /** Canonical instances shared with other tables, or null if this table has none. */
+    private final Map<String, String> canonical;
+
+    private String[] symbols = new String[256];
+    private int[] hashes = new int[256];
+    /** Open-addressing hash index holding {@code id + 1}, 0 for an empty slot. */
+    private int[] slots = new int[512];
+    private int size;
+
+    /** A table whose symbols are canonical only within itself. */
+    public SymbolTable() {
+        this(null);
+    }
+
+    /**
+     * @param canonical canonical instances shared with the other tables of a load; must be
+     *                  thread-safe if those tables are used concurrently
+     */
+    public SymbolTable(Map<String, String> canonical) {
+        this.canonical = canonical;
+    }
+
+    /** Number of distinct symbols. */
+    public int size() {
+        return size;
+    }
+
+    /** The canonical string of a symbol id. */
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    /** Canonical instance equal to {@code text}. */
+    public String intern(String text) {
+        return symbols[idOf(text)];
+    }
+
+    /** Canonical instance equal to {@code input.substring(start, end)}. */
+    public String intern(String input, int start, int end) {
+        return symbols[idOf(input, start, end)];
+    }
+
+    /** Canonical instance of the UTF-8 bytes {@code [start, end)} of {@code input}. */
+    public String intern(MemorySegment input, long start, long end) {
+        return symbols[idOf(input, start, end)];
+    }
+
+    public int idOf(String text) {
+        return idOf(text, 0, text.length());
+    }
+
+    public int idOf(String input, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return add(input.substring(start, end), hash, slot);
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && symbols[id].length() == end - start
+                    && input.regionMatches(start, symbols[id], 0, end - start)) {
+                return id;
+            }
+        }
+    }
+
+    public int idOf(MemorySegment input, long start, long end) {
+        int hash = 0;
+        for (long i = start; i < end; i++) {
+            byte b = input.get(BYTE, i);
+            if (b < 0) {
+                // Non-ASCII: bytes no longer map 1:1 to chars, so decode and look up as a string
+                byte[] bytes = new byte[(int) (end - start)];
+                MemorySegment.copy(input, BYTE, start, bytes, 0, bytes.length);
+                return idOf(new String(bytes, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + b;
+        }
+        int length = (int) (end - start);
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                byte[] bytes = new byte[length];
+                MemorySegment.copy(input, BYTE, start, bytes, 0, length);
+                return add(new String(bytes, StandardCharsets.ISO_8859_1), hash, slot);
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(symbols[id], input, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    private static boolean matches(String symbol, MemorySegment input, long start, int length) {
+        if (symbol.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != input.get(BYTE, start + i)) return false;
+        }
+        return true;
+    }
+
+    private int add(String text, int hash, int slot) {
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        symbols[id] = canonical != null ? canonicalize(text) : text;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private String canonicalize(String text) {
+        String existing = canonical.putIfAbsent(text, text);
+        return existing != null ? existing : text;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,53 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import java.util.List;
+
+/**
+ * Adapts a pre-built token list (from {@link Tokenizer#tokenize(String)}) to {@link TokenSource}.
+ */
+final class TokenListSource implements TokenSource {
+
+    private static final Token END = new Token(TokenType.EOF, "", 0, 0);
+
+    private final List<Token> tokens;
+    private int pos;
+
+    TokenListSource(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public TokenType type() {
+        return token().type();
+    }
+
+    @Override
+    public TokenType peekType() {
+        return pos + 1 < tokens.size() ? tokens.get(pos + 1).type() : TokenType.EOF;
+    }
+
+    @Override
+    public String text() {
+        return token().value();
+    }
+
+    @Override
+    public void advance() {
+        if (type() != TokenType.EOF) pos++;
+    }
+
+    @Override
+    public long mark() {
+        return pos;
+    }
+
+    @Override
+    public void reset(long mark) {
+        pos = (int) mark;
+    }
+
+    @Override
+    public Token token() {
+        return pos < tokens.size() ? tokens.get(pos) : END;
+    }
+}
@@ -0,0 +1,38 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import java.util.List;
+
+/**
+ * A stream of tokens consumed one at a time by the parser.
+ * <p>
+ * Implementations only need to look one token ahead. Token text is requested
+ * explicitly via {@link #text()} so that lexers can avoid materializing strings
+ * for punctuation the parser never keeps.
+ */
+public interface TokenSource {
+
+    /** Type of the current token ({@link TokenType#EOF} once the input is exhausted). */
+    TokenType type();
+
+    /** Type of the token following the current one. */
+    TokenType peekType();
+
+    /** Text of the current token (string contents without quotes, variable names without '@'). */
+    String text();
+
+    /** Move to the next token. Has no effect at EOF. */
+    void advance();
+
+    /** The current token including its line/column, used for error reporting. */
+    Token token();
+
+    /** Position of the current token, to return to with {@link #reset(long)}. */
+    long mark();
+
+    /** Rewinds (or fast-forwards) so the token at {@code mark} is current again. */
+    void reset(long mark);
+
+    static TokenSource of(List<Token> tokens) {
+        return new TokenListSource(tokens);
+    }
+}
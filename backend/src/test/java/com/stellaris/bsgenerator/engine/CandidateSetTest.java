@@ -0,0 +1,93 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.Civic;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandidateSetTest {
+
+    private static final List<String> ETHICS = List.of("ethic_a", "ethic_b", "ethic_c", "ethic_d");
+    private static final List<String> AUTHORITIES = List.of("auth_a", "auth_b", "auth_c");
+
+    @Test
+    void reTestsOnlyWhatChangedButMatchesFullPass() {
+        var random = new Random(3);
+        var civics = new ArrayList<Civic>();
+        for (int i = 0; i < 60; i++) {
+            civics.add(civic("civic_" + i, randomBlock(random, i)));
+        }
+        var index = new RequirementIndex(List.of(), civics, List.of());
+        var civicIds = civics.stream().map(Civic::id).toList();
+
+        for (int round = 0; round < 50; round++) {
+            var state = EmpireState.empty().withEthics(Set.of(pick(random, ETHICS)));
+            var candidates = new CandidateSet<>(index, index.civics(), state);
+            for (int step = 0; step < 6; step++) {
+                state = switch (random.nextInt(3)) {
+                    case 0 -> state.withAuthority(random.nextBoolean() ? pick(random, AUTHORITIES) : null);
+                    case 1 -> state.withEthics(new HashSet<>(List.of(pick(random, ETHICS), pick(random, ETHICS))));
+                    default -> {
+                        var picked = new HashSet<>(state.civics());
+                        picked.add(pick(random, civicIds));
+                        yield state.withCivics(picked);
+                    }
+                };
+                candidates.update(state);
+                // Skip some reads, so that changes accumulate
+                if (random.nextInt(3) == 0) continue;
+                assertEquals(index.civics().compatible(index.encode(state)), candidates.compatible(), state::toString);
+            }
+        }
+    }
+
+    @Test
+    void containsReflectsLatestState() {
+        var needsEthicA = civic("civic_needs_ethic_a", new RequirementBlock(Map.of(
+                RequirementCategory.ETHICS, List.of(new Requirement.Value("ethic_a")))));
+        var index = new RequirementIndex(List.of(), List.of(needsEthicA), List.of());
+        var state = EmpireState.empty().withEthics(Set.of("ethic_a"));
+        var candidates = new CandidateSet<>(index, index.civics(), state);
+        assertTrue(candidates.contains("civic_needs_ethic_a"));
+
+        candidates.update(state.withEthics(Set.of("ethic_b")));
+        assertFalse(candidates.contains("civic_needs_ethic_a"));
+        assertFalse(candidates.contains("civic_unknown"));
+    }
+
+    private static Civic civic(String id, RequirementBlock possible) {
+        return new Civic(id, null, possible, true, 1, null, List.of());
+    }
+
+    /** Requirements on ethics, authority and earlier civics, or none. */
+    private static RequirementBlock randomBlock(Random random, int civicIndex) {
+        Map<RequirementCategory, List<Requirement>> categories = new EnumMap<>(RequirementCategory.class);
+        if (random.nextInt(3) == 0) {
+            categories.put(RequirementCategory.ETHICS, List.of(new Requirement.Not(pick(random, ETHICS))));
+        }
+        if (random.nextInt(3) == 0) {
+            categories.put(RequirementCategory.AUTHORITY, List.of(
+                    new Requirement.Or(List.of(pick(random, AUTHORITIES), pick(random, AUTHORITIES)))));
+        }
+        if (civicIndex > 0 && random.nextInt(3) == 0) {
+            categories.put(RequirementCategory.CIVICS, List.of(
+                    new Requirement.Nor(List.of("civic_" + random.nextInt(civicIndex)))));
+        }
+        return new RequirementBlock(categories);
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
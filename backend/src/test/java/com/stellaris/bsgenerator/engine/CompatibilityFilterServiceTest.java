@@ -16,6 +16,7 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,8 +41,7 @@ class CompatibilityFilterServiceTest {
         var props = new ParserProperties(GAME_PATH, tempDir.toString());
         var settingsService = new SettingsService(props);
         var gameFileService = new GameFileService(props, settingsService);
-        var mapper = tools.jackson.databind.json.JsonMapper.builder().build();
-        var cache = new ParsedDataCache(props, mapper);
+        var cache = new ParsedDataCache(props);
         gameDataManager = new GameDataManager(settingsService, gameFileService, cache,
                 new EthicExtractor(), new AuthorityExtractor(),
                 new CivicExtractor(), new OriginExtractor(),
@@ -51,8 +51,7 @@ class CompatibilityFilterServiceTest {
                 new LocalizationService(props, settingsService));
         gameDataManager.loadGameData(false);
 
-        var evaluator = new RequirementEvaluator();
-        filterService = new CompatibilityFilterService(gameDataManager, evaluator);
+        filterService = new CompatibilityFilterService(gameDataManager);
     }
 
     // --- Ethics filtering ---
@@ -228,4 +227,20 @@ class CompatibilityFilterServiceTest {
         assertFalse(origins.isEmpty(), "Should have compatible origins");
         assertTrue(origins.stream().anyMatch(o -> o.id().equals("origin_default")));
     }
+
+    // --- Pool memoization ---
+
+    @Test
+    void equivalentStatesShareMemoizedPool() {
+        var state = EmpireState.empty()
+                .withEthics(Set.of("ethic_authoritarian", "ethic_militarist", "ethic_xenophobe"))
+                .withAuthority("auth_imperial");
+        var first = filterService.getCompatibleCivics(state);
+        long hits = filterService.getPoolStats().hits();
+
+        // Same state, built from different set instances
+        var equivalent = state.withEthics(new HashSet<>(state.ethics()));
+        assertSame(first, filterService.getCompatibleCivics(equivalent));
+        assertEquals(hits + 1, filterService.getPoolStats().hits());
+    }
 }
@@ -0,0 +1,87 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.extractor.*;
+import com.stellaris.bsgenerator.model.Authority;
+import com.stellaris.bsgenerator.parser.LocalizationService;
+import com.stellaris.bsgenerator.parser.cache.GameDataManager;
+import com.stellaris.bsgenerator.parser.cache.ParsedDataCache;
+import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.config.SettingsService;
+import com.stellaris.bsgenerator.parser.loader.GameFileService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Pool memoization across snapshots, on a minimal fake install rather than the real game files. */
+class CompatibilityFilterSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void pinnedAndPublishedSnapshotsKeepTheirOwnPools() throws IOException {
+        Path game = Files.createDirectories(tempDir.resolve("game"));
+        Files.writeString(game.resolve("launcher-settings.json"),
+                "{\"version\": \"Test v1.0.0 (abc123)\", \"rawVersion\": \"v1.0.0\"}");
+        writeAuthority(game, "auth_old");
+        var manager = createManager(game);
+        manager.loadGameData(false);
+        var filterService = new CompatibilityFilterService(manager);
+        var state = EmpireState.empty();
+
+        manager.withGameData(() -> {
+            assertEquals(List.of("auth_old"), authorityIds(filterService.getCompatibleAuthorities(state)));
+            try {
+                // A different length, so the file's stamp changes even within the same millisecond
+                writeAuthority(game, "auth_published");
+                manager.forceReload();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+
+            // This thread stays pinned to the old snapshot; other threads read the published one
+            for (int i = 0; i < 3; i++) {
+                List<Authority> published = CompletableFuture
+                        .supplyAsync(() -> filterService.getCompatibleAuthorities(state)).join();
+                assertEquals(List.of("auth_published"), authorityIds(published));
+                assertEquals(List.of("auth_old"), authorityIds(filterService.getCompatibleAuthorities(state)));
+            }
+            return null;
+        });
+
+        // One miss per snapshot; every later read, alternating between them, hits
+        var stats = filterService.getPoolStats();
+        assertEquals(2, stats.misses());
+        assertEquals(5, stats.hits());
+    }
+
+    private GameDataManager createManager(Path game) {
+        var props = new ParserProperties(game.toString(), tempDir.resolve("cache").toString());
+        var settingsService = new SettingsService(props);
+        var gameFileService = new GameFileService(props, settingsService);
+        var cache = new ParsedDataCache(props);
+        return new GameDataManager(settingsService, gameFileService, cache,
+                new EthicExtractor(), new AuthorityExtractor(),
+                new CivicExtractor(), new OriginExtractor(),
+                new SpeciesArchetypeExtractor(), new SpeciesTraitExtractor(),
+                new PlanetClassExtractor(), new GraphicalCultureExtractor(),
+                new StartingRulerTraitExtractor(), new SpeciesClassExtractor(),
+                new LocalizationService(props, settingsService));
+    }
+
+    private static void writeAuthority(Path game, String authority) throws IOException {
+        Path file = Files.createDirectories(game.resolve("common/governments/authorities")).resolve("00_authorities.txt");
+        Files.writeString(file, authority + " = { election_type = none }\n");
+    }
+
+    private static List<String> authorityIds(List<Authority> authorities) {
+        return authorities.stream().map(Authority::id).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.stellaris.bsgenerator.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatiblePoolTest {
+
+    private record Candidate(String id, int weight) {}
+
+    @Test
+    void emptyPoolSelectsNothing() {
+        assertNull(CompatiblePool.<Candidate>uniform(List.of()).select(new Random(1)));
+    }
+
+    @Test
+    void picksSameAsWeightedRandom() {
+        var candidates = List.of(new Candidate("a", 5), new Candidate("b", 0), new Candidate("c", 1),
+                new Candidate("d", 20), new Candidate("e", 3));
+        var pool = CompatiblePool.of(candidates, Candidate::weight);
+        var poolRandom = new Random(42);
+        var referenceRandom = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(WeightedRandom.select(candidates, Candidate::weight, referenceRandom), pool.select(poolRandom));
+        }
+    }
+
+    @Test
+    void neverPicksZeroWeight() {
+        var pool = CompatiblePool.of(List.of(new Candidate("a", 0), new Candidate("b", 1), new Candidate("c", 0)),
+                Candidate::weight);
+        var random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("b", pool.select(random).id());
+        }
+    }
+
+    @Test
+    void allZeroWeightsPickUniformly() {
+        var pool = CompatiblePool.of(List.of(new Candidate("a", 0), new Candidate("b", 0)), Candidate::weight);
+        var random = new Random(7);
+        var picked = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            picked.add(pool.select(random).id());
+        }
+        assertEquals(Set.of("a", "b"), picked);
+    }
+}
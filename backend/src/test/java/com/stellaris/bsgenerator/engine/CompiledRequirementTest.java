@@ -0,0 +1,183 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks compiled requirements, as masks and as bytecode, against {@link RequirementEvaluator},
+ * the reference semantics.
+ */
+class CompiledRequirementTest {
+
+    private static final RequirementCategory[] CATEGORIES = RequirementCategory.values();
+
+    private final RequirementEvaluator evaluator = new RequirementEvaluator();
+
+    @Test
+    void defersUnselectedCategories() {
+        var block = new RequirementBlock(Map.of(
+                RequirementCategory.ETHICS, List.of(new Requirement.Value("ethic_gestalt_consciousness"))));
+        assertTrue(test(EmpireState.empty(), block));
+        assertFalse(test(EmpireState.empty().withEthics(Set.of("ethic_pacifist")), block));
+    }
+
+    @Test
+    void treatsCountryTypeAsDefault() {
+        var block = new RequirementBlock(Map.of(
+                RequirementCategory.COUNTRY_TYPE, List.of(new Requirement.Not("default"))));
+        assertFalse(test(EmpireState.empty(), block));
+    }
+
+    @Test
+    void unregisteredStateValuesCountAsAbsent() {
+        var block = new RequirementBlock(Map.of(
+                RequirementCategory.AUTHORITY, List.of(new Requirement.Or(List.of("auth_democratic", "auth_oligarchic")))));
+        assertFalse(test(EmpireState.empty().withAuthority("auth_dictatorial"), block));
+    }
+
+    @Test
+    void needsOneBranchOfCrossCategoryOr() {
+        var block = new RequirementBlock(Map.of(), List.of(Map.of(
+                RequirementCategory.AUTHORITY, List.of(new Requirement.Value("auth_corporate")),
+                RequirementCategory.CIVICS, List.of(new Requirement.Value("civic_galactic_sovereign_megacorp")))));
+        var state = EmpireState.empty().withAuthority("auth_imperial");
+        assertTrue(test(state, block), "civics not selected yet");
+        assertFalse(test(state.withCivics(Set.of("civic_cutthroat_politics")), block));
+        assertTrue(test(state.withCivics(Set.of("civic_galactic_sovereign_megacorp")), block));
+    }
+
+    @Test
+    void matchesEvaluatorOnRandomBlocks() {
+        var random = new Random(42);
+        var values = List.of("a", "b", "c", "d", "e");
+        for (int round = 0; round < 2_000; round++) {
+            var potential = randomBlock(random, values);
+            var possible = random.nextBoolean() ? randomBlock(random, values) : null;
+            var registry = new IdRegistry();
+            CompiledRequirement.register(registry, potential);
+            CompiledRequirement.register(registry, possible);
+            var compiled = CompiledRequirement.compile(registry, potential, possible);
+            for (int s = 0; s < 10; s++) {
+                var state = randomState(random, values);
+                assertEquals(evaluator.evaluateBoth(potential, possible, state),
+                        compiled.test(EncodedState.encode(state, registry)),
+                        () -> potential + " / " + possible + " on " + state);
+            }
+        }
+    }
+
+    @Test
+    void bytecodeMatchesEvaluatorOnRandomBlocks() {
+        var random = new Random(7);
+        // Enough values for bitsets of several words
+        var values = IntStream.range(0, 150).mapToObj(i -> "v" + i).toList();
+        for (int round = 0; round < 20; round++) {
+            var potentials = new ArrayList<RequirementBlock>();
+            var possibles = new ArrayList<RequirementBlock>();
+            var registry = new IdRegistry();
+            for (int i = 0; i < 100; i++) {
+                potentials.add(randomBlock(random, values));
+                possibles.add(random.nextBoolean() ? randomBlock(random, values) : null);
+                CompiledRequirement.register(registry, potentials.get(i));
+                CompiledRequirement.register(registry, possibles.get(i));
+            }
+            var predicates = PredicateCompiler.compile(IntStream.range(0, potentials.size())
+                    .mapToObj(i -> CompiledRequirement.compile(registry, potentials.get(i), possibles.get(i)))
+                    .toArray(CompiledRequirement[]::new));
+            assertTrue(predicates.getClass().getName().contains("GeneratedPredicates"), "should not fall back");
+            for (int s = 0; s < 20; s++) {
+                var state = randomState(random, values);
+                var encoded = EncodedState.encode(state, registry);
+                for (int i = 0; i < potentials.size(); i++) {
+                    int candidate = i;
+                    assertEquals(evaluator.evaluateBoth(potentials.get(i), possibles.get(i), state),
+                            predicates.test(i, encoded),
+                            () -> potentials.get(candidate) + " / " + possibles.get(candidate) + " on " + state);
+                }
+            }
+        }
+    }
+
+    private boolean test(EmpireState state, RequirementBlock block) {
+        var registry = new IdRegistry();
+        CompiledRequirement.register(registry, block);
+        var requirement = CompiledRequirement.compile(registry, block);
+        var encoded = EncodedState.encode(state, registry);
+        boolean compiled = requirement.test(encoded);
+        assertEquals(evaluator.evaluate(block, state), compiled);
+        assertEquals(compiled, PredicateCompiler.compile(new CompiledRequirement[]{requirement}).test(0, encoded));
+        return compiled;
+    }
+
+    private static RequirementBlock randomBlock(Random random, List<String> values) {
+        Map<RequirementCategory, List<Requirement>> categories = randomCategories(random, values, 3);
+        var ors = new ArrayList<Map<RequirementCategory, List<Requirement>>>();
+        for (int i = random.nextInt(3); i > 0; i--) {
+            ors.add(randomCategories(random, values, 3));
+        }
+        return new RequirementBlock(categories, ors);
+    }
+
+    private static Map<RequirementCategory, List<Requirement>> randomCategories(Random random, List<String> values,
+                                                                                 int max) {
+        var categories = new EnumMap<RequirementCategory, List<Requirement>>(RequirementCategory.class);
+        for (int i = random.nextInt(max + 1); i > 0; i--) {
+            var requirements = new ArrayList<Requirement>();
+            for (int j = 1 + random.nextInt(3); j > 0; j--) {
+                requirements.add(switch (random.nextInt(4)) {
+                    case 0 -> new Requirement.Value(pick(random, values));
+                    case 1 -> new Requirement.Not(pick(random, values));
+                    case 2 -> new Requirement.Nor(randomValues(random, values));
+                    default -> new Requirement.Or(randomValues(random, values));
+                });
+            }
+            categories.put(CATEGORIES[random.nextInt(CATEGORIES.length)], requirements);
+        }
+        return categories;
+    }
+
+    /** Possibly empty, to cover {@code Or}s that can never pass. */
+    private static List<String> randomValues(Random random, List<String> values) {
+        var picked = new ArrayList<String>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            picked.add(pick(random, values));
+        }
+        return picked;
+    }
+
+    private static EmpireState randomState(Random random, List<String> values) {
+        return new EmpireState(randomSet(random, values), maybePick(random, values), randomSet(random, values),
+                maybePick(random, values), randomSet(random, values), maybePick(random, values),
+                maybePick(random, values));
+    }
+
+    /** Includes "z", which no requirement mentions. */
+    private static Set<String> randomSet(Random random, List<String> values) {
+        var set = new HashSet<String>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            set.add(random.nextInt(6) == 0 ? "z" : pick(random, values));
+        }
+        return set;
+    }
+
+    private static String maybePick(Random random, List<String> values) {
+        return random.nextInt(3) == 0 ? null : pick(random, values);
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
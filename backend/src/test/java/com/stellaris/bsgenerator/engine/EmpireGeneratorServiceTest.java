@@ -44,8 +44,7 @@ class EmpireGeneratorServiceTest {
         var props = new ParserProperties(GAME_PATH, tempDir.toString());
         var settingsService = new SettingsService(props);
         var gameFileService = new GameFileService(props, settingsService);
-        var mapper = tools.jackson.databind.json.JsonMapper.builder().build();
-        var cache = new ParsedDataCache(props, mapper);
+        var cache = new ParsedDataCache(props);
         gameDataManager = new GameDataManager(settingsService, gameFileService, cache,
                 new EthicExtractor(), new AuthorityExtractor(),
                 new CivicExtractor(), new OriginExtractor(),
@@ -56,7 +55,7 @@ class EmpireGeneratorServiceTest {
         gameDataManager.loadGameData(false);
 
         evaluator = new RequirementEvaluator();
-        var filterService = new CompatibilityFilterService(gameDataManager, evaluator);
+        var filterService = new CompatibilityFilterService(gameDataManager);
         generator = new EmpireGeneratorService(filterService, evaluator);
     }
 
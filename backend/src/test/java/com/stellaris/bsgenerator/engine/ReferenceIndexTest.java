@@ -0,0 +1,81 @@
+package com.stellaris.bsgenerator.engine;
+
+import com.stellaris.bsgenerator.engine.ReferenceIndex.EntityType;
+import com.stellaris.bsgenerator.engine.ReferenceIndex.Kind;
+import com.stellaris.bsgenerator.engine.ReferenceIndex.Reference;
+import com.stellaris.bsgenerator.model.Civic;
+import com.stellaris.bsgenerator.model.SpeciesTrait;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import com.stellaris.bsgenerator.parser.cache.GameData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceIndexTest {
+
+    @Test
+    void indexesRequirementKinds() {
+        var civic = new Civic("civic_a", new RequirementBlock(Map.of(
+                RequirementCategory.ETHICS, List.of(
+                        new Requirement.Value("ethic_x"),
+                        new Requirement.Nor(List.of("ethic_y", "ethic_z"))),
+                RequirementCategory.AUTHORITY, List.of(new Requirement.Or(List.of("auth_a", "auth_b"))))),
+                null, true, 1, null, List.of());
+        var index = ReferenceIndex.of(data(List.of(civic), null));
+
+        assertEquals(List.of(new Reference(EntityType.CIVIC, "civic_a", RequirementCategory.ETHICS, Kind.REQUIRED)),
+                index.referencesTo("ethic_x"));
+        assertEquals(Kind.FORBIDDEN, index.referencesTo("ethic_z").getFirst().kind());
+        assertEquals(Kind.ANY_OF, index.referencesTo("auth_b").getFirst().kind());
+        assertTrue(index.referencesTo("ethic_unmentioned").isEmpty());
+    }
+
+    @Test
+    void crossCategoryOrMentionsAreAnyOf() {
+        var civic = new Civic("civic_a", new RequirementBlock(Map.of(), List.of(Map.of(
+                RequirementCategory.AUTHORITY, List.of(new Requirement.Value("auth_corporate")),
+                RequirementCategory.CIVICS, List.of(new Requirement.Not("civic_b"))))),
+                null, true, 1, null, List.of());
+        var index = ReferenceIndex.of(data(List.of(civic), null));
+
+        assertEquals(Kind.ANY_OF, index.referencesTo("auth_corporate").getFirst().kind());
+        assertEquals(Kind.ANY_OF, index.referencesTo("civic_b").getFirst().kind());
+    }
+
+    @Test
+    void narrowsTraitsByArchetype() {
+        var biological = trait("trait_bio", List.of("BIOLOGICAL"), List.of("ethic_x"));
+        var both = trait("trait_both", List.of("BIOLOGICAL", "LITHOID"), List.of());
+        var lithoid = trait("trait_lithoid", List.of("LITHOID"), List.of());
+        var index = ReferenceIndex.of(data(null, List.of(biological, both, lithoid)));
+
+        assertEquals(List.of(biological, both), index.speciesTraitsAllowing("BIOLOGICAL"));
+        assertEquals(List.of(new Reference(EntityType.SPECIES_TRAIT, "trait_bio", RequirementCategory.ETHICS, Kind.FORBIDDEN)),
+                index.referencesTo("ethic_x"));
+    }
+
+    @Test
+    void redefinedTraitsKeepTheirOwnArchetypes() {
+        var biological = trait("trait_shared", List.of("BIOLOGICAL", "BIOLOGICAL"), List.of());
+        var lithoid = trait("trait_shared", List.of("LITHOID"), List.of());
+        var index = ReferenceIndex.of(data(null, List.of(biological, lithoid)));
+
+        assertSame(biological, index.speciesTraitsAllowing("BIOLOGICAL").getFirst());
+        assertEquals(1, index.speciesTraitsAllowing("BIOLOGICAL").size());
+        assertEquals(List.of(lithoid), index.speciesTraitsAllowing("LITHOID"));
+    }
+
+    private static SpeciesTrait trait(String id, List<String> archetypes, List<String> forbiddenEthics) {
+        return new SpeciesTrait(id, 1, archetypes, List.of(), List.of(), List.of(), true, false, null, List.of(),
+                List.of(), List.of(), List.of(), List.of(), List.of(), forbiddenEthics, null);
+    }
+
+    private static GameData data(List<Civic> civics, List<SpeciesTrait> traits) {
+        return new GameData(null, null, null, civics, null, null, traits, null, null, null, null, null, null, null);
+    }
+}
@@ -40,8 +40,7 @@ class RerollServiceTest {
         var props = new ParserProperties(GAME_PATH, tempDir.toString());
         var settingsService = new SettingsService(props);
         var gameFileService = new GameFileService(props, settingsService);
-        var mapper = tools.jackson.databind.json.JsonMapper.builder().build();
-        var cache = new ParsedDataCache(props, mapper);
+        var cache = new ParsedDataCache(props);
         var gameDataManager = new GameDataManager(settingsService, gameFileService, cache,
                 new EthicExtractor(), new AuthorityExtractor(),
                 new CivicExtractor(), new OriginExtractor(),
@@ -52,7 +51,7 @@ class RerollServiceTest {
         gameDataManager.loadGameData(false);
 
         var evaluator = new RequirementEvaluator();
-        var filterService = new CompatibilityFilterService(gameDataManager, evaluator);
+        var filterService = new CompatibilityFilterService(gameDataManager);
         generator = new EmpireGeneratorService(filterService, evaluator);
         rerollService = new RerollService(filterService, evaluator, generator);
     }
@@ -1,10 +1,12 @@
 package com.stellaris.bsgenerator.extractor;
 
 import com.stellaris.bsgenerator.model.SpeciesTrait;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
 import com.stellaris.bsgenerator.config.SettingsService;
 import com.stellaris.bsgenerator.parser.loader.GameFileService;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIf;
 
@@ -20,6 +22,7 @@ class SpeciesTraitExtractorTest {
 
     private static final String GAME_PATH = "F:\\Games\\SteamLibrary\\steamapps\\common\\Stellaris";
     private static List<SpeciesTrait> traits;
+    private static AstNode traitsRoot;
 
     static boolean gameFilesExist() {
         return Files.isDirectory(Path.of(GAME_PATH, "common"));
@@ -30,7 +33,8 @@ class SpeciesTraitExtractorTest {
         var props = new ParserProperties(GAME_PATH, System.getProperty("java.io.tmpdir"));
         var service = new GameFileService(props, new SettingsService(props));
         service.loadAll();
-        traits = new SpeciesTraitExtractor().extract(service.getTraits());
+        traitsRoot = service.getTraits();
+        traits = new SpeciesTraitExtractor().extract(traitsRoot);
     }
 
     @Test
@@ -92,6 +96,45 @@ class SpeciesTraitExtractorTest {
                 .orElseThrow(() -> new AssertionError("Trait " + id + " not found"));
     }
 
+    /**
+     * Diagnostic: extraction time over common/traits with indexed child lookups versus a
+     * copy of the same tree that only supports linear scans.
+     * Enable by removing @Disabled.
+     */
+    @Disabled("Benchmark — run manually to measure indexed child lookup speedup")
+    @Test
+    void indexedLookupBenchmark() {
+        var extractor = new SpeciesTraitExtractor();
+        AstNode linearRoot = LinearNode.copyOf(traitsRoot);
+        int rounds = 200;
+
+        for (int i = 0; i < rounds; i++) {
+            extractor.extract(traitsRoot);
+            extractor.extract(linearRoot);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) extractor.extract(linearRoot);
+        long linearNs = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) extractor.extract(traitsRoot);
+        long indexedNs = (System.nanoTime() - start) / rounds;
+
+        System.out.println("\n===== TRAIT EXTRACTION (" + rounds + " rounds) =====");
+        System.out.printf("Linear scan: %8.3f ms/extract%n", linearNs / 1e6);
+        System.out.printf("Indexed:     %8.3f ms/extract%n", indexedNs / 1e6);
+        System.out.printf("Speedup:     %8.2fx%n", (double) linearNs / indexedNs);
+    }
+
+    /** Baseline node relying only on the interface's linear-scan defaults. */
+    private record LinearNode(String key, String value, List<LinearNode> children) implements AstNode {
+        static LinearNode copyOf(AstNode node) {
+            return new LinearNode(node.key(), node.value(),
+                    node.children().stream().map(LinearNode::copyOf).toList());
+        }
+    }
+
     private static class AssertionError extends RuntimeException {
         AssertionError(String msg) { super(msg); }
     }
@@ -0,0 +1,63 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClausewitzNodeTest {
+
+    private static ClausewitzNode wideBlock() {
+        var children = new ArrayList<ClausewitzNode>();
+        for (int i = 0; i < 20; i++) {
+            children.add(ClausewitzNode.leaf("key_" + i, String.valueOf(i)));
+        }
+        children.add(ClausewitzNode.leaf("dup", "first"));
+        children.add(ClausewitzNode.bareValue("BARE"));
+        children.add(ClausewitzNode.leaf("dup", "second"));
+        children.add(ClausewitzNode.block("nested", List.of(ClausewitzNode.leaf("base", "3"))));
+        return ClausewitzNode.block("wide", children);
+    }
+
+    @Test
+    void wideBlocksAreIndexed() {
+        var block = wideBlock();
+        assertInstanceOf(IndexedChildren.class, block.children());
+        assertFalse(ClausewitzNode.block("narrow", List.of(ClausewitzNode.leaf("a", "1"))).children()
+                instanceof IndexedChildren);
+    }
+
+    @Test
+    void indexedLookupsMatchLinearScan() {
+        var block = wideBlock();
+        assertEquals("17", block.findChild("key_17").value());
+        assertEquals(17, block.childInt("key_17", 0));
+        assertEquals("first", block.childValue("dup").orElseThrow());
+        assertEquals(List.of("first", "second"), block.children("dup").stream().map(ClausewitzNode::value).toList());
+        assertEquals(3, block.findChild("nested").childInt("base", 0));
+        assertEquals(List.of("BARE"), block.bareValues());
+        assertNull(block.findChild("missing"));
+        assertTrue(block.child("missing").isEmpty());
+        assertTrue(block.children("missing").isEmpty());
+        assertEquals("fallback", block.childValue("nested", "fallback"));
+    }
+
+    @Test
+    void indexedChildrenKeepListSemantics() {
+        var block = wideBlock();
+        var plain = new ArrayList<>(block.children());
+        assertEquals(plain, block.children());
+        assertEquals(block, new ClausewitzNode("wide", null, plain));
+        assertThrows(UnsupportedOperationException.class, () -> block.children().add(ClausewitzNode.bareValue("x")));
+    }
+
+    @Test
+    void bareValuesOfChild() {
+        var node = ClausewitzNode.block("trait", List.of(
+                ClausewitzNode.block("tags", List.of(ClausewitzNode.bareValue("A"), ClausewitzNode.bareValue("B")))));
+        assertEquals(List.of("A", "B"), node.bareValues("tags"));
+        assertEquals(List.of(), node.bareValues("missing"));
+    }
+}
@@ -1,9 +1,16 @@
 package com.stellaris.bsgenerator.parser.ast;
 
+import com.stellaris.bsgenerator.parser.token.ByteLexer;
+import com.stellaris.bsgenerator.parser.token.Lexer;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+import com.stellaris.bsgenerator.parser.token.TokenSource;
 import com.stellaris.bsgenerator.parser.token.Tokenizer;
 import org.junit.jupiter.api.Test;
 
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -203,4 +210,143 @@ class ClausewitzParserTest {
         var rw = ethic.child("random_weight").orElseThrow();
         assertEquals(150, rw.childInt("base", 0));
     }
+
+    @Test
+    void fusedParseMatchesTokenListParse() {
+        String input = """
+                @w = 3
+                civic_test = {
+                    potential = { ethics = { NOT = { value = ethic_gestalt_consciousness } } }
+                    random_weight = { base = @w }
+                    color = hsv { 0.5 0.3 0.7 }
+                    count >= 2
+                    desc = "quoted \\"text\\""
+                }
+                """;
+        assertEquals(parse(input), ClausewitzParser.parse(input, new HashMap<>()));
+    }
+
+    @Test
+    void trailingVariableDefinitionProducesNoNode() {
+        var vars = new HashMap<String, String>();
+        var root = ClausewitzParser.parse("a = 1\n@trailing = 2", vars);
+        assertEquals(1, root.children().size());
+        assertEquals("2", vars.get("trailing"));
+    }
+
+    @Test
+    void undefinedVariableReportsPosition() {
+        var ex = assertThrows(ParseException.class,
+                () -> ClausewitzParser.parse("a = 1\nval = @undefined_var", new HashMap<>()));
+        assertEquals(2, ex.getToken().line());
+        assertEquals(7, ex.getToken().column());
+    }
+
+    private static final String TRAITS = """
+            trait_a = {
+                cost = 1
+                allowed_archetypes = { BIOLOGICAL }
+                modifier = { cost = 5 }
+            }
+            trait_leader = {
+                @inner = 7
+                leader_class = { official }
+                allowed_archetypes = { BIOLOGICAL }
+                modifier = { x = @missing }
+            }
+            trait_ruler = { starting_ruler_trait = yes }
+            version = 3
+            """;
+
+    private static final EntryFilter TRAIT_FILTER = EntryFilter.withChildren("allowed_archetypes", "cost")
+            .or(EntryFilter.withChildren("starting_ruler_trait"));
+
+    private ClausewitzNode parseFiltered(TokenSource tokens, Map<String, String> vars, EntryFilter filter) {
+        return parseFiltered(tokens, vars, filter, Projection.ALL);
+    }
+
+    private ClausewitzNode parseFiltered(TokenSource tokens, Map<String, String> vars, EntryFilter filter,
+                                         Projection schema) {
+        var builder = new ClausewitzNodeBuilder();
+        ClausewitzParser.parseInto(tokens, vars, builder, filter, schema);
+        return builder.build();
+    }
+
+    @Test
+    void filterSkipsRejectedTopLevelBlocks() {
+        var root = parseFiltered(new Lexer(TRAITS), new HashMap<>(), TRAIT_FILTER);
+        assertEquals(List.of("trait_a", "trait_ruler", "version"),
+                root.children().stream().map(ClausewitzNode::key).toList());
+        assertEquals("5", root.findChild("trait_a").findChild("modifier").childValue("cost", null));
+    }
+
+    @Test
+    void skippedBlocksStillDefineVariables() {
+        var vars = new HashMap<String, String>();
+        parseFiltered(new Lexer(TRAITS), vars, TRAIT_FILTER);
+        assertEquals("7", vars.get("inner"));
+    }
+
+    @Test
+    void filteredParseAgreesAcrossLexers() {
+        var symbols = new SymbolTable();
+        var bytes = MemorySegment.ofArray(TRAITS.getBytes(StandardCharsets.UTF_8));
+        assertEquals(parseFiltered(new Lexer(TRAITS), new HashMap<>(), TRAIT_FILTER),
+                parseFiltered(new ByteLexer(bytes, symbols), new HashMap<>(), TRAIT_FILTER));
+        assertEquals(parseFiltered(new Lexer(TRAITS), new HashMap<>(), TRAIT_FILTER),
+                parseFiltered(TokenSource.of(Tokenizer.tokenize(TRAITS)), new HashMap<>(), TRAIT_FILTER));
+    }
+
+    @Test
+    void keyFilterSkipsWithoutScanning() {
+        var root = parseFiltered(new Lexer("a = { x = 1 } b = { y = 2 }"), new HashMap<>(),
+                EntryFilter.keys("b"::equals));
+        assertEquals(1, root.children().size());
+        assertEquals("2", root.findChild("b").childValue("y", null));
+    }
+
+    @Test
+    void unterminatedSkippedBlockThrows() {
+        assertThrows(ParseException.class, () ->
+                parseFiltered(new Lexer("a = { x = { }"), new HashMap<>(), EntryFilter.keys("b"::equals)));
+    }
+
+    @Test
+    void projectionPrunesUnreadFields() {
+        var input = """
+                trait_a = {
+                    cost = { base = 2 modifier = { add = 1 } }
+                    modifier = { pop_growth = 0.1 nested = { deep = yes } }
+                    opposites = { "trait_b" "trait_c" }
+                    ai_weight = { factor = 0 }
+                }
+                """;
+        var schema = Projection.of("cost.base", "opposites");
+        var root = parseFiltered(new Lexer(input), new HashMap<>(), EntryFilter.ALL, schema);
+
+        var trait = root.findChild("trait_a");
+        assertEquals(List.of("cost", "opposites"), trait.children().stream().map(ClausewitzNode::key).toList());
+        assertEquals(List.of("base"), trait.findChild("cost").children().stream().map(ClausewitzNode::key).toList());
+        assertEquals(List.of("trait_b", "trait_c"), trait.bareValues("opposites"));
+    }
+
+    @Test
+    void projectionKeepsStubWhenNothingMatches() {
+        var root = parseFiltered(new Lexer("culture = { ship_models = { a b } x = 1 }\nversion = 2"),
+                new HashMap<>(), EntryFilter.ALL, Projection.of("selectable.always"));
+
+        var culture = root.findChild("culture");
+        assertTrue(culture.isBlock());
+        assertEquals(1, culture.children().size());
+        assertTrue(culture.findChild("ship_models").children().isEmpty());
+        assertEquals("2", root.childValue("version", null));
+    }
+
+    @Test
+    void projectionSkipsUnreadVariableReferences() {
+        var vars = new HashMap<String, String>();
+        var root = parseFiltered(new Lexer("a = { cost = 1 modifier = { x = @undefined } }"), vars,
+                EntryFilter.ALL, Projection.of("cost"));
+        assertEquals("1", root.findChild("a").childValue("cost", null));
+    }
 }
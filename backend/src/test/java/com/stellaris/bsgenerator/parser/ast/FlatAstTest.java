@@ -0,0 +1,97 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import com.stellaris.bsgenerator.extractor.CivicExtractor;
+import com.stellaris.bsgenerator.parser.token.Lexer;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatAstTest {
+
+    private static final String CIVICS = """
+            @w = 5
+            civic_test = {
+                potential = { ethics = { NOT = { value = ethic_gestalt_consciousness } } }
+                possible = {
+                    ethics = { OR = { value = ethic_militarist value = ethic_fanatic_militarist } }
+                    authority = { NOR = { value = auth_corporate value = auth_hive_mind } }
+                }
+                random_weight = { base = @w }
+                traits = { trait = trait_aquatic }
+                count >= 2
+                color = hsv { 0.5 0.3 0.7 }
+                empty = { }
+            }
+            civic_other = {
+                pickable_at_start = no
+                tags = { A B "C" }
+            }
+            """;
+
+    private static FlatNode parseFlat(String input, Arena arena) {
+        var symbols = new SymbolTable();
+        var builder = FlatAst.builder(symbols, arena);
+        ClausewitzParser.parseInto(new Lexer(input, symbols), new HashMap<>(), builder);
+        return builder.build();
+    }
+
+    @Test
+    void matchesRecordTree() {
+        var records = ClausewitzParser.parse(CIVICS, new HashMap<>());
+        assertEquals(records, ClausewitzNode.copyOf(parseFlat(CIVICS, null)));
+    }
+
+    @Test
+    void offHeapMatchesRecordTree() {
+        var records = ClausewitzParser.parse(CIVICS, new HashMap<>());
+        try (var arena = Arena.ofConfined()) {
+            assertEquals(records, ClausewitzNode.copyOf(parseFlat(CIVICS, arena)));
+        }
+    }
+
+    @Test
+    void cursorLookups() {
+        var civic = parseFlat(CIVICS, null).child("civic_test").orElseThrow();
+        assertTrue(civic.isBlock());
+        assertEquals(5, civic.child("random_weight").orElseThrow().childInt("base", 0));
+        assertEquals(">= 2", civic.childValue("count").orElseThrow());
+        assertFalse(civic.child("empty").orElseThrow().isBlock());
+        assertTrue(civic.child("missing").isEmpty());
+
+        var other = civic.nextSibling();
+        assertEquals("civic_other", other.key());
+        assertFalse(other.childBool("pickable_at_start", true));
+        assertEquals(List.of("A", "B", "C"), other.child("tags").orElseThrow().bareValues());
+        assertNull(other.nextSibling());
+    }
+
+    @Test
+    void rollbackDropsPartialFile() {
+        var symbols = new SymbolTable();
+        var builder = FlatAst.builder(symbols, null);
+        ClausewitzParser.parseInto(new Lexer("a = 1", symbols), new HashMap<>(), builder);
+
+        int mark = builder.mark();
+        assertThrows(ParseException.class, () ->
+                ClausewitzParser.parseInto(new Lexer("b = { c = @undefined }", symbols), new HashMap<>(), builder));
+        builder.rollback(mark);
+        ClausewitzParser.parseInto(new Lexer("d = 2", symbols), new HashMap<>(), builder);
+
+        var root = builder.build();
+        assertEquals(List.of("a", "d"), root.children().stream().map(AstNode::key).toList());
+    }
+
+    @Test
+    void extractorsAgreeAcrossBackends() {
+        var extractor = new CivicExtractor();
+        var fromRecords = extractor.extract(ClausewitzParser.parse(CIVICS, new HashMap<>()));
+        var fromFlat = extractor.extract(parseFlat(CIVICS, null));
+        assertEquals(fromRecords, fromFlat);
+        assertEquals(2, fromFlat.size());
+    }
+}
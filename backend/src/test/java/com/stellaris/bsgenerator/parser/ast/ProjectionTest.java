@@ -0,0 +1,38 @@
+package com.stellaris.bsgenerator.parser.ast;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionTest {
+
+    @Test
+    void leafPathKeepsWholeSubtree() {
+        var projection = Projection.of("cost", "random_weight.base");
+        assertTrue(projection.child("cost").isAll());
+        assertTrue(projection.child("cost").child("anything").isAll());
+        assertNull(projection.child("modifier"));
+
+        var weight = projection.child("random_weight");
+        assertFalse(weight.isAll());
+        assertTrue(weight.child("base").isAll());
+        assertNull(weight.child("modifier"));
+    }
+
+    @Test
+    void trailingWildcardKeepsWholeSubtree() {
+        assertTrue(Projection.of("possible.*").child("possible").isAll());
+        assertTrue(Projection.of("*").isAll());
+        assertThrows(IllegalArgumentException.class, () -> Projection.of("possible.*.value"));
+    }
+
+    @Test
+    void unionMergesPaths() {
+        var union = Projection.of("cost.base", "playable.always").union(Projection.of("cost", "playable.host_has_dlc"));
+        assertTrue(union.child("cost").isAll());
+        assertTrue(union.child("playable").child("always").isAll());
+        assertTrue(union.child("playable").child("host_has_dlc").isAll());
+        assertNull(union.child("playable").child("NOT"));
+        assertTrue(union.union(Projection.ALL).isAll());
+    }
+}
@@ -0,0 +1,107 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
+import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.loader.ParsedFile;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AstCodecTest {
+
+    private static final ClausewitzNode ETHICS = ClausewitzNode.root(List.of(
+            ClausewitzNode.leaf("@cost", "2"),
+            ClausewitzNode.block("ethic_pacifist", List.of(
+                    ClausewitzNode.leaf("cost", "@cost"),
+                    ClausewitzNode.block("tags", List.of(
+                            ClausewitzNode.bareValue("TAG_A"),
+                            ClausewitzNode.bareValue("TAG_B"))),
+                    ClausewitzNode.block("possible", List.of()))),
+            ClausewitzNode.block("ethic_gestalt", List.of(
+                    ClausewitzNode.leaf("cost", "ünïcode \"quoted\"")))));
+
+    private static final ClausewitzNode TRAITS = ClausewitzNode.root(List.of(
+            ClausewitzNode.block("trait_strong", List.of(
+                    ClausewitzNode.leaf("cost", "1")))));
+
+    @Test
+    void roundTripsEverySection() {
+        var sections = new LinkedHashMap<String, ParsedFile>();
+        sections.put("ethics/00_ethics.txt", new ParsedFile("1700000000000:512", ETHICS));
+        sections.put("traits/00_traits.txt", new ParsedFile("1700000000000:64", TRAITS));
+
+        var decoded = decode(AstCodec.encode("fp", sections), AstBackend.RECORD);
+
+        assertEquals("fp", decoded.fingerprint());
+        assertEquals(List.of("ethics/00_ethics.txt", "traits/00_traits.txt"), List.copyOf(decoded.sections().keySet()));
+        assertEquals(sections, decoded.sections());
+    }
+
+    @Test
+    void decodesIntoFlatBackend() {
+        var decoded = decode(AstCodec.encode("fp", Map.of("ETHICS", new ParsedFile("", ETHICS))), AstBackend.FLAT);
+
+        assertEquals(ETHICS, ClausewitzNode.copyOf(decoded.sections().get("ETHICS").root()));
+    }
+
+    @Test
+    void storesRepeatedSymbolsOnce() {
+        var repeated = ClausewitzNode.root(List.of(
+                ClausewitzNode.leaf("a_fairly_long_key", "a_fairly_long_value"),
+                ClausewitzNode.leaf("a_fairly_long_key", "a_fairly_long_value")));
+        var single = ClausewitzNode.root(List.of(
+                ClausewitzNode.leaf("a_fairly_long_key", "a_fairly_long_value")));
+
+        int repeatedSize = AstCodec.encode("fp", Map.of("s", new ParsedFile("", repeated))).length;
+        int singleSize = AstCodec.encode("fp", Map.of("s", new ParsedFile("", single))).length;
+
+        assertEquals(3, repeatedSize - singleSize);
+    }
+
+    @Test
+    void rejectsForeignData() {
+        byte[] data = "{\"fingerprint\":\"fp\"}".getBytes();
+
+        assertThrows(IllegalArgumentException.class, () -> decode(data, AstBackend.RECORD));
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        byte[] data = AstCodec.encode("fp", Map.of("ETHICS", new ParsedFile("", ETHICS)));
+        data[4] = (byte) (AstCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> decode(data, AstBackend.RECORD));
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] data = AstCodec.encode("fp", Map.of("ETHICS", new ParsedFile("", ETHICS)));
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length - 3);
+
+        assertThrows(RuntimeException.class, () -> decode(truncated, AstBackend.RECORD));
+    }
+
+    @Test
+    void rejectsSizesPastTheEndBeforeAllocating() {
+        byte[] data = AstCodec.encode("fp", Map.of("ETHICS", new ParsedFile("", ETHICS)));
+        // Magic and version, then a fingerprint of Integer.MAX_VALUE bytes
+        byte[] hugeString = java.util.Arrays.copyOf(data, 10);
+        System.arraycopy(new byte[] {-1, -1, -1, -1, 0x07}, 0, hugeString, 5, 5);
+        assertThrows(IllegalArgumentException.class, () -> decode(hugeString, AstBackend.RECORD));
+
+        // The fingerprint "fp", then a symbol table of Integer.MAX_VALUE entries
+        byte[] hugeSymbols = data.clone();
+        System.arraycopy(new byte[] {-1, -1, -1, -1, 0x07}, 0, hugeSymbols, 8, 5);
+        assertThrows(IllegalArgumentException.class, () -> decode(hugeSymbols, AstBackend.RECORD));
+    }
+
+    private static AstCodec.Decoded decode(byte[] data, AstBackend backend) {
+        return AstCodec.decode(MemorySegment.ofArray(data), () -> backend.newBuilder(new SymbolTable()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsBurstOnceSettled() throws Exception {
+        Path ethics = Files.createDirectories(tempDir.resolve("common/ethics"));
+        Path traits = Files.createDirectories(tempDir.resolve("common/traits"));
+        var reports = new LinkedBlockingQueue<Set<Path>>();
+
+        try (var watcher = new DirectoryWatcher(List.of(ethics, traits, tempDir.resolve("missing")),
+                Duration.ofMillis(500), reports::add)) {
+            Files.writeString(ethics.resolve("00_ethics.txt"), "a = {}");
+            Files.writeString(ethics.resolve("01_ethics.txt"), "b = {}");
+            Files.writeString(traits.resolve("00_traits.txt"), "c = {}");
+
+            Set<Path> changed = reports.poll(30, TimeUnit.SECONDS);
+            assertNotNull(changed, "Changes should be reported");
+            // Late events of the same burst may arrive in a second report
+            Set<Path> late = reports.poll(1, TimeUnit.SECONDS);
+            if (late != null) changed.addAll(late);
+
+            assertTrue(changed.containsAll(Set.of(ethics.resolve("00_ethics.txt"), ethics.resolve("01_ethics.txt"),
+                    traits.resolve("00_traits.txt"))), "Reported: " + changed);
+            assertNull(reports.poll(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closeStopsReporting() throws IOException, InterruptedException {
+        Path ethics = Files.createDirectories(tempDir.resolve("ethics"));
+        var reports = new LinkedBlockingQueue<Set<Path>>();
+
+        var watcher = new DirectoryWatcher(List.of(ethics), Duration.ofMillis(100), reports::add);
+        watcher.close();
+        Files.writeString(ethics.resolve("00_ethics.txt"), "a = {}");
+
+        assertNull(reports.poll(1, TimeUnit.SECONDS));
+    }
+}
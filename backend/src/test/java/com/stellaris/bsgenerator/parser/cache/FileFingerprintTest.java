@@ -69,4 +69,18 @@ class FileFingerprintTest {
         String hash = FileFingerprint.compute(tempDir, List.of("ethics"));
         assertNotNull(hash);
     }
+
+    @Test
+    void suffixSelectsFilesOutsideCommon() throws IOException {
+        Path loc = tempDir.resolve("localisation/english");
+        Files.createDirectories(loc);
+        Files.writeString(loc.resolve("ethics_l_english.yml"), "l_english:");
+        String hash1 = FileFingerprint.compute(tempDir, List.of("localisation/english"), ".yml");
+
+        Files.writeString(loc.resolve("notes.txt"), "ignored");
+        assertEquals(hash1, FileFingerprint.compute(tempDir, List.of("localisation/english"), ".yml"));
+
+        Files.writeString(loc.resolve("ethics_l_english.yml"), "l_english:\n ethic_x:0 \"X\"");
+        assertNotEquals(hash1, FileFingerprint.compute(tempDir, List.of("localisation/english"), ".yml"));
+    }
 }
@@ -1,8 +1,12 @@
 package com.stellaris.bsgenerator.parser.cache;
 
 import com.stellaris.bsgenerator.extractor.*;
+import com.stellaris.bsgenerator.model.Ethic;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
 import com.stellaris.bsgenerator.parser.LocalizationService;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.parser.loader.GameCategory;
+import com.stellaris.bsgenerator.parser.loader.LoadProgress;
 import com.stellaris.bsgenerator.config.SettingsService;
 import com.stellaris.bsgenerator.parser.loader.GameFileService;
 import org.junit.jupiter.api.Test;
@@ -12,6 +16,15 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,18 +40,26 @@ class GameDataManagerTest {
     }
 
     private GameDataManager createManager() {
-        var props = new ParserProperties(GAME_PATH, tempDir.toString());
+        return createManager(GAME_PATH, new EthicExtractor());
+    }
+
+    private GameDataManager createManager(String gamePath, EthicExtractor ethicExtractor) {
+        return createManager(gamePath, ethicExtractor, LocalizationService::new);
+    }
+
+    private GameDataManager createManager(String gamePath, EthicExtractor ethicExtractor,
+                                          BiFunction<ParserProperties, SettingsService, LocalizationService> localization) {
+        var props = new ParserProperties(gamePath, tempDir.resolve("cache").toString());
         var settingsService = new SettingsService(props);
         var gameFileService = new GameFileService(props, settingsService);
-        var mapper = tools.jackson.databind.json.JsonMapper.builder().build();
-        var cache = new ParsedDataCache(props, mapper);
+        var cache = new ParsedDataCache(props);
         return new GameDataManager(settingsService, gameFileService, cache,
-                new EthicExtractor(), new AuthorityExtractor(),
+                ethicExtractor, new AuthorityExtractor(),
                 new CivicExtractor(), new OriginExtractor(),
                 new SpeciesArchetypeExtractor(), new SpeciesTraitExtractor(),
                 new PlanetClassExtractor(), new GraphicalCultureExtractor(),
                 new StartingRulerTraitExtractor(), new SpeciesClassExtractor(),
-                new LocalizationService(props, settingsService));
+                localization.apply(props, settingsService));
     }
 
     @Test
@@ -102,9 +123,14 @@ class GameDataManagerTest {
         manager.loadGameData(false);
         assertNotNull(manager.getGameVersion());
 
-        // Second load — should hit cache (but still re-parses for now)
+        var traits = manager.getSpeciesTraits();
+        var civics = manager.getCivics();
+
+        // Second load — restores the parsed ASTs from cache without re-parsing
         manager.loadGameData(false);
         assertNotNull(manager.getGameVersion());
+        assertEquals(traits, manager.getSpeciesTraits());
+        assertEquals(civics, manager.getCivics());
     }
 
     @Test
@@ -112,8 +138,7 @@ class GameDataManagerTest {
         var props = new ParserProperties(tempDir.resolve("nonexistent").toString(), tempDir.toString());
         var settingsService = new SettingsService(props);
         var gameFileService = new GameFileService(props, settingsService);
-        var mapper = tools.jackson.databind.json.JsonMapper.builder().build();
-        var cache = new ParsedDataCache(props, mapper);
+        var cache = new ParsedDataCache(props);
         var manager = new GameDataManager(settingsService, gameFileService, cache,
                 new EthicExtractor(), new AuthorityExtractor(),
                 new CivicExtractor(), new OriginExtractor(),
@@ -124,4 +149,331 @@ class GameDataManagerTest {
 
         assertThrows(IOException.class, () -> manager.loadGameData(false));
     }
+
+    @Test
+    void pinnedReadsKeepTheirDataAcrossAReload() throws IOException {
+        Path game = fakeGame("game", "ethic_a");
+        var manager = createManager(game.toString(), new EthicExtractor());
+        manager.loadGameData(false);
+
+        List<String> pinned = manager.withGameData(() -> {
+            try {
+                // A different length, so the file's stamp changes even within the same millisecond
+                writeEthic(game, "ethic_second");
+                manager.forceReload();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return ethicIds(manager);
+        });
+
+        assertEquals(List.of("ethic_a"), pinned);
+        assertEquals(List.of("ethic_second"), ethicIds(manager));
+        assertEquals(GameDataManager.DataStatus.READY, manager.getDataStatus());
+    }
+
+    @Test
+    void pinnedReadsKeepTheirNamesAcrossAReload() throws IOException {
+        Path game = fakeGame("game", "ethic_a");
+        writeName(game, "First");
+        var names = new AtomicReference<LocalizationService>();
+        var manager = createManager(game.toString(), new EthicExtractor(), (props, settings) -> {
+            names.set(new LocalizationService(props, settings));
+            return names.get();
+        });
+        manager.loadGameData(false);
+
+        String pinned = manager.withGameData(() -> {
+            try {
+                writeName(game, "Second");
+                manager.forceReload();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return names.get().getDisplayName("ethic_a");
+        });
+
+        assertEquals("First", pinned);
+        assertEquals("Second", names.get().getDisplayName("ethic_a"));
+    }
+
+    @Test
+    void requestsWhileQueuedShareOneReload() throws Exception {
+        Path game = fakeGame("game", "ethic_a");
+        var extractor = new BlockingEthicExtractor();
+        var manager = createManager(game.toString(), extractor);
+
+        var first = manager.requestReload(false);
+        assertTrue(extractor.entered.await(10, TimeUnit.SECONDS));
+        var second = manager.requestReload(true);
+        var third = manager.requestReload(true);
+        extractor.release.countDown();
+
+        assertSame(second, third);
+        assertNotSame(first, second);
+        third.get(10, TimeUnit.SECONDS);
+        assertTrue(first.isDone());
+        assertFalse(manager.isReloading());
+        assertEquals(List.of("ethic_a"), ethicIds(manager));
+    }
+
+    @Test
+    void changingGamePathCancelsRunningReload() throws Exception {
+        Path oldGame = fakeGame("old", "ethic_old");
+        Path newGame = fakeGame("new", "ethic_new");
+        var extractor = new BlockingEthicExtractor();
+        var manager = createManager(oldGame.toString(), extractor);
+        var settings = new SettingsService(new ParserProperties(oldGame.toString(), tempDir.resolve("cache").toString()));
+
+        var running = manager.requestReload(false);
+        assertTrue(extractor.entered.await(10, TimeUnit.SECONDS));
+        settings.save(new SettingsService.Settings(newGame.toString()));
+        var replacement = manager.requestReload(true);
+        extractor.release.countDown();
+
+        assertThrows(CancellationException.class, running::join);
+        replacement.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("ethic_new"), ethicIds(manager));
+        assertEquals(GameDataManager.DataStatus.READY, manager.getDataStatus());
+    }
+
+    @Test
+    void loadReportsProgressOfEveryPhase() throws IOException {
+        Path game = fakeGame("game", "ethic_a");
+        var manager = createManager(game.toString(), new EthicExtractor());
+        manager.loadGameData(false);
+
+        assertEquals(EnumSet.allOf(GameCategory.class), manager.getReadyCategories());
+        var phases = manager.getLoadProgress().phases();
+        assertTrue(phases.stream().allMatch(phase -> phase.state() == LoadProgress.State.DONE), phases.toString());
+        var ethics = phases.stream().filter(phase -> phase.name().equals("ethics")).findFirst().orElseThrow();
+        assertEquals(1, ethics.filesParsed());
+        assertEquals(1, ethics.filesTotal());
+        assertEquals(Files.size(game.resolve("common/ethics/00_ethics.txt")), ethics.bytesRead());
+    }
+
+    @Test
+    void categoriesAreReadyBeforeLocalization() throws Exception {
+        Path game = fakeGame("game", "ethic_a");
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var manager = createManager(game.toString(), new EthicExtractor(), (props, settings) ->
+                new LocalizationService(props, settings) {
+                    @Override
+                    public Map<String, String> parse(List<Path> files) {
+                        entered.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return Map.of("ethic_a", "Ethic A");
+                    }
+                });
+
+        var reload = manager.requestReload(false);
+        manager.whenReady(EnumSet.allOf(GameCategory.class)).get(10, TimeUnit.SECONDS);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        // Only readiness-gated callers see the categories until the whole load is published
+        assertEquals(GameDataManager.DataStatus.LOADING, manager.getDataStatus());
+        assertEquals(List.of("ethic_a"), manager.withReadyGameData(() -> ethicIds(manager)));
+        assertNull(manager.getEthics());
+        var localisation = manager.getLoadProgress().phases().stream()
+                .filter(phase -> phase.name().equals("localisation")).findFirst().orElseThrow();
+        assertEquals(LoadProgress.State.LOADING, localisation.state());
+
+        release.countDown();
+        reload.get(10, TimeUnit.SECONDS);
+        assertEquals("Ethic A", manager.getGameData().localizations().get("ethic_a"));
+        assertEquals(List.of("ethic_a"), ethicIds(manager));
+        assertEquals(GameDataManager.DataStatus.READY, manager.getDataStatus());
+    }
+
+    @Test
+    void cancelledProgressiveLoadPublishesNothing() throws Exception {
+        Path oldGame = fakeGame("old", "ethic_old");
+        Path newGame = fakeGame("new", "ethic_new");
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var manager = createManager(oldGame.toString(), new EthicExtractor() {
+            @Override
+            public List<Ethic> extract(AstNode root) {
+                if (root.findChild("ethic_new") != null) {
+                    entered.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.extract(root);
+            }
+        });
+        var settings = new SettingsService(new ParserProperties(oldGame.toString(), tempDir.resolve("cache").toString()));
+        manager.loadGameData(false);
+
+        settings.save(new SettingsService.Settings(newGame.toString()));
+        var running = manager.requestReload(false);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        // Categories of the new install extracted so far aren't published, and its ethics aren't ready
+        assertEquals(List.of("ethic_old"), ethicIds(manager));
+        assertNotNull(manager.getSpeciesTraits());
+        assertFalse(manager.getReadyCategories().contains(GameCategory.ETHICS));
+        assertNull(manager.withReadyGameData(manager::getEthics));
+
+        settings.save(new SettingsService.Settings(oldGame.toString()));
+        var back = manager.requestReload(false);
+        release.countDown();
+
+        assertThrows(CancellationException.class, running::join);
+        assertEquals(List.of("ethic_old"), ethicIds(manager));
+        assertEquals(List.of("ethic_old"), manager.withReadyGameData(() -> ethicIds(manager)));
+        back.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("ethic_old"), ethicIds(manager));
+        assertEquals(EnumSet.allOf(GameCategory.class), manager.getReadyCategories());
+        assertEquals(GameDataManager.DataStatus.READY, manager.getDataStatus());
+    }
+
+    @Test
+    void waitersOfACancelledLoadGetTheNextGamePath() throws Exception {
+        Path oldGame = fakeGame("old", "ethic_old");
+        Path newGame = fakeGame("new", "ethic_new");
+        Path otherGame = fakeGame("other", "ethic_other");
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var manager = createManager(oldGame.toString(), new EthicExtractor() {
+            @Override
+            public List<Ethic> extract(AstNode root) {
+                if (root.findChild("ethic_new") != null) {
+                    entered.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.extract(root);
+            }
+        });
+        var settings = new SettingsService(new ParserProperties(oldGame.toString(), tempDir.resolve("cache").toString()));
+        manager.loadGameData(false);
+
+        settings.save(new SettingsService.Settings(newGame.toString()));
+        var running = manager.requestReload(false);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        var ethicsReady = manager.whenReady(EnumSet.of(GameCategory.ETHICS));
+
+        settings.save(new SettingsService.Settings(otherGame.toString()));
+        var other = manager.requestReload(false);
+        release.countDown();
+
+        assertThrows(CancellationException.class, running::join);
+        // Still waiting, then completed by the load of the path that replaced it
+        ethicsReady.get(10, TimeUnit.SECONDS);
+        other.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("ethic_other"), ethicIds(manager));
+    }
+
+    @Test
+    void releasesAstsAfterExtraction() throws IOException {
+        Path game = fakeGame("game", "ethic_a");
+        var manager = createManager(game.toString(), new EthicExtractor());
+        manager.loadGameData(false);
+
+        var ethics = manager.getFootprint().stream()
+                .filter(footprint -> footprint.name().equals("ethics")).findFirst().orElseThrow();
+        assertTrue(ethics.modelBytes() > 0);
+        assertEquals(0, ethics.astBytes());
+
+        // The next load reads the dropped ASTs back from the cache
+        writeEthic(game, "ethic_second");
+        manager.forceReload();
+        assertEquals(List.of("ethic_second"), ethicIds(manager));
+    }
+
+    @Test
+    void reloadsKeepUntouchedCategoriesWithoutRetainedAsts() throws IOException {
+        Path game = fakeGame("game", "ethic_a");
+        Path authorities = Files.createDirectories(game.resolve("common/governments/authorities"));
+        Files.writeString(authorities.resolve("00_authorities.txt"), "auth_a = { election_type = none }\n");
+        var manager = createManager(game.toString(), new EthicExtractor());
+        manager.loadGameData(false);
+        var extracted = manager.getAuthorities();
+
+        // Different lengths, so the file's stamp changes even within the same millisecond
+        writeEthic(game, "ethic_second");
+        manager.forceReload();
+        writeEthic(game, "ethic_the_third");
+        manager.forceReload();
+
+        assertEquals(List.of("ethic_the_third"), ethicIds(manager));
+        assertSame(extracted, manager.getAuthorities());
+    }
+
+    @Test
+    void switchingBackToAnInstallRestoresItsSnapshot() throws IOException {
+        Path stable = fakeGame("stable", "ethic_stable");
+        Path beta = fakeGame("beta", "ethic_beta");
+        var extracted = new ArrayList<String>();
+        var manager = createManager(stable.toString(), new EthicExtractor() {
+            @Override
+            public List<Ethic> extract(AstNode root) {
+                var ethics = super.extract(root);
+                ethics.forEach(ethic -> extracted.add(ethic.id()));
+                return ethics;
+            }
+        });
+        var settings = new SettingsService(new ParserProperties(stable.toString(), tempDir.resolve("cache").toString()));
+        manager.loadGameData(false);
+        settings.save(new SettingsService.Settings(beta.toString()));
+        manager.loadGameData(false);
+
+        settings.save(new SettingsService.Settings(stable.toString()));
+        manager.loadGameData(false);
+
+        assertEquals(List.of("ethic_stable"), ethicIds(manager));
+        assertEquals(List.of("ethic_stable", "ethic_beta"), extracted);
+    }
+
+    /** A minimal install: launcher settings and a single ethic. */
+    private Path fakeGame(String name, String ethic) throws IOException {
+        Path game = tempDir.resolve(name);
+        Files.createDirectories(game);
+        Files.writeString(game.resolve("launcher-settings.json"),
+                "{\"version\": \"Test v1.0.0 (abc123)\", \"rawVersion\": \"v1.0.0\"}");
+        writeEthic(game, ethic);
+        return game;
+    }
+
+    private static void writeEthic(Path game, String ethic) throws IOException {
+        Path file = Files.createDirectories(game.resolve("common/ethics")).resolve("00_ethics.txt");
+        Files.writeString(file, ethic + " = { cost = 1 }\n");
+    }
+
+    private static void writeName(Path game, String name) throws IOException {
+        Path file = Files.createDirectories(game.resolve("localisation/english")).resolve("ethics_l_english.yml");
+        Files.writeString(file, "l_english:\n ethic_a:0 \"" + name + "\"\n");
+    }
+
+    private static List<String> ethicIds(GameDataManager manager) {
+        return manager.getEthics().stream().map(Ethic::id).toList();
+    }
+
+    /** Blocks the first extraction until released, holding its reload in the running state. */
+    private static class BlockingEthicExtractor extends EthicExtractor {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Ethic> extract(AstNode root) {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.extract(root);
+        }
+    }
 }
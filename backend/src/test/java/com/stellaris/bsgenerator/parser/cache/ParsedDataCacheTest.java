@@ -1,15 +1,17 @@
 package com.stellaris.bsgenerator.parser.cache;
 
-import tools.jackson.databind.json.JsonMapper;
 import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
+import com.stellaris.bsgenerator.parser.loader.ParsedFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Map;
 
@@ -25,7 +27,7 @@ class ParsedDataCacheTest {
     @BeforeEach
     void setUp() {
         var props = new ParserProperties("dummy", tempDir.toString());
-        cache = new ParsedDataCache(props, JsonMapper.builder().build());
+        cache = new ParsedDataCache(props);
     }
 
     @Test
@@ -33,33 +35,33 @@ class ParsedDataCacheTest {
         var node = ClausewitzNode.root(List.of(
                 ClausewitzNode.leaf("key", "value")
         ));
-        Map<String, ClausewitzNode> data = Map.of("test", node);
+        Map<String, ParsedFile> data = Map.of("test", new ParsedFile("1700000000000:42", node));
 
         cache.save("fp123", data);
-        ParsedDataCache.CacheEntry loaded = cache.load();
+        ParsedDataCache.CacheEntry loaded = cache.load("fp123");
 
         assertNotNull(loaded);
         assertEquals("fp123", loaded.fingerprint());
-        assertNotNull(loaded.data().get("test"));
+        assertEquals(data, loaded.files());
     }
 
     @Test
     void missingCacheReturnsNull() {
-        assertNull(cache.load());
+        assertNull(cache.load("fp"));
     }
 
     @Test
     void corruptCacheReturnsNull() throws IOException {
-        Files.createDirectories(tempDir);
-        Files.writeString(tempDir.resolve("stellaris-cache.json"), "not json{{{");
-        assertNull(cache.load());
+        Files.createDirectories(cache.astFile("fp").getParent());
+        Files.writeString(cache.astFile("fp"), "not a cache{{{");
+        assertNull(cache.load("fp"));
     }
 
     @Test
     void clearRemovesFile() {
         cache.save("fp", Map.of());
         cache.clear();
-        assertNull(cache.load());
+        assertNull(cache.load("fp"));
     }
 
     @Test
@@ -72,12 +74,83 @@ class ParsedDataCacheTest {
                 ))
         ));
         var root = ClausewitzNode.root(List.of(inner));
-        Map<String, ClausewitzNode> data = Map.of("ethics", root);
+        Map<String, ParsedFile> data = Map.of("ethics/00_ethics.txt", new ParsedFile("1:2", root));
 
         cache.save("fp456", data);
-        ParsedDataCache.CacheEntry loaded = cache.load();
+        ParsedDataCache.CacheEntry loaded = cache.load("fp456");
 
         assertNotNull(loaded);
         assertEquals("fp456", loaded.fingerprint());
+        assertEquals(root, loaded.files().get("ethics/00_ethics.txt").root());
+    }
+
+    @Test
+    void saveRemovesLegacyCaches() throws IOException {
+        Path legacyJson = tempDir.resolve("stellaris-cache.json");
+        Path legacyBinary = tempDir.resolve("stellaris-cache.bin");
+        Files.writeString(legacyJson, "{}");
+        Files.writeString(legacyBinary, "");
+
+        cache.save("fp", Map.of());
+
+        assertFalse(Files.exists(legacyJson));
+        assertFalse(Files.exists(legacyBinary));
+        assertNotNull(cache.load("fp"));
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        cache.saveSnapshot("fp789", SnapshotCodecTest.SNAPSHOT);
+        ParsedDataCache.SnapshotEntry loaded = cache.loadSnapshot("fp789");
+
+        assertNotNull(loaded);
+        assertEquals("fp789", loaded.fingerprint());
+        assertEquals(SnapshotCodecTest.SNAPSHOT, loaded.snapshot());
+    }
+
+    @Test
+    void clearRemovesSnapshot() {
+        cache.saveSnapshot("fp", SnapshotCodecTest.SNAPSHOT);
+        cache.clear();
+        assertNull(cache.loadSnapshot("fp"));
+    }
+
+    @Test
+    void keepsSnapshotsOfSeveralFingerprints() {
+        cache.saveSnapshot("stable", SnapshotCodecTest.SNAPSHOT);
+        cache.saveSnapshot("beta", SnapshotCodecTest.SNAPSHOT);
+
+        assertEquals("stable", cache.loadSnapshot("stable").fingerprint());
+        assertEquals("beta", cache.loadSnapshot("beta").fingerprint());
+        assertNull(cache.loadSnapshot("other"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondSlots() throws IOException {
+        cache = new ParsedDataCache(new ParserProperties("dummy", tempDir.toString(), null, null, null, null, 2, null));
+        cache.saveSnapshot("a", SnapshotCodecTest.SNAPSHOT);
+        cache.saveSnapshot("b", SnapshotCodecTest.SNAPSHOT);
+        // Older than b, then used again
+        Files.setLastModifiedTime(cache.snapshotFile("a"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(cache.snapshotFile("b"), FileTime.fromMillis(2_000));
+        assertNotNull(cache.loadSnapshot("a"));
+
+        cache.saveSnapshot("c", SnapshotCodecTest.SNAPSHOT);
+
+        assertNotNull(cache.loadSnapshot("a"));
+        assertNull(cache.loadSnapshot("b"));
+        assertNotNull(cache.loadSnapshot("c"));
+    }
+
+    @Test
+    void evictsBeyondMaxSize() {
+        cache = new ParsedDataCache(new ParserProperties("dummy", tempDir.toString(), null, null, null, null, null,
+                DataSize.ofBytes(1)));
+        cache.saveSnapshot("a", SnapshotCodecTest.SNAPSHOT);
+        cache.saveSnapshot("b", SnapshotCodecTest.SNAPSHOT);
+
+        // The entry just written is kept even though it alone is over the limit
+        assertNull(cache.loadSnapshot("a"));
+        assertNotNull(cache.loadSnapshot("b"));
     }
 }
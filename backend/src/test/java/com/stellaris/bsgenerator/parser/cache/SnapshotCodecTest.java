@@ -0,0 +1,157 @@
+package com.stellaris.bsgenerator.parser.cache;
+
+import com.stellaris.bsgenerator.model.*;
+import com.stellaris.bsgenerator.model.requirement.Requirement;
+import com.stellaris.bsgenerator.model.requirement.RequirementBlock;
+import com.stellaris.bsgenerator.model.requirement.RequirementCategory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCodecTest {
+
+    static final GameDataSnapshot SNAPSHOT = new GameDataSnapshot(
+            List.of(new Ethic("ethic_fanatic_pacifist", 2, "pacifism", true, false,
+                    "ethic_pacifist", null, List.of("ETHIC_TAG"), 1)),
+            List.of(new Authority("auth_democratic", "democratic", false,
+                    null,
+                    new RequirementBlock(
+                            Map.of(RequirementCategory.ETHICS, List.of(
+                                    new Requirement.Not("ethic_gestalt_consciousness"),
+                                    new Requirement.Nor(List.of("ethic_authoritarian", "ethic_fanatic_authoritarian")))),
+                            List.of(Map.of(
+                                    RequirementCategory.CIVICS, List.of(new Requirement.Value("civic_a")),
+                                    RequirementCategory.ORIGIN, List.of(new Requirement.Or(List.of("origin_b")))))),
+                    -5, false)),
+            List.of(new Civic("civic_idealistic_foundation", null, null, true, 1,
+                    new SecondarySpeciesConfig("sec_title", List.of("trait_x")), List.of())),
+            List.of(new Origin("origin_default", null, null, "Federations", 1, null, List.of(),
+                    "gfx/interface/icons/origins/origin_default.dds", "pc_ocean")),
+            List.of(new SpeciesArchetype("BIOLOGICAL", 2, 5, false)),
+            List.of(new SpeciesTrait("trait_strong", 1, List.of("BIOLOGICAL"), List.of(), List.of(),
+                    List.of("trait_weak"), true, true, null, List.of(), List.of(), List.of(), List.of(),
+                    List.of(), List.of(), List.of(), null)),
+            List.of(new PlanetClass("pc_desert", "dry")),
+            List.of(new GraphicalCulture("mammalian_01")),
+            List.of(new StartingRulerTrait("leader_trait_principled", List.of("official"), List.of(),
+                    List.of(), List.of(), List.of(), List.of(), List.of(), -1, List.of(), "GFX_leader_trait")),
+            List.of(new SpeciesClass("MAM", "BIOLOGICAL")),
+            Map.of("GFX_leader_trait", "gfx/leader.dds"),
+            Map.of(),
+            Map.of("trait_strong", "Strong", "pc_desert", "Désert"));
+
+    @Test
+    void roundTripsEveryField() {
+        var decoded = decode(SnapshotCodec.encode("fp", SNAPSHOT));
+
+        assertEquals("fp", decoded.fingerprint());
+        assertEquals(SNAPSHOT, decoded.snapshot());
+    }
+
+    @Test
+    void looksUpLocalizationInPlace() {
+        var localizations = new HashMap<String, String>();
+        for (int i = 0; i < 1000; i++) {
+            localizations.put("key_" + i, "Value " + i);
+        }
+        var snapshot = new GameDataSnapshot(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(), List.of(), List.of(), List.of(), Map.of(), Map.of(), localizations);
+
+        var decoded = decode(SnapshotCodec.encode("fp", snapshot)).snapshot().localizations();
+
+        assertInstanceOf(MappedStringMap.class, decoded);
+        assertEquals(1000, decoded.size());
+        assertEquals("Value 512", decoded.get("key_512"));
+        assertTrue(decoded.containsKey("key_0"));
+        assertNull(decoded.get("key_1000"));
+        assertEquals(localizations, decoded);
+    }
+
+    @Test
+    void storesRepeatedStringsOnce() {
+        var once = new GameDataSnapshot(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(new PlanetClass("pc_a_long_planet_class_name", "dry")), List.of(), List.of(), List.of(),
+                Map.of(), Map.of(), Map.of());
+        var twice = new GameDataSnapshot(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(new PlanetClass("pc_a_long_planet_class_name", "dry"),
+                        new PlanetClass("pc_a_long_planet_class_name", "dry")),
+                List.of(), List.of(), List.of(), Map.of(), Map.of(), Map.of());
+
+        int extra = SnapshotCodec.encode("fp", twice).length - SnapshotCodec.encode("fp", once).length;
+
+        assertEquals(2, extra);
+    }
+
+    @Test
+    void rejectsForeignData() {
+        assertThrows(IllegalArgumentException.class, () -> decode("{}".getBytes()));
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        byte[] data = SnapshotCodec.encode("fp", SNAPSHOT);
+        data[4] = (byte) (SnapshotCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> decode(data));
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] data = SnapshotCodec.encode("fp", SNAPSHOT);
+
+        assertThrows(RuntimeException.class, () -> decode(java.util.Arrays.copyOf(data, data.length - 3)));
+    }
+
+    @Test
+    void rejectsSizesPastTheEndBeforeAllocating() {
+        byte[] data = SnapshotCodec.encode("fp", SNAPSHOT);
+        // Magic and version, then a new string of Integer.MAX_VALUE bytes
+        byte[] hugeString = Arrays.copyOf(data, 11);
+        System.arraycopy(new byte[] {1, -1, -1, -1, -1, 0x07}, 0, hugeString, 5, 6);
+        assertThrows(IllegalArgumentException.class, () -> decode(hugeString));
+
+        // The fingerprint "fp", then an ethics list of Integer.MAX_VALUE - 1 entries
+        byte[] hugeList = data.clone();
+        System.arraycopy(new byte[] {-1, -1, -1, -1, 0x07}, 0, hugeList, 9, 5);
+        assertThrows(IllegalArgumentException.class, () -> decode(hugeList));
+    }
+
+    @Test
+    void rejectsCorruptLocalizationUpFront() {
+        var localizations = Map.of("key_a", "Value A", "key_b", "Value B");
+        byte[] valid = MappedStringMap.encode(localizations);
+        var buffer = ByteBuffer.wrap(valid);
+        int tableSize = buffer.getInt(4);
+        int entriesStart = 8 + 4 * tableSize;
+        assertEquals(localizations, new MappedStringMap(MemorySegment.ofArray(valid)));
+
+        // A table slot pointing into the middle of an entry
+        byte[] badOffset = valid.clone();
+        for (int slot = 0; slot < tableSize; slot++) {
+            if (buffer.getInt(8 + 4 * slot) != -1) {
+                ByteBuffer.wrap(badOffset).putInt(8 + 4 * slot, entriesStart + 1);
+                break;
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MappedStringMap(MemorySegment.ofArray(badOffset)));
+
+        // A length prefix running past the end
+        byte[] badLength = valid.clone();
+        ByteBuffer.wrap(badLength).putInt(entriesStart, valid.length);
+        assertThrows(IllegalArgumentException.class, () -> new MappedStringMap(MemorySegment.ofArray(badLength)));
+
+        byte[] truncated = Arrays.copyOf(valid, valid.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> new MappedStringMap(MemorySegment.ofArray(truncated)));
+    }
+
+    private static SnapshotCodec.Decoded decode(byte[] data) {
+        return SnapshotCodec.decode(MemorySegment.ofArray(data));
+    }
+}
@@ -1,22 +1,43 @@
 package com.stellaris.bsgenerator.parser.loader;
 
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.ClausewitzNode;
+import com.stellaris.bsgenerator.parser.ast.ClausewitzNodeBuilder;
+import com.stellaris.bsgenerator.parser.ast.EntryFilter;
+import com.stellaris.bsgenerator.parser.ast.FlatNode;
+import com.stellaris.bsgenerator.parser.ast.Projection;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class DirectoryLoaderTest {
 
+    private static final String GAME_PATH = "F:\\Games\\SteamLibrary\\steamapps\\common\\Stellaris";
+
     @TempDir
     Path tempDir;
 
+    static boolean gameFilesExist() {
+        return Files.isDirectory(Path.of(GAME_PATH, "common"));
+    }
+
     @Test
     void mergesMultipleFiles() throws IOException {
         Files.writeString(tempDir.resolve("00_first.txt"),
@@ -82,4 +103,138 @@ class DirectoryLoaderTest {
         var root = DirectoryLoader.loadDirectory(tempDir, new HashMap<>());
         assertTrue(root.children().isEmpty());
     }
+
+    @Test
+    void parallelLoadMatchesSequentialOrder() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(tempDir.resolve("%02d_file.txt".formatted(i)),
+                    "@v = %d\nshared = { val = @v }\nentity_%d = { cost = @g }\n".formatted(i, i),
+                    StandardCharsets.UTF_8);
+        }
+        Files.writeString(tempDir.resolve("10_broken.txt"), "broken = { val = @undefined }\n", StandardCharsets.UTF_8);
+        var globals = Map.of("g", "7");
+
+        var sequential = DirectoryLoader.loadDirectory(tempDir, globals);
+        ClausewitzNode parallel;
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            parallel = DirectoryLoader.loadDirectory(tempDir, globals, new SymbolTable(),
+                    new ClausewitzNodeBuilder(), EntryFilter.ALL, Projection.ALL, executor);
+        }
+
+        assertEquals(sequential, parallel);
+        assertEquals(40, parallel.children().size());
+        assertNull(parallel.findChild("broken"));
+        assertEquals("19", parallel.children("shared").getLast().childValue("val", null));
+    }
+
+    @Test
+    void loadFilesReparsesOnlyChangedFiles() throws IOException {
+        Files.writeString(tempDir.resolve("00_kept.txt"), "kept = { val = 0 }\n");
+        Files.writeString(tempDir.resolve("01_changed.txt"), "changed = { val = 1 }\n");
+        Files.writeString(tempDir.resolve("02_removed.txt"), "removed = { val = 2 }\n");
+        var first = loadFiles(Map.of());
+
+        Files.writeString(tempDir.resolve("01_changed.txt"), "changed = { val = 10 }\n");
+        Files.delete(tempDir.resolve("02_removed.txt"));
+        Files.writeString(tempDir.resolve("03_added.txt"), "added = { val = 3 }\n");
+        var second = loadFiles(first);
+
+        assertEquals(List.of("00_kept.txt", "01_changed.txt", "03_added.txt"), List.copyOf(second.keySet()));
+        assertSame(first.get("00_kept.txt"), second.get("00_kept.txt"));
+        assertEquals("10", second.get("01_changed.txt").root().findChild("changed").childValue("val", null));
+
+        var merged = DirectoryLoader.merge(second.values());
+        assertEquals(List.of("kept", "changed", "added"), merged.children().stream().map(AstNode::key).toList());
+    }
+
+    @Test
+    void loadFilesKeepsBrokenFileEmptyUntilItChanges() throws IOException {
+        Files.writeString(tempDir.resolve("00_broken.txt"), "broken = { val = @undefined }\n");
+
+        var files = loadFiles(Map.of());
+
+        assertTrue(files.get("00_broken.txt").root().children().isEmpty());
+        assertSame(files.get("00_broken.txt"), loadFiles(files).get("00_broken.txt"));
+    }
+
+    @Test
+    void loadFilesParsesIntoConfiguredBackend() throws IOException {
+        Files.writeString(tempDir.resolve("00_a.txt"), "a = { tags = { x y } }\n");
+        Files.writeString(tempDir.resolve("01_broken.txt"), "broken = { val = @undefined }\n");
+        Files.writeString(tempDir.resolve("02_b.txt"), "b = 1\n");
+
+        var files = DirectoryLoader.loadFiles(tempDir, Map.of(), new ConcurrentHashMap<>(), AstBackend.FLAT,
+                EntryFilter.ALL, Projection.ALL, Map.of(), null);
+
+        assertInstanceOf(FlatNode.class, files.get("00_a.txt").root());
+        assertTrue(files.get("01_broken.txt").root().children().isEmpty());
+        var merged = DirectoryLoader.merge(files.values());
+        assertEquals(DirectoryLoader.loadDirectory(tempDir, new HashMap<>()), ClausewitzNode.copyOf(merged));
+    }
+
+    private Map<String, ParsedFile> loadFiles(Map<String, ParsedFile> previous) throws IOException {
+        return DirectoryLoader.loadFiles(tempDir, Map.of(), new ConcurrentHashMap<>(), AstBackend.RECORD,
+                EntryFilter.ALL, Projection.ALL, previous, null);
+    }
+
+    @Test
+    void parallelLoadIntoFlatBackend() throws IOException {
+        Files.writeString(tempDir.resolve("00_a.txt"), "a = { tags = { x y } }\n", StandardCharsets.UTF_8);
+        Files.writeString(tempDir.resolve("01_b.txt"), "b = 1\nc = { }\n", StandardCharsets.UTF_8);
+
+        var symbols = new SymbolTable();
+        AstNode flat;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            flat = DirectoryLoader.loadDirectory(tempDir, new HashMap<>(), symbols,
+                    AstBackend.FLAT.newBuilder(symbols), EntryFilter.ALL, Projection.ALL, executor);
+        }
+        assertEquals(DirectoryLoader.loadDirectory(tempDir, new HashMap<>()), ClausewitzNode.copyOf(flat));
+    }
+
+    /**
+     * Benchmark: parse time of the traits and civics directories by worker count.
+     * Enable by removing @Disabled.
+     */
+    @Disabled("Benchmark — run manually to measure parallel parsing scaling")
+    @Test
+    @EnabledIf("gameFilesExist")
+    void parallelScalingBenchmark() throws IOException {
+        Path common = Path.of(GAME_PATH, "common");
+        var globals = ScriptedVariableLoader.loadFromDirectory(common.resolve("scripted_variables"));
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("\n===== PARALLEL PARSING SCALING =====");
+        System.out.printf("%-20s %8s %10s %8s%n", "Directory", "Workers", "Median ms", "Speedup");
+        for (GameCategory category : List.of(GameCategory.TRAITS, GameCategory.CIVICS)) {
+            Path directory = category.resolve(common);
+            double baseline = 0;
+            for (int workers = 1; workers <= cores; workers *= 2) {
+                double median;
+                try (var pool = new ForkJoinPool(workers)) {
+                    median = medianMillis(() -> DirectoryLoader.loadDirectory(directory, globals, new SymbolTable(),
+                            new ClausewitzNodeBuilder(), EntryFilter.ALL, Projection.ALL, pool));
+                }
+                if (workers == 1) baseline = median;
+                System.out.printf("%-20s %8d %10.1f %7.2fx%n", category.subdirectory(), workers, median, baseline / median);
+            }
+        }
+    }
+
+    private interface Load {
+        AstNode run() throws IOException;
+    }
+
+    private static double medianMillis(Load load) throws IOException {
+        for (int i = 0; i < 3; i++) {
+            load.run(); // warm-up
+        }
+        double[] samples = new double[7];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            assertNotNull(load.run());
+            samples[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
 }
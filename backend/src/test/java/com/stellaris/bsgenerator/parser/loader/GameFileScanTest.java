@@ -0,0 +1,72 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import com.stellaris.bsgenerator.parser.cache.FileFingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameFileScanTest {
+
+    @TempDir
+    Path gameDir;
+
+    private void write(String relativePath, String content) throws IOException {
+        Path file = gameDir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @Test
+    void listsEachInputDirectoryInNameOrder() throws IOException {
+        write("common/ethics/01_b.txt", "b = {}");
+        write("common/ethics/00_a.txt", "a = {}");
+        write("common/ethics/readme.md", "ignored");
+        write("common/scripted_variables/00_vars.txt", "@x = 1");
+        write("localisation/english/ethics_l_english.yml", "l_english:");
+        write("localisation/english/ethics_l_french.yml", "l_french:");
+        write("interface/icons/traits/leader_traits.gfx", "spriteTypes = {}");
+
+        var scan = GameFileScan.scan(gameDir);
+
+        assertEquals(List.of("00_a.txt", "01_b.txt"), names(scan.files(GameCategory.ETHICS)));
+        assertEquals(List.of("00_vars.txt"), names(scan.files(GameFileScan.SCRIPTED_VARIABLES)));
+        assertEquals(List.of("ethics_l_english.yml"), names(scan.files(GameFileScan.LOCALISATION)));
+        assertEquals(List.of("leader_traits.gfx"), names(scan.files(GameFileScan.TRAIT_ICONS)));
+        assertTrue(scan.files(GameCategory.TRAITS).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> scan.files("common/buildings"));
+    }
+
+    @Test
+    void recordsAttributesForStamps() throws IOException {
+        write("common/ethics/00_a.txt", "a = {}");
+        Path file = gameDir.resolve("common/ethics/00_a.txt");
+
+        var entry = GameFileScan.scan(gameDir).files(GameCategory.ETHICS).getFirst();
+
+        assertEquals(file, entry.path());
+        assertEquals(Files.size(file), entry.size());
+        assertEquals(Files.getLastModifiedTime(file).toMillis(), entry.lastModified());
+        assertEquals(entry.lastModified() + ":" + entry.size(), entry.stamp());
+    }
+
+    @Test
+    void fingerprintFromScanMatchesDirectoryFingerprint() throws IOException {
+        write("common/ethics/00_a.txt", "a = {}");
+        write("common/traits/00_t.txt", "t = {}");
+
+        var scan = GameFileScan.scan(gameDir);
+
+        assertEquals(FileFingerprint.compute(gameDir, List.of("ethics", "traits")),
+                FileFingerprint.compute(scan, List.of("common/ethics", "common/traits")));
+    }
+
+    private static List<String> names(List<GameFileScan.Entry> entries) {
+        return entries.stream().map(e -> e.path().getFileName().toString()).toList();
+    }
+}
@@ -1,13 +1,25 @@
 package com.stellaris.bsgenerator.parser.loader;
 
+import com.stellaris.bsgenerator.extractor.*;
+import com.stellaris.bsgenerator.parser.ast.AstBackend;
+import com.stellaris.bsgenerator.parser.ast.AstNode;
+import com.stellaris.bsgenerator.parser.ast.ClausewitzNodeBuilder;
 import com.stellaris.bsgenerator.parser.config.ParserProperties;
 import com.stellaris.bsgenerator.config.SettingsService;
+import com.stellaris.bsgenerator.parser.token.SymbolTable;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +53,173 @@ class GameFileServiceTest {
         assertNotNull(service.getTraits());
         assertTrue(service.getTraits().children().size() > 20, "Should have many traits");
     }
+
+    @Test
+    void loadAllAsyncPublishesEachCategory(@TempDir Path gameDir) throws IOException {
+        Path common = gameDir.resolve("common");
+        Files.createDirectories(common.resolve("scripted_variables"));
+        Files.writeString(common.resolve("scripted_variables/00_vars.txt"), "@ethic_cost = 2\n");
+        Files.createDirectories(common.resolve("ethics"));
+        Files.writeString(common.resolve("ethics/00_ethics.txt"), "ethic_a = { cost = @ethic_cost }\n");
+        Files.createDirectories(common.resolve("traits"));
+        Files.writeString(common.resolve("traits/00_traits.txt"),
+                "trait_a = { cost = 1 allowed_archetypes = { BIOLOGICAL } }\nleader_trait = { leader_class = { official } }\n");
+
+        var props = new ParserProperties(gameDir.toString(), gameDir.resolve("cache").toString());
+        var service = new GameFileService(props, new SettingsService(props));
+        Map<GameCategory, CompletableFuture<AstNode>> futures;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures = service.loadAllAsync(executor);
+            assertEquals(Set.of(GameCategory.values()), futures.keySet());
+
+            var ethics = GameFileService.await(futures.get(GameCategory.ETHICS));
+            assertSame(ethics, service.getEthics());
+            assertEquals("2", ethics.findChild("ethic_a").childValue("cost", null));
+            assertEquals(List.of("trait_a"),
+                    GameFileService.await(futures.get(GameCategory.TRAITS)).children().stream().map(AstNode::key).toList());
+        }
+        assertTrue(futures.values().stream().allMatch(CompletableFuture::isDone));
+        assertTrue(service.getCivics().children().isEmpty());
+    }
+
+    @Test
+    void reloadKeepsRootsOfUnchangedCategories(@TempDir Path gameDir) throws IOException {
+        Path common = gameDir.resolve("common");
+        Files.createDirectories(common.resolve("ethics"));
+        Files.writeString(common.resolve("ethics/00_ethics.txt"), "ethic_a = { cost = 1 }\n");
+        Files.createDirectories(common.resolve("species_archetypes"));
+        Files.writeString(common.resolve("species_archetypes/00_archetypes.txt"), "BIOLOGICAL = { species_trait_points = 2 }\n");
+
+        var props = new ParserProperties(gameDir.toString(), gameDir.resolve("cache").toString());
+        var service = new GameFileService(props, new SettingsService(props));
+        service.loadAll();
+        AstNode ethics = service.getEthics();
+        AstNode archetypes = service.getSpeciesArchetypes();
+
+        Files.writeString(common.resolve("ethics/00_ethics.txt"), "ethic_a = { cost = 10 }\n");
+        service.loadAll();
+
+        assertSame(archetypes, service.getSpeciesArchetypes());
+        assertNotSame(ethics, service.getEthics());
+        assertEquals("10", service.getEthics().findChild("ethic_a").childValue("cost", null));
+    }
+
+    @Test
+    void restoredParsedFilesAreReused(@TempDir Path gameDir) throws IOException {
+        Path common = gameDir.resolve("common");
+        Files.createDirectories(common.resolve("scripted_variables"));
+        Files.writeString(common.resolve("scripted_variables/00_vars.txt"), "@ethic_cost = 2\n");
+        Files.createDirectories(common.resolve("ethics"));
+        Files.writeString(common.resolve("ethics/00_ethics.txt"), "ethic_a = { cost = @ethic_cost }\n");
+
+        var props = new ParserProperties(gameDir.toString(), gameDir.resolve("cache").toString());
+        var first = new GameFileService(props, new SettingsService(props));
+        first.loadAll();
+        var exported = first.exportParsedFiles();
+        assertEquals(Set.of(GameFileService.SCRIPTED_VARIABLES, "ethics/00_ethics.txt"), exported.keySet());
+
+        var second = new GameFileService(props, new SettingsService(props));
+        second.restoreParsedFiles(exported);
+        second.loadAll();
+
+        AstNode restoredEntry = exported.get("ethics/00_ethics.txt").root().children().getFirst();
+        assertSame(restoredEntry, second.getEthics().children().getFirst());
+        assertEquals("2", second.getEthics().findChild("ethic_a").childValue("cost", null));
+    }
+
+    @Test
+    @EnabledIf("gameFilesExist")
+    void projectedLoadExtractsSameData() throws IOException {
+        var civics = new CivicExtractor();
+        var origins = new OriginExtractor();
+        var traits = new SpeciesTraitExtractor();
+        var rulerTraits = new StartingRulerTraitExtractor();
+
+        assertEquals(new EthicExtractor().extract(load(GameCategory.ETHICS, false)),
+                new EthicExtractor().extract(load(GameCategory.ETHICS, true)));
+        assertEquals(new AuthorityExtractor().extract(load(GameCategory.AUTHORITIES, false)),
+                new AuthorityExtractor().extract(load(GameCategory.AUTHORITIES, true)));
+        assertEquals(civics.extract(load(GameCategory.CIVICS, false)), civics.extract(load(GameCategory.CIVICS, true)));
+        assertEquals(origins.extract(load(GameCategory.CIVICS, false)), origins.extract(load(GameCategory.CIVICS, true)));
+        assertEquals(new SpeciesArchetypeExtractor().extract(load(GameCategory.SPECIES_ARCHETYPES, false)),
+                new SpeciesArchetypeExtractor().extract(load(GameCategory.SPECIES_ARCHETYPES, true)));
+        assertEquals(traits.extract(load(GameCategory.TRAITS, false)), traits.extract(load(GameCategory.TRAITS, true)));
+        assertEquals(traits.extractIconPaths(load(GameCategory.TRAITS, false)),
+                traits.extractIconPaths(load(GameCategory.TRAITS, true)));
+        assertEquals(rulerTraits.extract(load(GameCategory.TRAITS, false)),
+                rulerTraits.extract(load(GameCategory.TRAITS, true)));
+        assertEquals(new PlanetClassExtractor().extract(load(GameCategory.PLANET_CLASSES, false)),
+                new PlanetClassExtractor().extract(load(GameCategory.PLANET_CLASSES, true)));
+        assertEquals(new GraphicalCultureExtractor().extract(load(GameCategory.GRAPHICAL_CULTURES, false)),
+                new GraphicalCultureExtractor().extract(load(GameCategory.GRAPHICAL_CULTURES, true)));
+        assertEquals(new SpeciesClassExtractor().extract(load(GameCategory.SPECIES_CLASSES, false)),
+                new SpeciesClassExtractor().extract(load(GameCategory.SPECIES_CLASSES, true)));
+    }
+
+    private static AstNode load(GameCategory category, boolean projected) throws IOException {
+        Path common = Path.of(GAME_PATH, "common");
+        var globals = ScriptedVariableLoader.loadFromDirectory(common.resolve("scripted_variables"));
+        if (!projected) {
+            return DirectoryLoader.loadDirectory(category.resolve(common), globals);
+        }
+        return DirectoryLoader.loadDirectory(category.resolve(common), globals, new SymbolTable(),
+                new ClausewitzNodeBuilder(), category.filter(), category.projection());
+    }
+
+    /**
+     * Diagnostic: compares retained heap of a full loadAll with and without symbol interning.
+     * Enable by removing @Disabled.
+     */
+    @Disabled("Diagnostic report — run manually to compare heap footprint of symbol interning")
+    @Test
+    @EnabledIf("gameFilesExist")
+    void symbolInterningFootprintReport() throws IOException {
+        var props = new ParserProperties(GAME_PATH, System.getProperty("java.io.tmpdir"));
+
+        long plain = retainedAfterLoad(props, false);
+        long interned = retainedAfterLoad(props, true);
+
+        System.out.println("\n===== SYMBOL INTERNING FOOTPRINT =====");
+        System.out.printf("Without interning: %,d bytes%n", plain);
+        System.out.printf("With interning:    %,d bytes%n", interned);
+        System.out.printf("Saved:             %,d bytes%n", plain - interned);
+    }
+
+    /**
+     * Diagnostic: compares load time and retained heap of each AST backend.
+     * Off-heap columns of FLAT_OFF_HEAP don't show up in the heap figure.
+     * Enable by removing @Disabled.
+     */
+    @Disabled("Diagnostic report — run manually to compare AST backends")
+    @Test
+    @EnabledIf("gameFilesExist")
+    void astBackendReport() throws IOException {
+        System.out.println("\n===== AST BACKEND COMPARISON =====");
+        System.out.printf("%-15s %10s %16s%n", "Backend", "Load ms", "Retained bytes");
+        for (AstBackend backend : AstBackend.values()) {
+            var props = new ParserProperties(GAME_PATH, System.getProperty("java.io.tmpdir"), backend, null, null, null, null, null);
+            retainedAfterLoad(props, true); // warm-up
+            long start = System.nanoTime();
+            long retained = retainedAfterLoad(props, true);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("%-15s %10d %,16d%n", backend, elapsedMs, retained);
+        }
+    }
+
+    private static long retainedAfterLoad(ParserProperties props, boolean internSymbols) throws IOException {
+        long before = usedHeap();
+        var service = new GameFileService(props, new SettingsService(props));
+        service.loadAll(internSymbols);
+        long after = usedHeap();
+        assertNotNull(service.getTraits()); // keep the parsed trees reachable until measured
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 }
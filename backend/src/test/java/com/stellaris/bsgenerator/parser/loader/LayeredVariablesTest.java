@@ -0,0 +1,43 @@
+package com.stellaris.bsgenerator.parser.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredVariablesTest {
+
+    @Test
+    void overlayShadowsGlobalsWithoutWritingThrough() {
+        var globals = Map.of("a", "1", "b", "2");
+        var scope = new LayeredVariables(globals);
+        assertEquals("1", scope.get("a"));
+        assertTrue(scope.overlay().isEmpty());
+
+        assertEquals("1", scope.put("a", "10"));
+        scope.put("c", "3");
+        assertEquals("10", scope.get("a"));
+        assertEquals("2", scope.get("b"));
+        assertTrue(scope.containsKey("c"));
+        assertNull(scope.get("missing"));
+
+        assertEquals(Map.of("a", "10", "c", "3"), scope.overlay());
+        assertEquals(Map.of("a", "10", "b", "2", "c", "3"), Map.copyOf(scope));
+        assertEquals("1", globals.get("a"));
+        assertNull(new LayeredVariables(globals).get("c"));
+    }
+
+    @Test
+    void sizeCountsShadowedGlobalsOnce() {
+        var scope = new LayeredVariables(Map.of("a", "1", "b", "2"));
+        assertEquals(2, scope.size());
+        scope.put("a", "10");
+        scope.put("c", "3");
+        assertEquals(3, scope.size());
+        assertEquals(3, scope.entrySet().size());
+        assertEquals(Map.of("a", "10", "b", "2", "c", "3"), scope);
+        assertFalse(scope.isEmpty());
+        assertTrue(new LayeredVariables(Map.of()).isEmpty());
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -64,4 +65,27 @@ class ScriptedVariableLoaderTest {
         assertEquals("hello", ScriptedVariableLoader.stripBom("\uFEFFhello"));
         assertEquals("hello", ScriptedVariableLoader.stripBom("hello"));
     }
+
+    @Test
+    void scannerSkipsCommentsStringsAndReferences() throws IOException {
+        Files.writeString(tempDir.resolve("00_vars.txt"), """
+                \uFEFF# @commented = 1
+                @quoted = "a \\"b\\" @c"   # trailing @comment = 2
+                @tabbed\t=\t3
+                @undefined_ref = @missing
+                @ref = @tabbed
+                some_block = { value = @tabbed }
+                @unicode = "Größe"
+                """, StandardCharsets.UTF_8);
+
+        var vars = ScriptedVariableLoader.loadFromDirectory(tempDir);
+        assertEquals(Map.of("quoted", "a \"b\" @c", "tabbed", "3", "ref", "3", "unicode", "Größe"), vars);
+    }
+
+    @Test
+    void resultIsImmutable() throws IOException {
+        Files.writeString(tempDir.resolve("00_vars.txt"), "@a = 1\n", StandardCharsets.UTF_8);
+        var vars = ScriptedVariableLoader.loadFromDirectory(tempDir);
+        assertThrows(UnsupportedOperationException.class, () -> vars.put("b", "2"));
+    }
 }
@@ -0,0 +1,80 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteLexerTest {
+
+    private static List<Token> lex(String input) {
+        return lex(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Token> lex(byte[] bytes) {
+        var lexer = new ByteLexer(MemorySegment.ofArray(bytes));
+        var tokens = new ArrayList<Token>();
+        while (true) {
+            tokens.add(lexer.token());
+            if (lexer.type() == TokenType.EOF) return tokens;
+            lexer.advance();
+        }
+    }
+
+    @Test
+    void matchesCharTokenizer() {
+        String input = """
+                # comment
+                @cost = 2
+                civic_test = {
+                    cost = @cost
+                    modifier = { planet_jobs_produces_mult = -0.15 }
+                    potential = { ethics = { NOT = { value = ethic_gestalt_consciousness } } }
+                    count >= 2
+                    desc = "quoted \\"text\\" here"
+                    color = hsv { 0.5 0.3 0.7 }
+                    path = "gfx/interface/icons/traits/trait_test.dds"
+                    scope = prev.owner:capital
+                }
+                """;
+        assertEquals(Tokenizer.tokenize(input), lex(input));
+    }
+
+    @Test
+    void bomSkipped() {
+        byte[] body = "key = value".getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[body.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, withBom, 3, body.length);
+
+        var tokens = lex(withBom);
+        assertEquals("key", tokens.get(0).value());
+        assertEquals(1, tokens.get(0).column());
+    }
+
+    @Test
+    void utf8DecodedOnlyForValues() {
+        var tokens = lex("name = \"Ünïcödé\" größe = 1");
+        assertEquals("Ünïcödé", tokens.get(2).value());
+        assertEquals("größe", tokens.get(3).value());
+        assertEquals(24, tokens.get(4).column());
+    }
+
+    @Test
+    void unterminatedStringThrows() {
+        assertThrows(TokenizerException.class, () -> lex("a = \"unterminated"));
+    }
+
+    @Test
+    void emptyInput() {
+        var tokens = lex("");
+        assertEquals(1, tokens.size());
+        assertEquals(TokenType.EOF, tokens.get(0).type());
+    }
+}
@@ -0,0 +1,79 @@
+package com.stellaris.bsgenerator.parser.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void sameRangeGivesSameInstanceAndId() {
+        var table = new SymbolTable();
+        String input = "potential possible potential";
+        int first = table.idOf(input, 0, 9);
+        int second = table.idOf(input, 19, 28);
+        assertEquals(first, second);
+        assertSame(table.intern(input, 0, 9), table.intern(input, 19, 28));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void byteAndCharRangesShareSymbols() {
+        var table = new SymbolTable();
+        var bytes = MemorySegment.ofArray("cost = 2".getBytes(StandardCharsets.UTF_8));
+        int fromBytes = table.idOf(bytes, 0, 4);
+        assertEquals(fromBytes, table.idOf("cost"));
+        assertEquals("cost", table.symbol(fromBytes));
+    }
+
+    @Test
+    void nonAsciiBytesDecoded() {
+        var table = new SymbolTable();
+        var bytes = MemorySegment.ofArray("größe".getBytes(StandardCharsets.UTF_8));
+        assertEquals("größe", table.intern(bytes, 0, bytes.byteSize()));
+        assertEquals(table.idOf("größe"), table.idOf(bytes, 0, bytes.byteSize()));
+    }
+
+    @Test
+    void tablesSharingACanonicalMapShareInstances() {
+        var canonical = new ConcurrentHashMap<String, String>();
+        var first = new SymbolTable(canonical);
+        var second = new SymbolTable(canonical);
+        String key = first.intern(new String("random_weight".toCharArray()));
+        assertSame(key, second.intern(new String("random_weight".toCharArray())));
+        assertSame(key, canonical.get("random_weight"));
+    }
+
+    @Test
+    void idsAreDenseAcrossGrowth() {
+        var table = new SymbolTable();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, table.idOf("sym_" + i));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, table.idOf("sym_" + i));
+            assertEquals("sym_" + i, table.symbol(i));
+        }
+        assertEquals(5000, table.size());
+    }
+
+    @Test
+    void lexerCanonicalizesIdentifiersOnly() {
+        var table = new SymbolTable();
+        var lexer = new Lexer("a = \"a\" b = a", table);
+        String first = lexer.text();
+        lexer.advance();
+        lexer.advance();
+        String quoted = lexer.text();
+        lexer.advance();
+        lexer.advance();
+        lexer.advance();
+        assertSame(first, lexer.text());
+        assertEquals("a", quoted);
+        assertEquals(1, table.size()); // "b" was never asked for its text
+    }
+}
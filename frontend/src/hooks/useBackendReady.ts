@@ -13,11 +13,24 @@ interface BackendState {
   gameVersion: string | null;
 }
 
+interface LoadPhase {
+  name: string;
+  state: "PENDING" | "LOADING" | "DONE" | "FAILED";
+  filesParsed: number;
+  filesTotal: number;
+  bytesRead: number;
+  elapsedMs: number;
+}
+
 interface HealthResponse {
   status: string;
   version: string;
   dataStatus: string;
   dataError: string | null;
+  reloading: boolean;
+  reloadError: string | null;
+  readyCategories: string[];
+  phases: LoadPhase[];
 }
 
 export function useBackendReady(): BackendState {